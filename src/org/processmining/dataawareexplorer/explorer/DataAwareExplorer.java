@@ -20,8 +20,9 @@ import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -35,12 +36,15 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JSplitPane;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 import org.deckfour.xes.classification.XEventNameClassifier;
 import org.deckfour.xes.model.XLog;
 import org.processmining.dataawareexplorer.explorer.action.ComputeAlignmentAction;
 import org.processmining.dataawareexplorer.explorer.action.ConfigureAlignmentAction;
+import org.processmining.dataawareexplorer.explorer.action.MonitorStreamAction;
 import org.processmining.dataawareexplorer.explorer.chartview.AttributeChartView;
 import org.processmining.dataawareexplorer.explorer.chartview.ChartView;
 import org.processmining.dataawareexplorer.explorer.events.DataChangedEvent;
@@ -55,8 +59,12 @@ import org.processmining.dataawareexplorer.explorer.model.FilterConfiguration;
 import org.processmining.dataawareexplorer.explorer.model.FilterConfiguration.SelectionFilterMode;
 import org.processmining.dataawareexplorer.explorer.netview.NetView;
 import org.processmining.dataawareexplorer.explorer.netview.impl.ViewMode;
+import org.processmining.dataawareexplorer.explorer.stream.StreamMonitorPanel;
 import org.processmining.dataawareexplorer.explorer.traceview.TraceView;
 import org.processmining.dataawareexplorer.explorer.traceview.TraceViewImpl;
+import org.processmining.dataawareexplorer.explorer.work.Cancellation;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
 import org.processmining.dataawareexplorer.utils.ProMAutoCompletingTextField;
 import org.processmining.dataawareexplorer.utils.UIUtils;
 import org.processmining.datapetrinets.DataPetriNetsWithMarkings;
@@ -92,17 +100,78 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 
 	private static final int CONFIGURATION_SPACING = 15;
 
-	private abstract class ExplorerWorker extends SwingWorker<Void, Void> {
+	/**
+	 * Recomputes the parts of the explorer given by its scope in the background
+	 * and updates the UI afterwards. Only one worker runs at a time, see
+	 * {@link DataAwareExplorer#scheduleUpdate(int, boolean)}.
+	 */
+	private final class ExplorerWorker extends SwingWorker<Void, Void> {
 
-		protected void done() {
+		private final int scope;
+
+		// Only accessed on the EDT, the next worker may start once both are set
+		private boolean isBackgroundFinished = false;
+		private boolean isDoneCalled = false;
+		// Claimed either by the background computation or by done() of a worker cancelled before it started
+		private final AtomicBoolean isStarted = new AtomicBoolean(false);
+
+		private ExplorerWorker(int scope) {
+			this.scope = scope;
+		}
+
+		private boolean hasScope(int part) {
+			return (scope & part) != 0;
+		}
+
+		protected Void doInBackground() throws Exception {
+			if (!isStarted.compareAndSet(false, true)) {
+				// Cancelled while queued, done() already finished the worker
+				return null;
+			}
 			try {
-				// Ensure result is ready!
-				get();
+				if (hasScope(UPDATE_FILTER)) {
+					XAlignedLog streamAlignment = pendingStreamAlignment.getAndSet(null);
+					if (streamAlignment != null) {
+						getModel().setAlignment(streamAlignment);
+					}
+					getModel().filterData();
+					Cancellation.checkpoint();
+				}
+				if (hasScope(UPDATE_NEW_VIEW)) {
+					currentNetView = getCurrentMode().getViewFactory().newInstance(getExplorerContext(),
+							getExplorerUpdater(), getModel());
+				}
+				currentNetView.updateData();
+				Cancellation.checkpoint();
+				netVisualization.updateData(currentNetView.getModelDecorationData());
+				if (hasScope(UPDATE_DETAILS)) {
+					Cancellation.checkpoint();
+					chartView.updateData();
+					traceView.updateData();
+				}
+				return null;
+			} finally {
+				// done() is already called on cancellation while this may still run
+				SwingUtilities.invokeLater(new Runnable() {
 
-				updateUI();
+					public void run() {
+						isBackgroundFinished = true;
+						workerFinished(ExplorerWorker.this);
+					}
+				});
+			}
+		}
 
-				mainPanel.validate();
+		protected void done() {
+			try {
+				if (!isCancelled()) {
+					// Ensure result is ready!
+					get();
+
+					updateUI();
 
+					mainPanel.validate();
+				}
 			} catch (InterruptedException e) {
 				Thread.currentThread().interrupt();
 			} catch (ExecutionException e) {
@@ -113,12 +182,34 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 				ProMUIHelper.showErrorMessage(mainPanel,
 						String.format("Error while updating the view: %s", e.getMessage()), "Error updating view", e);
 			} finally {
-				getModel().resetDirtyFlags();
-				afterUpdate();
+				if (isCancelled() && isStarted.compareAndSet(false, true)) {
+					// Cancelled while still queued, the background computation never runs
+					isBackgroundFinished = true;
+				}
+				isDoneCalled = true;
+				workerFinished(this);
 			}
 		}
 
-		protected abstract void updateUI();
+		private void updateUI() {
+			if (hasScope(UPDATE_NEW_VIEW)) {
+				// does not trigger another update as we are currently updating
+				viewModeChooser.setSelectedItem(getCurrentMode());
+			}
+
+			currentNetView.updateUI();
+			netVisualization.updateUI();
+			updateConfigurationUI();
+			infoView.updateUI(currentNetView.getInfoData(), getModel().getFilterConfiguration().getSelectedNodes());
+
+			if (hasScope(UPDATE_DETAILS)) {
+				chartView.updateUI();
+				chartFrame.getContentPane().validate();
+
+				traceView.updateUI();
+				traceFrame.getContentPane().validate();
+			}
+		}
 
 	}
 
@@ -140,9 +231,16 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 
 	private static final int FREETEXT_SEARCH_LIMIT = 500;
 
+	// Parts of the explorer that are recomputed by an update
+	private static final int UPDATE_VIEW_DATA = 1;
+	private static final int UPDATE_FILTER = 2;
+	private static final int UPDATE_NEW_VIEW = 4;
+	private static final int UPDATE_DETAILS = 8;
+
+	// Delay for rapidly repeated events, e.g., while editing the query
+	private static final int DEBOUNCE_DELAY = 250;
+
 	private final PluginContext context;
-	private ExecutorService executor = Executors
-			.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
 
 	private final ExplorerModel explorerModel;
 
@@ -171,6 +269,12 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 	private final ProMComboBox<SelectionFilterMode> filterSelectionMode;
 
 	private boolean isUpdating = false;
+	private boolean isComputingAlignment = false;
+
+	// Update scheduling, only accessed on the EDT
+	private ExplorerWorker runningWorker;
+	private int pendingScope = 0;
+	private final Timer debounceTimer;
 
 	private JLabel labelConfig;
 
@@ -178,6 +282,10 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 	private final JProgressBar alignmentProgressBar;
 	private final JButton alignmentComputeButton;
 	private final JButton alignmentCancelButton;
+	private final JButton streamMonitorButton;
+	// Latest window of a monitored event stream, replaces the alignment with the next update
+	private final AtomicReference<XAlignedLog> pendingStreamAlignment = new AtomicReference<>();
+	private StreamMonitorPanel streamMonitorPanel;
 	private final JPanel alignmentProgressPanel;
 
 	private JLabel labelFilterSelectionMode;
@@ -187,8 +295,20 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 	public DataAwareExplorer(final PluginContext context, XLog log, DataPetriNetsWithMarkings net) {
 		super();
 		this.context = context;
+		// ProM does not tell when the explorer is closed, so the runtime is kept until the JVM exits
+		ExplorerRuntime.acquire();
 		eventBus.register(this);
 
+		debounceTimer = new Timer(DEBOUNCE_DELAY, new ActionListener() {
+
+			public void actionPerformed(ActionEvent e) {
+				if (runningWorker == null && pendingScope != 0) {
+					startPendingUpdate();
+				}
+			}
+		});
+		debounceTimer.setRepeats(false);
+
 		explorerModel = new ExplorerModel(log, net);
 		netVisualization = new NetVisualizationImpl(getExplorerUpdater(), getExplorerContext(), getModel());
 
@@ -279,6 +399,20 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 				+ "<BR>(> 4GB available memory for the MPE is advised).</HTML>");
 		alignmentButtonPanel.add(alignmentComputeButton);
 
+		streamMonitorButton = SlickerFactory.instance().createButton("Monitor Event Stream");
+		streamMonitorButton.addActionListener(new ActionListener() {
+
+			public void actionPerformed(ActionEvent e) {
+				monitorEventStream();
+			}
+
+		});
+		streamMonitorButton.setToolTipText("<HTML>Aligns the cases of an event stream to the model and shows them instead of the log."
+				+ "<BR/>The events are appended to a file, one event per line with the case, the activity, the time and 'key=value' attributes separated by ';',"
+				+ "<BR/>or they are put into a queue by another plug-in. The views show the most recently completed cases."
+				+ "<BR/>The alignment needs to be computed first, its configuration is used for the monitoring.</HTML>");
+		alignmentButtonPanel.add(streamMonitorButton);
+
 		alignmentPanel.add(alignmentButtonPanel);
 
 		alignmentProgressPanel = new JPanel();
@@ -552,11 +686,10 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 
 	private void disableControls() {
 		viewModeChooser.setEnabled(false);
-		filterQuery.getTextField().setEnabled(false);
-		if (getCurrentMode() != ViewMode.MODEL) {
-			filterSelectionMode.setEnabled(false);
-		}
+		// Filter controls stay enabled, a new filter supersedes the running update
+		filterQuery.getTextField().setEnabled(!isComputingAlignment);
 		alignmentComputeButton.setEnabled(false);
+		streamMonitorButton.setEnabled(false);
 	}
 
 	public void afterUpdate() {
@@ -573,6 +706,7 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 			filterSelectionMode.setEnabled(true);
 		}
 		alignmentComputeButton.setEnabled(true);
+		streamMonitorButton.setEnabled(true);
 	}
 
 	@Subscribe
@@ -587,122 +721,135 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 			}
 		}
 
-		executeWorker(new ExplorerWorker() {
-
-			protected Void doInBackground() throws Exception {
-				currentNetView = getCurrentMode().getViewFactory().newInstance(getExplorerContext(),
-						getExplorerUpdater(), getModel());
-				currentNetView.updateData();
-				netVisualization.updateData(currentNetView.getModelDecorationData());
-				return null;
-			}
-
-			protected void updateUI() {
-
-				// does not trigger another update as we are currently updating
-				viewModeChooser.setSelectedItem(getCurrentMode());
-
-				currentNetView.updateUI();
-				netVisualization.updateUI();
-				updateConfigurationUI();
-				infoView.updateUI(currentNetView.getInfoData(), getModel().getFilterConfiguration().getSelectedNodes());
-			}
-
-		});
+		scheduleUpdate(UPDATE_NEW_VIEW | UPDATE_VIEW_DATA, false);
 	}
 
 	@Subscribe
 	public void netViewConfigChanged(NetViewConfigChangedEvent event) {
-		executeWorker(new ExplorerWorker() {
-
-			protected Void doInBackground() throws Exception {
-				currentNetView.updateData();
-				netVisualization.updateData(currentNetView.getModelDecorationData());
-				return null;
-			}
-
-			protected void updateUI() {
-				currentNetView.updateUI();
-				netVisualization.updateUI();
-				updateConfigurationUI();
-				infoView.updateUI(currentNetView.getInfoData(), getModel().getFilterConfiguration().getSelectedNodes()); // might have change the info
-			}
-
-		});
+		scheduleUpdate(UPDATE_VIEW_DATA, true);
 	}
 
 	@Subscribe
 	public void dataChanged(DataChangedEvent event) {
-		executeWorker(new ExplorerWorker() {
-
-			protected Void doInBackground() throws Exception {
-				getModel().filterData();
-				currentNetView = getCurrentMode().getViewFactory().newInstance(getExplorerContext(),
-						getExplorerUpdater(), getModel());
-				currentNetView.updateData();
-				netVisualization.updateData(currentNetView.getModelDecorationData());
-				chartView.updateData();
-				traceView.updateData();
-				return null;
-			}
-
-			protected void updateUI() {
-
-				currentNetView.updateUI();
-				netVisualization.updateUI();
-				updateConfigurationUI();
-				infoView.updateUI(currentNetView.getInfoData(), getModel().getFilterConfiguration().getSelectedNodes());
-
-				chartView.updateUI();
-				chartFrame.getContentPane().validate();
-
-				traceView.updateUI();
-				traceFrame.getContentPane().validate();
-
-			}
-
-		});
+		scheduleUpdate(UPDATE_FILTER | UPDATE_NEW_VIEW | UPDATE_VIEW_DATA | UPDATE_DETAILS, false);
 	}
 
 	@Subscribe
 	public void filterChanged(FilterChangedEvent event) {
 		filterQuery.setText(explorerModel.getFilterConfiguration().getFilterQuery());
-		executeWorker(new ExplorerWorker() {
+		scheduleUpdate(UPDATE_FILTER | UPDATE_VIEW_DATA | UPDATE_DETAILS, true);
+	}
 
-			protected Void doInBackground() throws Exception {
-				getModel().filterData();
-				currentNetView.updateData();
-				netVisualization.updateData(currentNetView.getModelDecorationData());
-				chartView.updateData();
-				traceView.updateData();
-				return null;
+	/**
+	 * Schedules an update of the given parts of the explorer. Updates are
+	 * coalesced: a running update is cancelled and its parts are merged with
+	 * the parts of all events received since, so that a single update brings
+	 * the explorer to the latest state. Events that typically arrive in rapid
+	 * succession are debounced.
+	 *
+	 * @param scope
+	 *            parts to update
+	 * @param debounce
+	 *            whether to wait for further events before starting
+	 */
+	private void scheduleUpdate(int scope, boolean debounce) {
+		if (isComputingAlignment) {
+			// Everything is updated once the alignment is available
+			return;
+		}
+		pendingScope |= scope;
+		if (runningWorker != null) {
+			// Superseded by the new event, restarted once its background computation stopped
+			runningWorker.cancel(true);
+		}
+		if (debounce) {
+			debounceTimer.restart();
+		} else {
+			debounceTimer.stop();
+			if (runningWorker == null) {
+				startPendingUpdate();
 			}
+		}
+	}
 
-			protected void updateUI() {
-				currentNetView.updateUI();
-				netVisualization.updateUI();
-				updateConfigurationUI();
-				infoView.updateUI(currentNetView.getInfoData(), getModel().getFilterConfiguration().getSelectedNodes());
+	private void startPendingUpdate() {
+		if (!isUpdating) {
+			beforeUpdate();
+		}
+		ExplorerWorker worker = new ExplorerWorker(pendingScope);
+		runningWorker = worker;
+		pendingScope = 0;
+		try {
+			getRuntime().getExecutor(WorkQueue.LAYOUT).execute(worker);
+		} catch (RejectedExecutionException e) {
+			// Kept pending for the next event, the explorer must not wait for a worker that never runs
+			runningWorker = null;
+			pendingScope |= worker.scope;
+			afterUpdate();
+			ProMUIHelper.showErrorMessage(mainPanel, "Could not schedule the update of the view: " + e.getMessage(),
+					"Error updating view", e);
+		}
+	}
 
-				chartView.updateUI();
-				chartFrame.getContentPane().validate();
+	private void workerFinished(ExplorerWorker worker) {
+		if (worker != runningWorker || !worker.isBackgroundFinished || !worker.isDoneCalled) {
+			return;
+		}
+		runningWorker = null;
+		if (worker.isCancelled()) {
+			// Its part of the update still needs to be done
+			pendingScope |= worker.scope;
+		}
+		if (debounceTimer.isRunning()) {
+			// Started by the timer
+			return;
+		}
+		if (pendingScope != 0) {
+			startPendingUpdate();
+		} else {
+			// Only reset when idle as the flags may have been set again for a pending update
+			getModel().resetDirtyFlags();
+			afterUpdate();
+		}
+	}
 
-				traceView.updateUI();
-				traceFrame.getContentPane().validate();
+	private void monitorEventStream() {
+		new MonitorStreamAction(getExplorerContext(), getModel()) {
+
+			public void onBeforeAction() {
+				stopEventStream();
 			}
 
-		});
+			public void onAfterAction(StreamMonitorPanel monitorPanel) {
+				streamMonitorPanel = monitorPanel;
+			}
+
+			public void onStreamAligned(final XAlignedLog alignedLog) {
+				SwingUtilities.invokeLater(new Runnable() {
+
+					public void run() {
+						if (streamMonitorPanel != null) {
+							// Not yet stopped for a new alignment
+							pendingStreamAlignment.set(alignedLog);
+							scheduleUpdate(UPDATE_FILTER | UPDATE_VIEW_DATA | UPDATE_DETAILS, true);
+						}
+					}
+				});
+			}
+		}.execute();
 	}
 
-	private final void executeWorker(ExplorerWorker worker) {
-		if (isUpdating) {
-			return;
+	private void stopEventStream() {
+		if (streamMonitorPanel != null) {
+			streamMonitorPanel.stop();
+			streamMonitorPanel = null;
 		}
-		beforeUpdate();
-		worker.execute();
+		pendingStreamAlignment.set(null);
 	}
 
 	private void computeAlignment(final ViewMode requestedMode) {
+		// The new alignment must not be replaced by the stream
+		stopEventStream();
 		// Possibility to change parameters
 		getModel().setAlignmentConfiguration(null);
 		getModel().setEventClassifier(new XEventNameClassifier());
@@ -729,12 +876,15 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 		new ComputeAlignmentAction(getExplorerContext(), getModel(), alignmentProgressListener) {
 
 			public void onBeforeAction() {
+				isComputingAlignment = true;
 				beforeUpdate();
 				alignmentProgressPanel.setVisible(true);
 			}
 
 			public void onAfterAction(XAlignedLog result) {
 				alignmentProgressPanel.setVisible(false);
+				isComputingAlignment = false;
+				context.log("Alignment computed, " + getRuntime());
 				afterUpdate();
 				setCurrentMode(requestedMode);
 				post(new DataChangedEvent() {
@@ -748,6 +898,7 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 			public void onError(String errorTitle, Exception e) {
 				super.onError(errorTitle, e);
 				alignmentProgressPanel.setVisible(false);
+				isComputingAlignment = false;
 				afterUpdate();
 			}
 
@@ -832,12 +983,8 @@ public final class DataAwareExplorer implements ExplorerUpdater, ExplorerContext
 		return mainPanel;
 	}
 
-	public ExecutorService getExecutor() {
-		return executor;
-	}
-
-	public void setExecutor(ExecutorService executor) {
-		this.executor = executor;
+	public ExplorerRuntime getRuntime() {
+		return ExplorerRuntime.getInstance();
 	}
 
 	public PluginContext getContext() {
@@ -1,13 +1,16 @@
 package org.processmining.dataawareexplorer.explorer;
 
-import java.util.concurrent.ExecutorService;
-
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime;
 import org.processmining.framework.plugin.PluginContext;
 import org.processmining.logenhancement.view.LogViewContext;
 
 public interface ExplorerContext {
 
-	ExecutorService getExecutor();
+	/**
+	 * @return the shared runtime, background work is submitted to one of its
+	 *         queues
+	 */
+	ExplorerRuntime getRuntime();
 
 	ExplorerInterface getUserQuery();
 
@@ -228,7 +228,6 @@ public final class ExplorerControllerImpl implements ExplorerController {
 		PluginContext context = explorerContext.getContext();
 		DataAwareExplorer newExplorer = new DataAwareExplorer(context, explorerModel.getLog(),
 				discoveryResult.getModel());
-		newExplorer.setExecutor(explorerContext.getExecutor());
 		ExplorerModel newModel = newExplorer.getModel();
 
 		BalancedProcessorConfiguration alignmentConfig = AlignmentUtil.createAlignmentConfig(discoveryResult,
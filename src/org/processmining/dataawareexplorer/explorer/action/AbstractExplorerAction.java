@@ -6,6 +6,7 @@ package org.processmining.dataawareexplorer.explorer.action;
 import java.util.concurrent.Executor;
 
 import org.processmining.dataawareexplorer.explorer.ExplorerContext;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
 import org.processmining.framework.plugin.PluginContext;
 
 abstract public class AbstractExplorerAction<T> implements ExplorerAction<T> {
@@ -18,7 +19,7 @@ abstract public class AbstractExplorerAction<T> implements ExplorerAction<T> {
 	}
 
 	protected Executor getExecutor() {
-		return explorerContext.getExecutor();
+		return explorerContext.getRuntime().getExecutor(WorkQueue.CPU);
 	}
 
 	protected PluginContext getContext() {
@@ -15,6 +15,7 @@ import org.deckfour.xes.model.XTrace;
 import org.processmining.dataawareexplorer.explorer.DefaultConfig;
 import org.processmining.dataawareexplorer.explorer.ExplorerContext;
 import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
 import org.processmining.datapetrinets.DataPetriNet;
 import org.processmining.framework.plugin.Progress;
 import org.processmining.models.semantics.petrinet.Marking;
@@ -125,7 +126,7 @@ abstract public class ComputeAlignmentAction extends AbstractAlignmentAction<XAl
 
 			final BalancedDataXAlignmentPlugin alignmentPlugin = new BalancedDataXAlignmentPlugin();		
 
-			getExecutor().execute(new SwingWorker<XAlignedLog, Void>() {
+			getExplorerContext().getRuntime().getExecutor(WorkQueue.ALIGNMENT).execute(new SwingWorker<XAlignedLog, Void>() {
 
 				protected XAlignedLog doInBackground() throws Exception {
 
@@ -0,0 +1,127 @@
+package org.processmining.dataawareexplorer.explorer.action;
+
+import java.awt.Dialog.ModalityType;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.processmining.dataawareexplorer.explorer.ExplorerContext;
+import org.processmining.dataawareexplorer.explorer.ExplorerInterface.QueryResult;
+import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
+import org.processmining.dataawareexplorer.explorer.stream.EventSource;
+import org.processmining.dataawareexplorer.explorer.stream.FileTailEventSource;
+import org.processmining.dataawareexplorer.explorer.stream.QueueEventSource;
+import org.processmining.dataawareexplorer.explorer.stream.StreamAlignedLog;
+import org.processmining.dataawareexplorer.explorer.stream.StreamMonitorPanel;
+import org.processmining.dataawareexplorer.explorer.stream.StreamMonitoringJob;
+import org.processmining.dataawareexplorer.explorer.stream.StreamStatus;
+import org.processmining.plugins.balancedconformance.config.BalancedProcessorConfiguration;
+import org.processmining.plugins.balancedconformance.observer.DataConformancePlusObserverNoOpImpl;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
+
+/**
+ * Monitors an event stream against the current model with the net and the
+ * alignment configuration of the explorer. The events are either appended to
+ * a text file (see {@link FileTailEventSource}) or put into a
+ * {@link QueueEventSource} that is published as ProM object, so that other
+ * plug-ins can hand over their events. The closed cases of the stream are
+ * aligned by a {@link StreamAlignedLog} and passed to
+ * {@link #onStreamAligned(XAlignedLog)}, so that the views of the explorer
+ * show them instead of the log. The status is shown in a modeless
+ * {@link StreamMonitorPanel}, closing it stops the monitoring.
+ */
+abstract public class MonitorStreamAction extends AbstractExplorerAction<StreamMonitorPanel> {
+
+	private static final int MAX_OPEN_CASES = 10000;
+	private static final int MAX_CLOSED_CASES = 10000;
+	private static final long UPDATE_INTERVAL = 1000;
+
+	private final ExplorerModel explorerModel;
+
+	public MonitorStreamAction(ExplorerContext explorerContext, ExplorerModel explorerModel) {
+		super(explorerContext);
+		this.explorerModel = explorerModel;
+	}
+
+	public void execute() {
+		BalancedProcessorConfiguration config = explorerModel.getAlignmentConfiguration();
+		if (config == null) {
+			onError("Please compute an alignment first, its configuration is used to monitor the event stream!",
+					null);
+			return;
+		}
+		if (!(config.getActivityMapping().getEventClassifier() instanceof XEventNameClassifier)) {
+			onError("Please compute the alignment with the event name classifier, "
+					+ "the events of the stream only have a name!", null);
+			return;
+		}
+
+		QueryResult result = getExplorerContext().getUserQuery().queryCustom("Monitor Event Stream",
+				new JLabel("<HTML>Should the events be read from a file to which they are appended "
+						+ "or be handed over by another plug-in through a queue?</HTML>"),
+				new String[] { "Tail File", "In-process Queue" });
+
+		EventSource source;
+		String name;
+		if (result.getCustom() == 0) {
+			JFileChooser fileChooser = new JFileChooser();
+			fileChooser.setDialogTitle("Choose a file with one 'case;activity;time[;key=value]*' event per line");
+			if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+				return;
+			}
+			File file = fileChooser.getSelectedFile();
+			try {
+				source = new FileTailEventSource(file, ';', false);
+			} catch (IOException e) {
+				onError("Could not open " + file.getName(), e);
+				return;
+			}
+			name = file.getName();
+		} else if (result.getCustom() == 1) {
+			source = new QueueEventSource();
+			name = "Event Stream of " + explorerModel.getModel().getLabel();
+			getContext().getProvidedObjectManager().createProvidedObject(name, source, getContext());
+		} else {
+			return;
+		}
+
+		onBeforeAction();
+
+		// The progress observer of the last alignment must not be called by the job
+		config.setObserver(new DataConformancePlusObserverNoOpImpl());
+		StreamAlignedLog streamAlignedLog = new StreamAlignedLog(explorerModel.getModel(), config,
+				MAX_OPEN_CASES, MAX_CLOSED_CASES);
+		final StreamMonitorPanel monitorPanel = new StreamMonitorPanel(source);
+		monitorPanel.setJob(new StreamMonitoringJob(source, streamAlignedLog, new StreamMonitoringJob.StreamListener() {
+
+			public void streamUpdated(StreamStatus status, XAlignedLog alignedLog) {
+				monitorPanel.streamUpdated(status, alignedLog);
+				if (alignedLog != null) {
+					onStreamAligned(alignedLog);
+				}
+			}
+
+			public void streamFailed(Exception e) {
+				monitorPanel.streamFailed(e);
+			}
+
+		}, UPDATE_INTERVAL).start());
+
+		getExplorerContext().getUserQuery().showCustom(monitorPanel, "Monitoring " + name, ModalityType.MODELESS);
+
+		onAfterAction(monitorPanel);
+	}
+
+	/**
+	 * Called on the thread of the monitoring job whenever the window of the
+	 * most recently closed cases changed.
+	 *
+	 * @param alignedLog
+	 *            the alignments of the closed cases in the window
+	 */
+	public abstract void onStreamAligned(XAlignedLog alignedLog);
+
+}
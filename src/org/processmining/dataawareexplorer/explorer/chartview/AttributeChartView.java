@@ -14,6 +14,7 @@ import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
@@ -42,7 +43,6 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import org.apache.commons.math3.stat.StatUtils;
 import org.deckfour.xes.model.XAttributable;
 import org.deckfour.xes.model.XAttribute;
-import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XTrace;
 import org.freehep.graphicsio.ps.PSGraphics2D;
@@ -86,6 +86,8 @@ import org.processmining.dataawareexplorer.explorer.chartview.Attribute.Attribut
 import org.processmining.dataawareexplorer.explorer.chartview.Attribute.AttributeOrigin;
 import org.processmining.dataawareexplorer.explorer.events.ModelSelectionChangedEvent;
 import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog;
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog.AttributeStatus;
 import org.processmining.framework.util.ui.widgets.ColorScheme;
 import org.processmining.framework.util.ui.widgets.ProMComboBox;
 import org.processmining.framework.util.ui.widgets.helper.ProMUIHelper;
@@ -95,9 +97,6 @@ import org.processmining.models.graphbased.directed.petrinet.PetrinetNode;
 import org.processmining.models.graphbased.directed.petrinet.elements.Place;
 import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
 import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
-import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignmentMove;
-import org.processmining.xesalignmentextension.XDataAlignmentExtension;
-import org.processmining.xesalignmentextension.XDataAlignmentExtension.XDataAlignmentExtensionException;
 
 import com.fluxicon.slickerbox.factory.SlickerFactory;
 import com.google.common.base.Predicate;
@@ -289,38 +288,44 @@ public class AttributeChartView implements ChartView {
 			this.color = color;
 		}
 
-		abstract protected boolean considerValue(XAlignmentMove move);
+		abstract protected boolean considerValue(CompactAlignedLog log, int move);
 
 		public Multimap<String, Comparable<?>> getValues(Attribute attribute) {
 			if (attribute instanceof AttributeWithData) {
 				return ((AttributeWithData) attribute).getValues();
 			}
 			Multimap<String, Comparable<?>> finalValues = ArrayListMultimap.create();
+			CompactAlignedLog log = explorerModel.getCompactAlignedLog();
+			int keyId = log.indexOfKey(attribute.getKey());
+			if (keyId == -1) {
+				// Neither a trace nor a move has this attribute
+				return finalValues;
+			}
 			for (XAlignment a : explorerModel.getFilteredAlignments()) {
-				String traceName = a.getName();
-				
-				XAttributeMap traceAttributes = a.getTrace().getAttributes();
-				XAttribute traceAttribute = traceAttributes.get(attribute.getKey());
+				int traceId = log.requireTraceId(a);
+				String traceName = log.getTraceName(traceId);
+
+				Object traceAttribute = log.getTraceAttributeValue(traceId, keyId);
 				// Only post value is relevant for trace
 				if (traceAttribute != null) {
-					finalValues.put(traceName, (Comparable<?>) XUtils.getAttributeValue(traceAttribute));
+					finalValues.put(traceName, (Comparable<?>) traceAttribute);
 				}
 
 				Object currentValue = null;
-				for (XAlignmentMove m : a) {
+				for (int m = log.getMoveStart(traceId); m < log.getMoveEnd(traceId); m++) {
 
 					// Pre values
 					AttributeOccurence occurence = attribute.getOccurence();
-					if (occurence == AttributeOccurence.PRE && considerValue(m) && currentValue != null) {
+					if (occurence == AttributeOccurence.PRE && considerValue(log, m) && currentValue != null) {
 						finalValues.put(traceName, (Comparable<?>) currentValue);
 					}
 
-					XAttribute attributeValue = extractAttribute(attribute, m);
-					if (attributeValue != null) {
-						currentValue = XUtils.getAttributeValue(attributeValue);
+					int attributeValue = log.findAttribute(m, keyId);
+					if (attributeValue != -1 && hasValue(attribute, log, attributeValue)) {
+						currentValue = extractValue(attribute, log, attributeValue);
 						if (occurence == AttributeOccurence.ANYWHERE) {
 							finalValues.put(traceName, (Comparable<?>) currentValue);
-						} else if (occurence == AttributeOccurence.WRITTEN && considerValue(m)
+						} else if (occurence == AttributeOccurence.WRITTEN && considerValue(log, m)
 								&& currentValue != null) {
 							finalValues.put(traceName, (Comparable<?>) currentValue);
 						}
@@ -328,7 +333,7 @@ public class AttributeChartView implements ChartView {
 					}
 
 					// Post values
-					if (occurence == AttributeOccurence.POST && considerValue(m) && currentValue != null) {
+					if (occurence == AttributeOccurence.POST && considerValue(log, m) && currentValue != null) {
 						finalValues.put(traceName, (Comparable<?>) currentValue);
 					}
 				}
@@ -336,39 +341,29 @@ public class AttributeChartView implements ChartView {
 			return finalValues;
 		}
 
-		private final XAttribute extractAttribute(Attribute attribute, XAlignmentMove m) {
-			XAttribute attributeValue = null;
-			XDataAlignmentExtension dataAlignmentExtension = XDataAlignmentExtension.instance();
+		private static boolean hasValue(Attribute attribute, CompactAlignedLog log, int attributeValue) {
 			switch (attribute.getOrigin()) {
-				case UNMAPPED_EVENT :
-				case ALIGNMENT_EVENT :
-					attributeValue = m.getEvent().getAttributes().get(attribute.getKey());
-					break;
 				case VARIABLE_LOG :
-					XAttribute logAttribute = m.getEvent().getAttributes().get(attribute.getKey());
-					if (logAttribute != null) {
-						attributeValue = dataAlignmentExtension.extractLogValue(logAttribute);
-					}
-					break;
+					return log.getAttributeLogValue(attributeValue) != null;
 				case VARIABLE_LOG_INVALID :
-					XAttribute invalidLogAttribute = m.getEvent().getAttributes().get(attribute.getKey());
-					if (invalidLogAttribute != null) {
-						try {
-							if (dataAlignmentExtension.isIncorrectAttribute(invalidLogAttribute)) {
-								attributeValue = dataAlignmentExtension.extractLogValue(invalidLogAttribute);
-							}
-						} catch (XDataAlignmentExtensionException e) {
-						}
-					}
-					break;
+					return log.getAttributeStatus(attributeValue) == AttributeStatus.INCORRECT
+							&& log.getAttributeLogValue(attributeValue) != null;
+				default :
+					return true;
+			}
+		}
+
+		private static Object extractValue(Attribute attribute, CompactAlignedLog log, int attributeValue) {
+			switch (attribute.getOrigin()) {
+				case VARIABLE_LOG :
+				case VARIABLE_LOG_INVALID :
+					return log.getAttributeLogValue(attributeValue);
+				case UNMAPPED_EVENT :
+				case ALIGNMENT_EVENT :
 				case VARIABLE_PROCESS :
-					attributeValue = m.getEvent().getAttributes().get(attribute.getKey());
-					break;
 				default :
-					attributeValue = m.getEvent().getAttributes().get(attribute.getKey());
-					break;
+					return log.getAttributeValue(attributeValue);
 			}
-			return attributeValue;
 		}
 
 		public Color getColor() {
@@ -380,18 +375,20 @@ public class AttributeChartView implements ChartView {
 	private static final class AttributeContainerLocalImpl extends AbstractAttributeContainerImpl {
 
 		private final Transition transition;
+		private final int transitionIndex;
 
 		public AttributeContainerLocalImpl(ExplorerModel explorerModel, Transition transition, Color color) {
 			super(explorerModel, color);
 			this.transition = transition;
+			this.transitionIndex = explorerModel.getNetIndex().indexOf(transition);
 		}
 
 		public String getLabel() {
 			return transition.getLabel();
 		}
 
-		protected boolean considerValue(XAlignmentMove move) {
-			return explorerModel.getTransitionsLocalId().get(move.getActivityId()) == transition;
+		protected boolean considerValue(CompactAlignedLog log, int move) {
+			return transitionIndex != -1 && log.getTransition(move) == transitionIndex;
 		}
 
 		public Set<Attribute> getAttribute() {
@@ -410,7 +407,7 @@ public class AttributeChartView implements ChartView {
 			return "Anywhere (i.e., all activities)";
 		}
 
-		protected boolean considerValue(XAlignmentMove move) {
+		protected boolean considerValue(CompactAlignedLog log, int move) {
 			return true;
 		}
 
@@ -884,23 +881,37 @@ public class AttributeChartView implements ChartView {
 
 			TimeSeries series = new TimeSeries(c.getLabel());
 
-			Multimap<String, Comparable<?>> values = c.getValues(currentAttribute);
+			Collection<Comparable<?>> values = c.getValues(currentAttribute).values();
+			RegularTimeEnum timeFactory = (RegularTimeEnum) timeBox.getSelectedItem();
 
-			for (java.util.Map.Entry<String, Collection<Comparable<?>>> entry : values.asMap().entrySet()) {
-				for (Comparable<?> value : entry.getValue()) {
-					RegularTimeEnum timeFactory = (RegularTimeEnum) timeBox.getSelectedItem();
-					Date time = (Date) value;
+			// Count sorted milliseconds in runs, so that a period is only created once and not for every value
+			long[] times = new long[values.size()];
+			int numTimes = 0;
+			for (Comparable<?> value : values) {
+				times[numTimes++] = ((Date) value).getTime();
+			}
+			Arrays.sort(times);
+
+			RegularTimePeriod current = null;
+			int count = 0;
+			for (long time : times) {
+				if (current == null || time > current.getLastMillisecond()) {
+					if (current != null) {
+						series.add(current, count);
+					}
 					try {
-						RegularTimePeriod current = timeFactory.createPeriod(time);
-						if (series.getDataItem(current) != null) {
-							series.addOrUpdate(current, series.getValue(current).intValue() + 1);
-						} else {
-							series.addOrUpdate(current, 1);
-						}
+						current = timeFactory.createPeriod(new Date(time));
+						count = 1;
 					} catch (IllegalArgumentException e) {
+						current = null;
 					}
+				} else {
+					count++;
 				}
 			}
+			if (current != null) {
+				series.add(current, count);
+			}
 
 			TimeSeriesCollection seriesCollection = new TimeSeriesCollection(series);
 
@@ -5,6 +5,7 @@ package org.processmining.dataawareexplorer.explorer.model;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -21,12 +22,8 @@ import org.deckfour.xes.classification.XEventNameClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.extension.std.XLifecycleExtension;
 import org.deckfour.xes.extension.std.XTimeExtension;
-import org.deckfour.xes.model.XAttribute;
-import org.deckfour.xes.model.XAttributeLiteral;
-import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
-import org.deckfour.xes.util.XAttributeUtils;
 import org.processmining.dataawareexplorer.explorer.DataAwareExplorer;
 import org.processmining.dataawareexplorer.explorer.ExplorerContext;
 import org.processmining.dataawareexplorer.explorer.ExplorerController;
@@ -38,12 +35,20 @@ import org.processmining.dataawareexplorer.explorer.exception.FilterException;
 import org.processmining.dataawareexplorer.explorer.exception.NetVisualizationException;
 import org.processmining.dataawareexplorer.explorer.model.FilterConfiguration.SelectionFilterMode;
 import org.processmining.dataawareexplorer.explorer.netview.impl.ViewMode;
+import org.processmining.dataawareexplorer.explorer.work.AlignmentContributions;
 import org.processmining.dataawareexplorer.explorer.work.AlignmentInformation;
+import org.processmining.dataawareexplorer.explorer.work.AttributeIndex;
+import org.processmining.dataawareexplorer.explorer.work.Cancellation;
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog;
 import org.processmining.dataawareexplorer.explorer.work.DiscoveryProcessor.DiscoveryResult;
-import org.processmining.dataawareexplorer.parallel.Input;
+import org.processmining.dataawareexplorer.explorer.work.DiscoveryRuleCache;
+import org.processmining.dataawareexplorer.explorer.work.NetIndex;
+import org.processmining.dataawareexplorer.explorer.work.NodeTraceIndex;
+import org.processmining.dataawareexplorer.explorer.work.VariantIndex;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime;
 import org.processmining.dataawareexplorer.parallel.MapReduce;
-import org.processmining.dataawareexplorer.parallel.MapReduceTask;
 import org.processmining.dataawareexplorer.parallel.Output;
+import org.processmining.dataawareexplorer.parallel.RangeInput;
 import org.processmining.datapetrinets.DataPetriNet;
 import org.processmining.datapetrinets.DataPetriNetsWithMarkings;
 import org.processmining.datapetrinets.visualization.graphviz.DPNGraphvizConverterPlugin.GuardDisplayMode;
@@ -63,9 +68,7 @@ import org.processmining.xesalignmentextension.XAlignmentExtension;
 import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
 import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
 import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
-import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignmentMove;
 import org.processmining.xesalignmentextension.XDataAlignmentExtension.DataMoveType;
-import org.processmining.xeslite.query.AttributeTypeResolver;
 import org.processmining.xeslite.query.XIndex;
 import org.processmining.xeslite.query.syntax.ParseException;
 import org.xeslite.XLogMetadata;
@@ -112,16 +115,37 @@ public class ExplorerModel {
 	private final Map<String, Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>>> outEdgeMap = new HashMap<>();
 	private final Map<String, Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>>> inEdgeMap = new HashMap<>();
 	private final Map<String, Transition> transitionsLocalId = new HashMap<>();
+	private final NetIndex netIndex;
+	// In- and out-edges indexed by the transition index of netIndex
+	private final List<Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>>> inEdgesByIndex = new ArrayList<>();
+	private final List<Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>>> outEdgesByIndex = new ArrayList<>();
 
 	private XAlignedLog alignment;
 	private Map<String, Color> alignmentColorMap;
 	private BalancedProcessorConfiguration alignmentConfiguration;
 
 	private List<XAlignment> queryFilteredAlignments;
+	// Query for which queryFilteredAlignments has been computed, it may be skipped by a cache hit
+	private String queryFilteredQuery;
 	private List<XAlignment> filteredAlignments;
-
+	// Incremented whenever filteredAlignments changes, results derived from them are only valid for one version
+	private long filteredAlignmentsVersion;
+	private FilterResultCache.Key filteredAlignmentsKey;
+	private final Map<Object, Object> filteredAlignmentsResults = new HashMap<>();
+
+	private CompactAlignedLog compactAlignedLog;
+	private VariantIndex variantIndex;
+	private NodeTraceIndex nodeTraceIndex;
+	// Built lazily on the first filter query
+	private AttributeIndex logAttributeIndex;
+	private AttributeIndex alignmentAttributeIndex;
 	private AlignmentInformation alignmentInformation;
+	private AlignmentContributions alignmentContributions;
+	// State for which alignmentInformation has been computed, used to apply only the difference on a new filter
+	private List<XAlignment> informationAlignments;
+	private AlignmentContributions informationContributions;
 	private Collection<XAlignment> selectedAlignments = ImmutableList.of();
+	private final FilterResultCache filterResultCache = FilterResultCache.createDefault();
 
 	private FilterConfiguration filterConfiguration = new FilterConfiguration();
 	private List<String> autoCompleteDictionary = new ArrayList<String>();
@@ -139,8 +163,8 @@ public class ExplorerModel {
 	private Set<Attribute> chartAttributes = new HashSet<>();
 
 	private DiscoveryResult discoveryResult;
-
-	private ForkJoinPool pool = new ForkJoinPool();
+	// Rules of earlier discovery runs on the current alignment
+	private final DiscoveryRuleCache discoveryRuleCache = new DiscoveryRuleCache(256);
 
 	private Map<String, Set<String>> literalValues;
 	private SetMultimap<Transition, String> discoveredWriteOperations;
@@ -151,6 +175,12 @@ public class ExplorerModel {
 		this.model = model;
 		updateLogDataStructures(log);
 		prepareNetDataStructures(model);
+		this.netIndex = new NetIndex(model, transitionsLocalId);
+		for (int i = 0; i < netIndex.getNumTransitions(); i++) {
+			String localId = netIndex.getTransition(i).getLocalID().toString();
+			inEdgesByIndex.add(inEdgeMap.get(localId));
+			outEdgesByIndex.add(outEdgeMap.get(localId));
+		}
 	}
 
 	public XLog getLog() {
@@ -231,12 +261,29 @@ public class ExplorerModel {
 		return alignment;
 	}
 
+	/**
+	 * @return the pool of the current runtime, not kept as the runtime may be
+	 *         shut down and replaced
+	 */
+	private static ForkJoinPool getPool() {
+		return ExplorerRuntime.getInstance().getForkJoinPool();
+	}
+
 	public void setAlignment(XAlignedLog alignment) {
 		if (alignment == null || alignment != this.alignment) {
 			alignmentColorMap = ColorTheme.createColorMap(alignment);
 			chartAttributes = updateChartAttributes(model, getLog(), getLogAttributes(), alignment,
 					getAlignmentConfiguration());
 			selectedAlignments = ImmutableList.of();
+			compactAlignedLog = alignment != null ? new CompactAlignedLog(netIndex, alignment, getPool()) : null;
+			variantIndex = compactAlignedLog != null ? new VariantIndex(compactAlignedLog, getPool()) : null;
+			nodeTraceIndex = variantIndex != null ? new NodeTraceIndex(variantIndex) : null;
+			filterResultCache.clear();
+			queryFilteredQuery = null;
+			invalidateFilteredAlignmentsResults(null);
+			discoveryRuleCache.clear();
+			alignmentContributions = variantIndex != null ? new AlignmentContributions(model, variantIndex, getPool())
+					: null;
 			alignmentDirty = true;
 		}
 		this.alignment = alignment;
@@ -246,6 +293,22 @@ public class ExplorerModel {
 		return alignment != null;
 	}
 
+	/**
+	 * @return the columnar form of the current aligned log or
+	 *         <code>null</code> if there is no alignment
+	 */
+	public CompactAlignedLog getCompactAlignedLog() {
+		return compactAlignedLog;
+	}
+
+	/**
+	 * @return the variants of the current aligned log or <code>null</code> if
+	 *         there is no alignment
+	 */
+	public VariantIndex getVariantIndex() {
+		return variantIndex;
+	}
+
 	public Map<String, Color> getAlignmentColorMap() {
 		return alignmentColorMap;
 	}
@@ -254,6 +317,52 @@ public class ExplorerModel {
 		return filteredAlignments;
 	}
 
+	/**
+	 * @return the version of the filtered alignments, which changes whenever
+	 *         the alignment or the filter changes
+	 */
+	public long getFilteredAlignmentsVersion() {
+		return filteredAlignmentsVersion;
+	}
+
+	/**
+	 * Returns a result that has been derived from the filtered alignments by
+	 * {@link #putFilteredAlignmentsResult(Object, Object, long)}, e.g., the
+	 * statistics of a view. Results are kept until the filtered alignments
+	 * change, so that they can be shared by views and their configurations.
+	 *
+	 * @param key
+	 * @param type
+	 * @return the result for the current version or <code>null</code>
+	 */
+	public synchronized <T> T getFilteredAlignmentsResult(Object key, Class<T> type) {
+		return type.cast(filteredAlignmentsResults.get(key));
+	}
+
+	/**
+	 * Stores a result derived from the filtered alignments, unless they have
+	 * changed in the meantime.
+	 *
+	 * @param key
+	 * @param result
+	 * @param version
+	 *            {@link #getFilteredAlignmentsVersion()} before the result was
+	 *            computed
+	 */
+	public synchronized void putFilteredAlignmentsResult(Object key, Object result, long version) {
+		if (version == filteredAlignmentsVersion) {
+			filteredAlignmentsResults.put(key, result);
+		}
+	}
+
+	private synchronized void invalidateFilteredAlignmentsResults(FilterResultCache.Key key) {
+		if (key == null || !key.equals(filteredAlignmentsKey)) {
+			filteredAlignmentsVersion++;
+			filteredAlignmentsResults.clear();
+		}
+		filteredAlignmentsKey = key;
+	}
+
 	public AlignmentInformation getAlignmentInformation() {
 		return alignmentInformation;
 	}
@@ -333,6 +442,28 @@ public class ExplorerModel {
 		return transitionsLocalId;
 	}
 
+	public NetIndex getNetIndex() {
+		return netIndex;
+	}
+
+	/**
+	 * @param transition
+	 *            index in {@link #getNetIndex()}
+	 * @return the control-flow edges into the transition
+	 */
+	public Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> getInEdges(int transition) {
+		return inEdgesByIndex.get(transition);
+	}
+
+	/**
+	 * @param transition
+	 *            index in {@link #getNetIndex()}
+	 * @return the control-flow edges out of the transition
+	 */
+	public Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> getOutEdges(int transition) {
+		return outEdgesByIndex.get(transition);
+	}
+
 	public Set<Attribute> getChartAttributes() {
 		return chartAttributes;
 	}
@@ -374,38 +505,97 @@ public class ExplorerModel {
 
 	public void filter() throws NetVisualizationException {
 		if (hasAlignment()) {
-			filteredAlignments = doFilterAlignments(getAlignment());
-			alignmentInformation = new AlignmentInformation(model, transitionsLocalId,
-					alignmentConfiguration.getVariableMapping(), filteredAlignments);
+			updateAlignmentContributions(getAlignment());
+			FilterResultCache.Key key = FilterResultCache.Key.of(getFilterConfiguration());
+			List<XAlignment> cachedAlignments = filterResultCache.getAlignments(key, compactAlignedLog);
+			AlignmentInformation cachedInformation = filterResultCache.getInformation(key);
+			// the same filter gives the same alignments, keep the results derived from them
+			invalidateFilteredAlignmentsResults(key);
+			if (cachedAlignments != null && cachedInformation != null) {
+				filteredAlignments = cachedAlignments;
+				alignmentInformation = cachedInformation;
+				informationAlignments = cachedAlignments;
+				informationContributions = alignmentContributions;
+			} else {
+				filteredAlignments = doFilterAlignments(getAlignment());
+				Cancellation.checkpoint();
+				alignmentInformation = updateAlignmentInformation(getAlignment(), filteredAlignments);
+				Cancellation.checkpoint();
+				// only completed results are cached
+				filterResultCache.put(key, compactAlignedLog, filteredAlignments, alignmentInformation);
+			}
 		}
 		if (hasLog()) {
+			Cancellation.checkpoint();
 			filteredLog = doFilterLog();
 		}
 	}
 
+	/**
+	 * Computes the {@link AlignmentInformation} for the filtered alignments by
+	 * summing up their pre-computed contributions. In case only the filter
+	 * changed, only the contributions of the alignments that were added or
+	 * removed by the new filter are applied to the previous result.
+	 */
+	private AlignmentInformation updateAlignmentInformation(XAlignedLog alignedLog, List<XAlignment> alignments) {
+		updateAlignmentContributions(alignedLog);
+		AlignmentInformation result = null;
+		if (alignmentInformation != null && informationContributions == alignmentContributions) {
+			BitSet previousIds = new BitSet(alignmentContributions.size());
+			for (XAlignment a : informationAlignments) {
+				previousIds.set(alignmentContributions.getTraceId(a));
+			}
+			BitSet currentIds = new BitSet(alignmentContributions.size());
+			List<XAlignment> added = new ArrayList<>();
+			for (XAlignment a : alignments) {
+				int traceId = alignmentContributions.getTraceId(a);
+				currentIds.set(traceId);
+				if (!previousIds.get(traceId)) {
+					added.add(a);
+				}
+			}
+			List<XAlignment> removed = new ArrayList<>();
+			for (XAlignment a : informationAlignments) {
+				if (!currentIds.get(alignmentContributions.getTraceId(a))) {
+					removed.add(a);
+				}
+			}
+			int deltaSize = added.size() + removed.size();
+			if (deltaSize == 0) {
+				result = alignmentInformation;
+			} else if ((long) deltaSize * getPool().getParallelism() < alignments.size()) {
+				// Cheaper to apply the difference than to sum up everything in parallel
+				result = alignmentContributions.update(alignmentInformation, added, removed);
+			}
+		}
+		if (result == null) {
+			result = alignmentContributions.sum(alignments, getPool());
+		}
+		informationAlignments = alignments;
+		informationContributions = alignmentContributions;
+		return result;
+	}
+
+	private void updateAlignmentContributions(XAlignedLog alignedLog) {
+		if (alignmentContributions == null
+				|| !alignmentContributions.isValidFor(alignedLog, model.getInitialMarking())) {
+			// Initial marking changed since setAlignment
+			alignmentContributions = new AlignmentContributions(model, variantIndex, getPool());
+			filterResultCache.clear();
+		}
+	}
+
 	private Iterable<XTrace> doFilterLog() throws NetVisualizationException {
-		String filterQuery = getFilterConfiguration().getFilterQuery();
-		if (!filterQuery.trim().isEmpty()) {
+		String filterQuery = FilterResultCache.normalizeQuery(getFilterConfiguration().getFilterQuery());
+		if (!filterQuery.isEmpty()) {
+			logAttributeIndex = getAttributeIndex(logAttributeIndex, getLog());
+			List<XTrace> indexedTraces = logAttributeIndex.filter(filterQuery);
+			if (indexedTraces != null) {
+				return indexedTraces;
+			}
 			try {
-				return XIndex.filterTracesOnAttributesOrNames(getLog(), filterQuery, new AttributeTypeResolver() {
-
-					public Class<? extends XAttribute> getAttributeType(final String attributeName) {
-						// simply return the first class found
-						for (XTrace t : getLog()) {
-							XAttribute attribute = t.getAttributes().get(attributeName);
-							if (attribute != null) {
-								return XAttributeUtils.getType(attribute);
-							}
-							for (XEvent e : t) {
-								attribute = e.getAttributes().get(attributeName);
-								if (attribute != null) {
-									return XAttributeUtils.getType(attribute);
-								}
-							}
-						}
-						return XAttributeLiteral.class;
-					}
-				});
+				return XIndex.filterTracesOnAttributesOrNames(getLog(), filterQuery,
+						logAttributeIndex.getTypeCatalog());
 			} catch (ParseException e) {
 				throw new NetVisualizationException("Invalid filter query - Check your query syntax", e);
 			}
@@ -416,15 +606,21 @@ public class ExplorerModel {
 
 	private List<XAlignment> doFilterAlignments(final XAlignedLog alignedLog) throws NetVisualizationException {
 		final FilterConfiguration filterConfiguration = getFilterConfiguration();
-		final String filterQuery = filterConfiguration.getFilterQuery();
-
-		if (filterQuery != null && !filterQuery.isEmpty()) {
-			if (filterConfiguration.isQueryDirty()) { //TODO somehow solve differently
-				queryFilteredAlignments = doFilterByQuery(alignedLog, filterQuery);
+		// Same query as in the key of the cache
+		final String filterQuery = FilterResultCache.normalizeQuery(filterConfiguration.getFilterQuery());
+
+		if (!filterQuery.isEmpty()) {
+			if (filterConfiguration.isQueryDirty() || !filterQuery.equals(queryFilteredQuery)) { //TODO somehow solve differently
+				List<XAlignment> cachedAlignments = filterResultCache
+						.getAlignments(FilterResultCache.Key.ofQuery(filterQuery), compactAlignedLog);
+				queryFilteredAlignments = cachedAlignments != null ? cachedAlignments
+						: doFilterByQuery(alignedLog, filterQuery);
+				queryFilteredQuery = filterQuery;
 			} // else keep old result
 			assert queryFilteredAlignments != null;
 		} else {
 			queryFilteredAlignments = alignedLog;
+			queryFilteredQuery = null;
 		}
 
 		if (filterConfiguration.getSelectedNodes().isEmpty()
@@ -432,80 +628,61 @@ public class ExplorerModel {
 			return queryFilteredAlignments;
 		} else {
 			Predicate<XAlignment> filterPredicate = createSelectionFilter(filterConfiguration);
-			return new MapReduce<List<XAlignment>>(pool)
-					.execute(new FilterInput(queryFilteredAlignments, filterPredicate));
+			return new MapReduce<List<XAlignment>>(getPool())
+					.execute(new FilterInput(queryFilteredAlignments, filterPredicate, 0, queryFilteredAlignments.size()));
 		}
 
 	}
 
 	private Predicate<XAlignment> createSelectionFilter(final FilterConfiguration filterConfiguration) {
-		Predicate<XAlignment> filterPredicate;
-		switch (filterConfiguration.getSelectionFilterMode()) {
+		final SelectionFilterMode mode = filterConfiguration.getSelectionFilterMode();
+		if (mode == SelectionFilterMode.NONE) {
+			return Predicates.alwaysTrue();
+		}
+
+		final VariantIndex variants = nodeTraceIndex.getVariants();
+		final CompactAlignedLog log = variants.getLog();
+		Set<Object> selectedNodes = filterConfiguration.getSelectedNodes();
+		final BitSet selectedVariants;
+		switch (mode) {
 			case AND :
-				filterPredicate = new Predicate<XAlignment>() {
-
-					public boolean apply(XAlignment alignment) {
-						if (isTraceInANDSelection(filterConfiguration, alignment, transitionsLocalId, inEdgeMap)) {
-							return true;
-						}
-						return false;
-					}
-				};
+				selectedVariants = nodeTraceIndex.getVariantsVisitingAll(selectedNodes);
 				break;
 			case NEVER :
-				filterPredicate = new Predicate<XAlignment>() {
-
-					public boolean apply(XAlignment alignment) {
-						if (!isInORSelection(filterConfiguration, alignment, transitionsLocalId, inEdgeMap)) {
-							return true;
-						}
-						return false;
-					}
-				};
+				selectedVariants = nodeTraceIndex.getVariantsVisitingNone(selectedNodes);
 				break;
 			case OR :
-				filterPredicate = new Predicate<XAlignment>() {
-
-					public boolean apply(XAlignment alignment) {
-						if (isInORSelection(filterConfiguration, alignment, transitionsLocalId, inEdgeMap)) {
-							return true;
-						}
-						return false;
-					}
-				};
-				break;
-			case NONE :
 			default :
-				filterPredicate = Predicates.alwaysTrue();
+				selectedVariants = nodeTraceIndex.getVariantsVisitingAny(selectedNodes);
+				break;
 		}
-		return filterPredicate;
+
+		return new Predicate<XAlignment>() {
+
+			public boolean apply(XAlignment alignment) {
+				return selectedVariants.get(variants.getVariant(log.requireTraceId(alignment)));
+			}
+		};
+	}
+
+	private static AttributeIndex getAttributeIndex(AttributeIndex current, XLog log) {
+		if (current == null || !current.isBuiltFor(log)) {
+			return new AttributeIndex(log);
+		}
+		return current;
 	}
 
 	private List<XAlignment> doFilterByQuery(final XAlignedLog alignedLog, final String filterQuery)
 			throws FilterException {
 		try {
 
-			//TODO use index if available and place outside of this class
-			Iterable<XTrace> queryFilteredTraces = XIndex.filterTracesOnAttributesOrNames(alignedLog.getLog(),
-					filterQuery, new AttributeTypeResolver() {
-
-						public Class<? extends XAttribute> getAttributeType(final String attributeName) {
-							// simply return the first class found
-							for (XTrace t : alignedLog.getLog()) {
-								XAttribute attribute = t.getAttributes().get(attributeName);
-								if (attribute != null) {
-									return XAttributeUtils.getType(attribute);
-								}
-								for (XEvent e : t) {
-									attribute = e.getAttributes().get(attributeName);
-									if (attribute != null) {
-										return XAttributeUtils.getType(attribute);
-									}
-								}
-							}
-							return XAttributeLiteral.class;
-						}
-					});
+			alignmentAttributeIndex = getAttributeIndex(alignmentAttributeIndex, alignedLog.getLog());
+			Iterable<XTrace> queryFilteredTraces = alignmentAttributeIndex.filter(filterQuery);
+			if (queryFilteredTraces == null) {
+				// Query is not supported by the index
+				queryFilteredTraces = XIndex.filterTracesOnAttributesOrNames(alignedLog.getLog(), filterQuery,
+						alignmentAttributeIndex.getTypeCatalog());
+			}
 			return ImmutableList.copyOf(Iterables.transform(queryFilteredTraces, new Function<XTrace, XAlignment>() {
 
 				public XAlignment apply(XTrace t) {
@@ -518,32 +695,25 @@ public class ExplorerModel {
 		}
 	}
 
-	private static final class FilterInput implements Input<List<XAlignment>> {
+	private static final class FilterInput extends RangeInput<List<XAlignment>> {
 
 		private final List<XAlignment> alignments;
 		private final Predicate<XAlignment> predicate;
 
-		private FilterInput(List<XAlignment> alignments, Predicate<XAlignment> predicate) {
+		private FilterInput(List<XAlignment> alignments, Predicate<XAlignment> predicate, int from, int to) {
+			super(from, to);
 			this.alignments = alignments;
 			this.predicate = predicate;
 		}
 
-		public boolean shouldBeComputedDirectly() {
-			return alignments.size() < 10000;
-		}
-
-		public Output<List<XAlignment>> computeDirectly() {
+		protected Output<List<XAlignment>> computeRange(int from, int to) {
 			Builder<XAlignment> resultBuilder = ImmutableList.<XAlignment>builder();
-			resultBuilder.addAll(Iterables.filter(alignments, predicate));
+			resultBuilder.addAll(Iterables.filter(alignments.subList(from, to), predicate));
 			return new FilterOutput(resultBuilder);
 		}
 
-		public List<MapReduceTask<List<XAlignment>>> split() {
-			List<XAlignment> sub1 = alignments.subList(0, alignments.size() / 2);
-			List<XAlignment> sub2 = alignments.subList(alignments.size() / 2, alignments.size());
-			return ImmutableList.of(new MapReduceTask<List<XAlignment>>(new FilterInput(sub1, predicate)),
-					new MapReduceTask<List<XAlignment>>(new FilterInput(sub2, predicate)));
-
+		protected RangeInput<List<XAlignment>> createRange(int from, int to) {
+			return new FilterInput(alignments, predicate, from, to);
 		}
 	}
 
@@ -565,67 +735,6 @@ public class ExplorerModel {
 		}
 	}
 
-	private static boolean isInORSelection(FilterConfiguration filterConfiguration, XAlignment alignment,
-			Map<String, Transition> transitionsLocalId,
-			Map<String, Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>>> inEdgeMap) {
-
-		Set<Object> selectedNodes = filterConfiguration.getSelectedNodes();
-
-		for (XAlignmentMove move : alignment) {
-			MoveType moveType = move.getType();
-
-			if (moveType == MoveType.SYNCHRONOUS || moveType == MoveType.MODEL) {
-				String activityId = move.getActivityId();
-				Transition activityObject = transitionsLocalId.get(activityId);
-
-				if (selectedNodes.contains(activityObject)) {
-					return true;
-				}
-
-				// Check if the transition is in the post-set of a selected place
-				Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> inEdges = inEdgeMap
-						.get(activityId);
-				for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : inEdges) {
-					PetrinetNode source = edge.getSource();
-					if (source instanceof Place) {
-						if (selectedNodes.contains(source)) {
-							return true;
-						}
-					}
-				}
-			}
-		}
-
-		return false;
-	}
-
-	private static boolean isTraceInANDSelection(FilterConfiguration filterConfiguration, XAlignment alignment,
-			Map<String, Transition> transitionsLocalId,
-			Map<String, Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>>> inEdgeMap) {
-
-		Set<Object> nodesToBeFound = new HashSet<>(filterConfiguration.getSelectedNodes());
-		for (XAlignmentMove move : alignment) {
-			MoveType moveType = move.getType();
-
-			if (moveType == MoveType.SYNCHRONOUS || moveType == MoveType.MODEL) {
-				String activityId = move.getActivityId();
-				Transition activityObject = transitionsLocalId.get(activityId);
-
-				// Check if the transition is in the postset of a selected place
-				Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> inEdges = inEdgeMap
-						.get(activityId);
-				for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : inEdges) {
-					PetrinetNode source = edge.getSource();
-					if (source instanceof Place) {
-						nodesToBeFound.remove(source);
-					}
-				}
-				nodesToBeFound.remove(activityObject);
-			}
-		}
-		return nodesToBeFound.isEmpty();
-	}
-
 	public void filterData() throws NetVisualizationException {
 		filter();
 	}
@@ -728,6 +837,14 @@ public class ExplorerModel {
 		discoveryDirty = true;
 	}
 
+	/**
+	 * @return the rules discovered for the current alignment, which are reused
+	 *         by discovery runs with the same traces and configuration
+	 */
+	public DiscoveryRuleCache getDiscoveryRuleCache() {
+		return discoveryRuleCache;
+	}
+
 	public boolean isDiscoveryResultDirty() {
 		return discoveryDirty;
 	}
@@ -758,11 +875,6 @@ public class ExplorerModel {
 		return literalValues;
 	}
 
-	protected void finalize() throws Throwable {
-		pool.shutdown();
-		super.finalize();
-	}
-
 	public void setDiscoveredWriteOperations(SetMultimap<Transition, String> discoverWriteOperations) {
 		this.discoveredWriteOperations = discoverWriteOperations;
 	}
@@ -773,7 +885,38 @@ public class ExplorerModel {
 
 	protected float maxLineWidth = 5.0f;
 	protected float minLineWidth = 1.0f;
-	
+
+	// Waiting times per edge are kept exactly up to this number, then in a sketch
+	private int exactWaitingTimeLimit = 10000;
+	private double waitingTimeAccuracy = 0.01;
+
+	public int getExactWaitingTimeLimit() {
+		return exactWaitingTimeLimit;
+	}
+
+	/**
+	 * @param exactWaitingTimeLimit
+	 *            number of waiting times per edge up to which quantiles are
+	 *            computed exactly, use {@link Integer#MAX_VALUE} to never
+	 *            approximate
+	 */
+	public void setExactWaitingTimeLimit(int exactWaitingTimeLimit) {
+		this.exactWaitingTimeLimit = exactWaitingTimeLimit;
+	}
+
+	public double getWaitingTimeAccuracy() {
+		return waitingTimeAccuracy;
+	}
+
+	/**
+	 * @param waitingTimeAccuracy
+	 *            relative error of the waiting time quantiles of edges with
+	 *            more waiting times than the exact limit
+	 */
+	public void setWaitingTimeAccuracy(double waitingTimeAccuracy) {
+		this.waitingTimeAccuracy = waitingTimeAccuracy;
+	}
+
 	public float getMinLineWidth() {
 		return minLineWidth;
 	}
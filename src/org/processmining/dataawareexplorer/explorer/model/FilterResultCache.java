@@ -0,0 +1,240 @@
+package org.processmining.dataawareexplorer.explorer.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.processmining.dataawareexplorer.explorer.model.FilterConfiguration.SelectionFilterMode;
+import org.processmining.dataawareexplorer.explorer.work.AlignmentInformation;
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Least recently used cache of the filtered alignments and their
+ * {@link AlignmentInformation} for recently used filters of one aligned log.
+ * The filtered alignments are stored as a set of trace ids of the
+ * {@link CompactAlignedLog}. The cache is bounded both in the number of
+ * entries and in the estimated memory used by them.
+ */
+final class FilterResultCache {
+
+	/**
+	 * Filter identified by the normalized query, the selection mode and the
+	 * selected nodes.
+	 */
+	static final class Key {
+
+		private final String query;
+		private final SelectionFilterMode mode;
+		private final Set<Object> selectedNodes;
+
+		private Key(String query, SelectionFilterMode mode, Set<Object> selectedNodes) {
+			this.query = query;
+			this.mode = mode;
+			this.selectedNodes = selectedNodes;
+		}
+
+		/**
+		 * @param filterConfiguration
+		 * @return key of the full filter
+		 */
+		static Key of(FilterConfiguration filterConfiguration) {
+			if (filterConfiguration.getSelectedNodes().isEmpty()
+					|| filterConfiguration.getSelectionFilterMode() == SelectionFilterMode.NONE) {
+				return ofQuery(filterConfiguration.getFilterQuery());
+			}
+			return new Key(normalizeQuery(filterConfiguration.getFilterQuery()),
+					filterConfiguration.getSelectionFilterMode(),
+					ImmutableSet.copyOf(filterConfiguration.getSelectedNodes()));
+		}
+
+		/**
+		 * @param filterQuery
+		 * @return key of the filter that only applies the query
+		 */
+		static Key ofQuery(String filterQuery) {
+			return new Key(normalizeQuery(filterQuery), SelectionFilterMode.NONE, ImmutableSet.of());
+		}
+
+		public int hashCode() {
+			return Objects.hashCode(query, mode, selectedNodes);
+		}
+
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return query.equals(other.query) && mode == other.mode && selectedNodes.equals(other.selectedNodes);
+		}
+
+	}
+
+	private static final class Entry {
+
+		/**
+		 * Each counter is a long in the store and is copied into a long field
+		 * of the transition, place or variable statistics of
+		 * {@link AlignmentInformation}. The object headers and the map entries
+		 * of these statistics add about another long per counter.
+		 */
+		private static final long BYTES_PER_SLOT = 8l * 3;
+
+		private final BitSet traceIds;
+		private final AlignmentInformation information;
+		private final long estimatedSize;
+
+		private Entry(BitSet traceIds, AlignmentInformation information) {
+			this.traceIds = traceIds;
+			this.information = information;
+			// Bits of the trace ids plus the counters
+			this.estimatedSize = traceIds.size() / 8 + information.getStore().getNumSlots() * BYTES_PER_SLOT;
+		}
+
+	}
+
+	private static final int MAX_ENTRIES = 32;
+
+	private final long maxSize;
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+
+	/**
+	 * @param maxSize
+	 *            estimated number of bytes that may be used by the cached
+	 *            results
+	 */
+	FilterResultCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return a cache that uses at most 1/32 of the maximum heap
+	 */
+	static FilterResultCache createDefault() {
+		return new FilterResultCache(Runtime.getRuntime().maxMemory() / 32);
+	}
+
+	/**
+	 * Collapses whitespace outside of quoted strings and removes leading and
+	 * trailing whitespace, so trivially different spellings of the same query
+	 * share an entry. Strings are quoted by either '"' or '\'' and a backslash
+	 * escapes the next character within a quoted string. The normalized query
+	 * is equivalent to the original one and is the query that is evaluated, so
+	 * that a query consisting only of whitespace is the same as no query.
+	 *
+	 * @param filterQuery
+	 * @return the normalized query, empty if there is no query
+	 */
+	static String normalizeQuery(String filterQuery) {
+		if (filterQuery == null) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder(filterQuery.length());
+		char quote = 0;
+		boolean pendingSpace = false;
+		for (int i = 0; i < filterQuery.length(); i++) {
+			char c = filterQuery.charAt(i);
+			if (quote == 0 && Character.isWhitespace(c)) {
+				pendingSpace = sb.length() > 0;
+				continue;
+			}
+			if (pendingSpace) {
+				sb.append(' ');
+				pendingSpace = false;
+			}
+			sb.append(c);
+			if (quote != 0) {
+				if (c == '\\' && i + 1 < filterQuery.length()) {
+					// Escaped character, e.g., a quote, is copied as is
+					sb.append(filterQuery.charAt(++i));
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param key
+	 * @param log
+	 *            the log the result was computed for
+	 * @return the cached filtered alignments in the order of the log or
+	 *         <code>null</code>
+	 */
+	synchronized List<XAlignment> getAlignments(Key key, CompactAlignedLog log) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		List<XAlignment> alignments = new ArrayList<>(entry.traceIds.cardinality());
+		for (int i = entry.traceIds.nextSetBit(0); i >= 0; i = entry.traceIds.nextSetBit(i + 1)) {
+			alignments.add(log.getAlignments().get(i));
+		}
+		return alignments;
+	}
+
+	/**
+	 * @param key
+	 * @return the cached statistics or <code>null</code>
+	 */
+	synchronized AlignmentInformation getInformation(Key key) {
+		Entry entry = entries.get(key);
+		return entry != null ? entry.information : null;
+	}
+
+	/**
+	 * Caches the result of a filter.
+	 *
+	 * @param key
+	 * @param log
+	 * @param alignments
+	 *            filtered alignments in the order of the log
+	 * @param information
+	 *            statistics of the filtered alignments
+	 */
+	synchronized void put(Key key, CompactAlignedLog log, Iterable<XAlignment> alignments,
+			AlignmentInformation information) {
+		BitSet traceIds = new BitSet(log.size());
+		for (XAlignment alignment : alignments) {
+			traceIds.set(log.requireTraceId(alignment));
+		}
+		Entry entry = new Entry(traceIds, information);
+		if (entry.estimatedSize > maxSize) {
+			return;
+		}
+		Entry previous = entries.put(key, entry);
+		if (previous != null) {
+			size -= previous.estimatedSize;
+		}
+		size += entry.estimatedSize;
+		// Evict least recently used entries
+		Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+		while ((size > maxSize || entries.size() > MAX_ENTRIES) && iterator.hasNext()) {
+			Map.Entry<Key, Entry> eldest = iterator.next();
+			if (eldest.getValue() != entry) {
+				size -= eldest.getValue().estimatedSize;
+				iterator.remove();
+			}
+		}
+	}
+
+	synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+}
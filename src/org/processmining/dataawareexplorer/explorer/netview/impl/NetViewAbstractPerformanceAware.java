@@ -6,21 +6,30 @@ package org.processmining.dataawareexplorer.explorer.netview.impl;
 import java.awt.Color;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.math3.stat.StatUtils;
-import org.deckfour.xes.extension.std.XTimeExtension;
-import org.deckfour.xes.model.XEvent;
 import org.processmining.dataawareexplorer.explorer.ExplorerContext;
 import org.processmining.dataawareexplorer.explorer.ExplorerUpdater;
 import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
 import org.processmining.dataawareexplorer.explorer.netview.ModelDecorationDataImpl;
+import org.processmining.dataawareexplorer.explorer.work.Cancellation;
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog;
+import org.processmining.dataawareexplorer.explorer.work.NetIndex;
+import org.processmining.dataawareexplorer.explorer.work.VariantIndex;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
+import org.processmining.dataawareexplorer.parallel.MapReduce;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.dataawareexplorer.utils.LongArrayList;
+import org.processmining.dataawareexplorer.utils.QuantileSketch;
 import org.processmining.datapetrinets.DataPetriNet;
 import org.processmining.datapetrinets.visualization.graphviz.DPNGraphvizConverter.DecorationKey;
 import org.processmining.models.graphbased.directed.petrinet.PetrinetEdge;
@@ -31,20 +40,11 @@ import org.processmining.models.graphbased.directed.petrinet.elements.Transition
 import org.processmining.models.semantics.petrinet.Marking;
 import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
 import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
-import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignmentMove;
-import org.processmining.xesalignmentextension.XDataAlignmentExtension;
 import org.processmining.xesalignmentextension.XDataAlignmentExtension.DataMoveType;
-import org.processmining.xesalignmentextension.XDataAlignmentExtension.XDataAlignmentMove;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.Multiset;
-import com.google.common.collect.Multiset.Entry;
-import com.google.common.collect.Multisets;
-import com.google.common.primitives.Doubles;
 
 abstract class NetViewAbstractPerformanceAware extends NetViewAbstractAlignmentAware {
 
@@ -120,22 +120,458 @@ abstract class NetViewAbstractPerformanceAware extends NetViewAbstractAlignmentA
 
 	}
 
+	/**
+	 * Dense numbering of the control-flow edges of the net, so that statistics
+	 * per edge can be kept in arrays.
+	 */
+	private static final class EdgeIndex {
+
+		private final NetIndex netIndex;
+		private final List<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> edges = new ArrayList<>();
+		private final Map<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>, Integer> ids = new HashMap<>();
+
+		// Edge ids by transition index
+		private final int[][] inEdges;
+		private final int[][] outEdges;
+
+		// Index of the place connected to the edge by edge id
+		private final IntArrayList edgePlace = new IntArrayList();
+
+		private EdgeIndex(ExplorerModel explorerModel) {
+			this.netIndex = explorerModel.getNetIndex();
+			this.inEdges = new int[netIndex.getNumTransitions()][];
+			this.outEdges = new int[netIndex.getNumTransitions()][];
+			for (int transition = 0; transition < netIndex.getNumTransitions(); transition++) {
+				inEdges[transition] = addEdges(explorerModel.getInEdges(transition), true);
+				outEdges[transition] = addEdges(explorerModel.getOutEdges(transition), false);
+			}
+		}
+
+		private int[] addEdges(Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> transitionEdges,
+				boolean isInEdge) {
+			int[] result = new int[transitionEdges.size()];
+			int i = 0;
+			for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : transitionEdges) {
+				Integer id = ids.get(edge);
+				if (id == null) {
+					id = edges.size();
+					ids.put(edge, id);
+					edges.add(edge);
+					edgePlace.add(netIndex.indexOf((Place) (isInEdge ? edge.getSource() : edge.getTarget())));
+				}
+				result[i++] = id;
+			}
+			return result;
+		}
+
+		private int size() {
+			return edges.size();
+		}
+
+		private int indexOf(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+			Integer id = ids.get(edge);
+			return id != null ? id : -1;
+		}
+
+	}
+
+	/**
+	 * Waiting times observed on an edge. The times are kept exactly up to a
+	 * limit, beyond which they are moved into a {@link QuantileSketch} with
+	 * bounded memory and bounded relative error of the quantiles. Minimum,
+	 * maximum and average stay exact in both cases.
+	 */
+	protected static final class WaitingTimes {
+
+		private final int exactLimit;
+		private final double accuracy;
+
+		private static final int MIN = 0;
+		private static final int MAX = 1;
+		private static final int MEAN = 2;
+		private static final int FIRST_QUARTILE = 3;
+		private static final int MEDIAN = 4;
+		private static final int THIRD_QUARTILE = 5;
+
+		private LongArrayList values = new LongArrayList();
+		private QuantileSketch sketch;
+
+		// All time measures, computed once when first needed
+		private double[] summary;
+
+		private WaitingTimes(int exactLimit, double accuracy) {
+			this.exactLimit = exactLimit;
+			this.accuracy = accuracy;
+		}
+
+		private void add(long time) {
+			summary = null;
+			if (sketch != null) {
+				sketch.add(time);
+			} else {
+				values.add(time);
+				if (values.size() > exactLimit) {
+					switchToSketch();
+				}
+			}
+		}
+
+		private void addAll(WaitingTimes other) {
+			summary = null;
+			if (other.sketch != null) {
+				if (sketch == null) {
+					switchToSketch();
+				}
+				sketch.addAll(other.sketch);
+			} else {
+				for (int i = 0; i < other.values.size(); i++) {
+					add(other.values.get(i));
+				}
+			}
+		}
+
+		private void switchToSketch() {
+			sketch = new QuantileSketch(accuracy);
+			for (int i = 0; i < values.size(); i++) {
+				sketch.add(values.get(i));
+			}
+			values = null;
+		}
+
+		public boolean isEmpty() {
+			return sketch != null ? sketch.isEmpty() : values.isEmpty();
+		}
+
+		/**
+		 * @return whether measures are computed from all waiting times
+		 */
+		public boolean isExact() {
+			return sketch == null;
+		}
+
+		private double computeValue(PerformanceMode mode) {
+			if (summary == null) {
+				summary = summarize();
+			}
+			switch (mode) {
+				case TIME_3RD_QUARTILE :
+					return summary[THIRD_QUARTILE];
+				case TIME_1ST_QUARTILE :
+					return summary[FIRST_QUARTILE];
+				case TIME_MEDIAN :
+					return summary[MEDIAN];
+				case TIME_MAX :
+					return summary[MAX];
+				case TIME_MIN :
+					return summary[MIN];
+				case TIME_AVERAGE :
+				default :
+					return summary[MEAN];
+			}
+		}
+
+		private double[] summarize() {
+			double[] result = new double[6];
+			if (sketch != null) {
+				result[MIN] = sketch.getMin();
+				result[MAX] = sketch.getMax();
+				result[MEAN] = sketch.getMean();
+				result[FIRST_QUARTILE] = sketch.getQuantile(0.25d);
+				result[MEDIAN] = sketch.getQuantile(0.5d);
+				result[THIRD_QUARTILE] = sketch.getQuantile(0.75d);
+			} else {
+				// Sorted once for all measures
+				double[] sortedTimes = new double[values.size()];
+				for (int i = 0; i < sortedTimes.length; i++) {
+					sortedTimes[i] = values.get(i);
+				}
+				Arrays.sort(sortedTimes);
+				result[MIN] = sortedTimes[0];
+				result[MAX] = sortedTimes[sortedTimes.length - 1];
+				result[MEAN] = StatUtils.mean(sortedTimes);
+				result[FIRST_QUARTILE] = percentile(sortedTimes, 25d);
+				result[MEDIAN] = percentile(sortedTimes, 50d);
+				result[THIRD_QUARTILE] = percentile(sortedTimes, 75d);
+			}
+			return result;
+		}
+
+		/**
+		 * Same estimate as {@link StatUtils#percentile(double[], double)}, but
+		 * on already sorted values.
+		 */
+		static double percentile(double[] sortedValues, double p) {
+			int n = sortedValues.length;
+			double pos = p * (n + 1) / 100;
+			if (pos < 1) {
+				return sortedValues[0];
+			} else if (pos >= n) {
+				return sortedValues[n - 1];
+			}
+			int intPos = (int) Math.floor(pos);
+			double lower = sortedValues[intPos - 1];
+			double upper = sortedValues[intPos];
+			return lower + (pos - intPos) * (upper - lower);
+		}
+
+	}
+
+	/**
+	 * Frequencies and waiting times on the edges, places and transitions of
+	 * the net. Every worker fills its own instance, which are merged once all
+	 * workers are done.
+	 */
 	protected final static class PerformanceStatistics {
 
-		final Multiset<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> edgeMoves = ConcurrentHashMultiset
-				.create();
-		final Multiset<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> edgeCorrectMovesMultiset = ConcurrentHashMultiset
-				.create();
-		final Multiset<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> edgeInCorrectMovesMultiset = ConcurrentHashMultiset
-				.create();
-		final Multiset<Place> placeMoves = ConcurrentHashMultiset.create();
-		final Multiset<Transition> transitionMoves = ConcurrentHashMultiset.create();
-
-		//todo replace by map together with multiset
-		final ListMultimap<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>, Long> waitingTime = Multimaps
-				.synchronizedListMultimap(
-						ArrayListMultimap.<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>, Long>create());
-		AtomicInteger numTraces = new AtomicInteger();
+		private final EdgeIndex edgeIndex;
+
+		// Counters by edge id
+		private final long[] edgeMoves;
+		private final long[] edgeCorrectMoves;
+		private final long[] edgeIncorrectMoves;
+		private final WaitingTimes[] waitingTimes;
+		private final int exactWaitingTimeLimit;
+		private final double waitingTimeAccuracy;
+
+		// Counters by index in the NetIndex
+		private final long[] placeMoves;
+		private final long[] transitionMoves;
+
+		private long numTraces;
+
+		// Summary table of the edge measures by edge id, filled once per mode when first needed, statistics
+		// are shared by views so access is synchronized
+		private final Map<PerformanceMode, Double[]> edgeMeasures = new EnumMap<>(PerformanceMode.class);
+		private final Map<PerformanceMode, Double> maxEdgeMeasures = new EnumMap<>(PerformanceMode.class);
+
+		private PerformanceStatistics(EdgeIndex edgeIndex, int exactWaitingTimeLimit, double waitingTimeAccuracy) {
+			this.edgeIndex = edgeIndex;
+			this.exactWaitingTimeLimit = exactWaitingTimeLimit;
+			this.waitingTimeAccuracy = waitingTimeAccuracy;
+			this.edgeMoves = new long[edgeIndex.size()];
+			this.edgeCorrectMoves = new long[edgeIndex.size()];
+			this.edgeIncorrectMoves = new long[edgeIndex.size()];
+			this.waitingTimes = new WaitingTimes[edgeIndex.size()];
+			this.placeMoves = new long[edgeIndex.netIndex.getNumPlaces()];
+			this.transitionMoves = new long[edgeIndex.netIndex.getNumTransitions()];
+		}
+
+		private WaitingTimes createWaitingTimes() {
+			return new WaitingTimes(exactWaitingTimeLimit, waitingTimeAccuracy);
+		}
+
+		private void addWaitingTime(int edge, long time) {
+			if (waitingTimes[edge] == null) {
+				waitingTimes[edge] = createWaitingTimes();
+			}
+			waitingTimes[edge].add(time);
+		}
+
+		private void add(PerformanceStatistics other) {
+			addAll(edgeMoves, other.edgeMoves);
+			addAll(edgeCorrectMoves, other.edgeCorrectMoves);
+			addAll(edgeIncorrectMoves, other.edgeIncorrectMoves);
+			addAll(placeMoves, other.placeMoves);
+			addAll(transitionMoves, other.transitionMoves);
+			for (int i = 0; i < waitingTimes.length; i++) {
+				if (other.waitingTimes[i] != null) {
+					if (waitingTimes[i] == null) {
+						waitingTimes[i] = createWaitingTimes();
+					}
+					waitingTimes[i].addAll(other.waitingTimes[i]);
+				}
+			}
+			numTraces += other.numTraces;
+		}
+
+		private static void addAll(long[] counters, long[] otherCounters) {
+			for (int i = 0; i < counters.length; i++) {
+				counters[i] += otherCounters[i];
+			}
+		}
+
+		public long getNumTraces() {
+			return numTraces;
+		}
+
+		public long getEdgeMoves(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+			int id = edgeIndex.indexOf(edge);
+			return id != -1 ? edgeMoves[id] : 0;
+		}
+
+		public long getEdgeCorrectMoves(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+			int id = edgeIndex.indexOf(edge);
+			return id != -1 ? edgeCorrectMoves[id] : 0;
+		}
+
+		public long getEdgeIncorrectMoves(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+			int id = edgeIndex.indexOf(edge);
+			return id != -1 ? edgeIncorrectMoves[id] : 0;
+		}
+
+		/**
+		 * @param edge
+		 * @return the observed waiting times on the edge, empty if there are
+		 *         none
+		 */
+		public WaitingTimes getWaitingTimes(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+			int id = edgeIndex.indexOf(edge);
+			return id != -1 && waitingTimes[id] != null ? waitingTimes[id] : createWaitingTimes();
+		}
+
+		public long getPlaceMoves(PetrinetNode place) {
+			int index = place instanceof Place ? edgeIndex.netIndex.indexOf((Place) place) : -1;
+			return index != -1 ? placeMoves[index] : 0;
+		}
+
+		public long getTransitionMoves(PetrinetNode transition) {
+			int index = transition instanceof Transition ? edgeIndex.netIndex.indexOf((Transition) transition) : -1;
+			return index != -1 ? transitionMoves[index] : 0;
+		}
+
+		/**
+		 * @return the edges with at least one move
+		 */
+		public List<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> getObservedEdges() {
+			List<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> observedEdges = new ArrayList<>();
+			for (int i = 0; i < edgeMoves.length; i++) {
+				if (edgeMoves[i] > 0) {
+					observedEdges.add(edgeIndex.edges.get(i));
+				}
+			}
+			return observedEdges;
+		}
+
+		/**
+		 * @return the transitions with at least one move
+		 */
+		public List<Transition> getObservedTransitions() {
+			List<Transition> observedTransitions = new ArrayList<>();
+			for (int i = 0; i < transitionMoves.length; i++) {
+				if (transitionMoves[i] > 0) {
+					observedTransitions.add(edgeIndex.netIndex.getTransition(i));
+				}
+			}
+			return observedTransitions;
+		}
+
+		/**
+		 * @param edge
+		 * @param mode
+		 * @return the measure of the edge or <code>null</code> if it cannot be
+		 *         computed, e.g., there are no waiting times
+		 */
+		public Double getEdgeMeasure(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge,
+				PerformanceMode mode) {
+			int id = edgeIndex.indexOf(edge);
+			if (id == -1) {
+				return computeEdgeMeasure(edge, mode);
+			}
+			return getEdgeMeasures(mode)[id];
+		}
+
+		/**
+		 * @param mode
+		 * @return the maximum of the measure over all edges, used to scale the
+		 *         edges
+		 */
+		public synchronized Double getMaxEdgeMeasure(PerformanceMode mode) {
+			if (!maxEdgeMeasures.containsKey(mode)) {
+				maxEdgeMeasures.put(mode, computeMaxEdgeMeasure(mode));
+			}
+			return maxEdgeMeasures.get(mode);
+		}
+
+		private synchronized Double[] getEdgeMeasures(PerformanceMode mode) {
+			Double[] measures = edgeMeasures.get(mode);
+			if (measures == null) {
+				measures = new Double[edgeIndex.size()];
+				for (int i = 0; i < measures.length; i++) {
+					measures[i] = computeEdgeMeasure(edgeIndex.edges.get(i), mode);
+				}
+				edgeMeasures.put(mode, measures);
+			}
+			return measures;
+		}
+
+		private Double computeEdgeMeasure(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge,
+				PerformanceMode mode) {
+			switch (mode) {
+				case FREQUENCY :
+					return Double.valueOf((getEdgeCorrectMoves(edge) + getEdgeIncorrectMoves(edge)));
+
+				case TRACE_PERCENTAGE :
+					return Double.valueOf((getEdgeCorrectMoves(edge) + getEdgeIncorrectMoves(edge))
+							/ (double) getNumTraces());
+
+				case LOCAL_PERCENTAGE :
+					long totalMovesSourcePlace = getPlaceMoves(edge.getSource());
+					return Double.valueOf((getEdgeCorrectMoves(edge) + getEdgeIncorrectMoves(edge))
+							/ (double) totalMovesSourcePlace);
+
+				case TIME_1ST_QUARTILE :
+				case TIME_3RD_QUARTILE :
+				case TIME_AVERAGE :
+				case TIME_MAX :
+				case TIME_MEDIAN :
+				case TIME_MIN :
+					WaitingTimes times = getWaitingTimes(edge);
+					if (!times.isEmpty()) {
+						return times.computeValue(mode);
+					} else {
+						return null;
+					}
+				case NONE :
+					return null;
+				default :
+					throw new RuntimeException("Failed to compute measure " + mode);
+			}
+		}
+
+		private Double computeMaxEdgeMeasure(PerformanceMode mode) {
+			switch (mode) {
+				case FREQUENCY :
+					return Double.valueOf(getMaxEdgeMoves());
+				case TRACE_PERCENTAGE :
+					//TODO might be more than 100%
+					return 1.0;
+				case LOCAL_PERCENTAGE :
+					return 1.0;
+				case TIME_1ST_QUARTILE :
+				case TIME_3RD_QUARTILE :
+				case TIME_AVERAGE :
+				case TIME_MAX :
+				case TIME_MEDIAN :
+				case TIME_MIN :
+					double maxValue = 0;
+					for (Double value : getEdgeMeasures(mode)) {
+						if (value != null) {
+							maxValue = Math.max(maxValue, value);
+						}
+					}
+					return maxValue;
+				case NONE :
+					return null;
+				default :
+					throw new RuntimeException("Failed to compute measure " + mode);
+			}
+		}
+
+		public long getMaxEdgeMoves() {
+			return max(edgeMoves);
+		}
+
+		public long getMaxTransitionMoves() {
+			return max(transitionMoves);
+		}
+
+		private static long max(long[] counters) {
+			long max = 0;
+			for (long count : counters) {
+				max = Math.max(max, count);
+			}
+			return max;
+		}
 
 	}
 
@@ -165,113 +601,183 @@ abstract class NetViewAbstractPerformanceAware extends NetViewAbstractAlignmentA
 
 	protected PerformanceStatistics calculatePerformanceStats(DataPetriNet netView, Iterable<XAlignment> alignments) {
 
-		final PerformanceStatistics statistics = new PerformanceStatistics();
+		final int exactWaitingTimeLimit = explorerModel.getExactWaitingTimeLimit();
+		final double waitingTimeAccuracy = explorerModel.getWaitingTimeAccuracy();
+
+		// Statistics of the filtered alignments are shared by all views until the filter changes
+		boolean isFilteredAlignments = alignments == explorerModel.getFilteredAlignments();
+		long version = explorerModel.getFilteredAlignmentsVersion();
+		Object cacheKey = ImmutableList.of(PerformanceStatistics.class, exactWaitingTimeLimit, waitingTimeAccuracy);
+		if (isFilteredAlignments) {
+			PerformanceStatistics cachedStatistics = explorerModel.getFilteredAlignmentsResult(cacheKey,
+					PerformanceStatistics.class);
+			if (cachedStatistics != null) {
+				return cachedStatistics;
+			}
+		}
+
+		final EdgeIndex edgeIndex = new EdgeIndex(explorerModel);
+		final VariantIndex variants = explorerModel.getVariantIndex();
+		final CompactAlignedLog log = variants.getLog();
+
+		// Frequencies only depend on the moves, so they are computed once per variant
+		final int[] variantCounts = variants.countVariants(alignments);
+		int parallelism = WorkQueue.CPU.getNumThreads();
+		int variantChunkSize = MapReduce.getChunkSize(variantCounts.length, parallelism);
+		List<Callable<PerformanceStatistics>> callables = new ArrayList<>();
+		for (int i = 0; i < variantCounts.length; i += variantChunkSize) {
+			final int from = i;
+			final int to = Math.min(i + variantChunkSize, variantCounts.length);
+			callables.add(new Callable<PerformanceStatistics>() {
+
+				public PerformanceStatistics call() throws Exception {
+					PerformanceStatistics partialStatistics = new PerformanceStatistics(edgeIndex, exactWaitingTimeLimit, waitingTimeAccuracy);
+					for (int variant = from; variant < to; variant++) {
+						if (variantCounts[variant] > 0) {
+							computeFrequencies(log, variants.getRepresentative(variant), variantCounts[variant],
+									partialStatistics);
+							partialStatistics.numTraces += variantCounts[variant];
+						}
+					}
+					return partialStatistics;
+				}
+			});
+		}
 
-		Iterable<List<XAlignment>> partitionedAlignments = Iterables.partition(alignments, 10000);
-		List<Callable<Void>> callables = new ArrayList<>();
+		// Waiting times depend on the timestamps of each alignment
+		Iterable<List<XAlignment>> partitionedAlignments = Iterables.partition(alignments,
+				MapReduce.getChunkSize(Iterables.size(alignments), parallelism));
 		for (final List<XAlignment> subAlignments : partitionedAlignments) {
-			callables.add(new Callable<Void>() {
+			callables.add(new Callable<PerformanceStatistics>() {
 
-				public Void call() throws Exception {
+				public PerformanceStatistics call() throws Exception {
+					PerformanceStatistics partialStatistics = new PerformanceStatistics(edgeIndex, exactWaitingTimeLimit, waitingTimeAccuracy);
 					for (XAlignment a : subAlignments) {
-						computeForAlignment(a, statistics);
-						statistics.numTraces.incrementAndGet();
+						computeWaitingTimes(log, log.requireTraceId(a), partialStatistics);
 					}
-					return null;
+					return partialStatistics;
 				}
 			});
 		}
+
+		PerformanceStatistics statistics = new PerformanceStatistics(edgeIndex, exactWaitingTimeLimit, waitingTimeAccuracy);
 		try {
-			explorerContext.getExecutor().invokeAll(callables);
+			for (Future<PerformanceStatistics> partialStatistics : explorerContext.getRuntime().getExecutor(WorkQueue.CPU)
+					.invokeAll(callables)) {
+				statistics.add(partialStatistics.get());
+			}
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw Throwables.propagate(e.getCause());
 		}
+		// do not return partial statistics of a superseded update
+		Cancellation.checkpoint();
 
+		if (isFilteredAlignments) {
+			explorerModel.putFilteredAlignmentsResult(cacheKey, statistics, version);
+		}
 		return statistics;
 	}
 
-	private final void computeForAlignment(XAlignment alignment, PerformanceStatistics statistics) {
+	private final void computeFrequencies(CompactAlignedLog log, int traceId, int count,
+			PerformanceStatistics statistics) {
 
-		long currentTime = getFirstTime(alignment);
+		EdgeIndex edgeIndex = statistics.edgeIndex;
 
-		Map<Place, Long> timePlaceMarked = new HashMap<>();
-		// All initial places were marked directly before the first event occurred
-		for (Place p : explorerModel.getAlignmentConfiguration().getInitialMarking()) {
-			timePlaceMarked.put(p, currentTime);
-		}
-
-		for (XAlignmentMove move : alignment) {
+		for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
 
-			XDataAlignmentMove dataMove = XDataAlignmentExtension.instance().extendXAlignmentMove(move);
-			MoveType moveType = dataMove.getType();
+			MoveType moveType = log.getMoveType(move);
 
 			if (moveType != MoveType.LOG) {
 
 				// Model move
-				String transitionId = move.getActivityId();
-
-				Collection<? extends PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> inEdges = explorerModel
-						.getInEdgeMap().get(transitionId);
-				statistics.edgeMoves.addAll(inEdges);
-				Collection<? extends PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> outEdges = explorerModel
-						.getOutEdgeMap().get(transitionId);
-				statistics.edgeMoves.addAll(outEdges);
-
-				if (isSynchronousDataMove(moveType, dataMove.getDataMoveType()) || !move.isObservable()) {
-					statistics.edgeCorrectMovesMultiset.addAll(inEdges);
-					statistics.edgeCorrectMovesMultiset.addAll(outEdges);
+				int transitionIndex = log.getTransition(move);
+
+				int[] inEdges = edgeIndex.inEdges[transitionIndex];
+				int[] outEdges = edgeIndex.outEdges[transitionIndex];
+				addAll(statistics.edgeMoves, inEdges, count);
+				addAll(statistics.edgeMoves, outEdges, count);
+
+				if (isSynchronousDataMove(moveType, log.getDataMoveType(move)) || !log.isObservable(move)) {
+					addAll(statistics.edgeCorrectMoves, inEdges, count);
+					addAll(statistics.edgeCorrectMoves, outEdges, count);
 				} else {
 					// Model move or move with wrong data
-					statistics.edgeInCorrectMovesMultiset.addAll(inEdges);
-					statistics.edgeInCorrectMovesMultiset.addAll(outEdges);
+					addAll(statistics.edgeIncorrectMoves, inEdges, count);
+					addAll(statistics.edgeIncorrectMoves, outEdges, count);
 				}
 
-				Transition transition = explorerModel.getTransitionsLocalId().get(transitionId);
-				statistics.transitionMoves.add(transition);
+				statistics.transitionMoves[transitionIndex] += count;
 
-				for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> inEdge : inEdges) {
-					statistics.placeMoves.add((Place) inEdge.getSource());
+				for (int inEdge : inEdges) {
+					statistics.placeMoves[edgeIndex.edgePlace.get(inEdge)] += count;
 				}
+			}
+		}
+	}
+
+	private static void addAll(long[] counters, int[] edges, int count) {
+		for (int edge : edges) {
+			counters[edge] += count;
+		}
+	}
+
+	private final void computeWaitingTimes(CompactAlignedLog log, int traceId, PerformanceStatistics statistics) {
+
+		EdgeIndex edgeIndex = statistics.edgeIndex;
+		NetIndex netIndex = edgeIndex.netIndex;
+		long currentTime = log.getFirstTimestamp(traceId);
+		if (currentTime == CompactAlignedLog.NO_TIMESTAMP) {
+			currentTime = 0;
+		}
+
+		// Time at which each place was last marked indexed by place
+		long[] timePlaceMarked = new long[netIndex.getNumPlaces()];
+		Arrays.fill(timePlaceMarked, CompactAlignedLog.NO_TIMESTAMP);
+		// All initial places were marked directly before the first event occurred
+		for (Place p : explorerModel.getAlignmentConfiguration().getInitialMarking()) {
+			int place = netIndex.indexOf(p);
+			if (place != -1) {
+				timePlaceMarked[place] = currentTime;
+			}
+		}
+
+		for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+
+			MoveType moveType = log.getMoveType(move);
 
-				if (move.getType() == MoveType.SYNCHRONOUS) {
-					Date time = XTimeExtension.instance().extractTimestamp(move.getEvent());
+			if (moveType != MoveType.LOG) {
+
+				// Model move
+				int transitionIndex = log.getTransition(move);
 
-					if (time != null) {
+				if (moveType == MoveType.SYNCHRONOUS) {
+					long time = log.getTimestamp(move);
 
-						for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> inEdge : inEdges) {
-							Long timeInputPlaceLastMarked = timePlaceMarked.get(inEdge.getSource());
-							if (timeInputPlaceLastMarked != null) {
-								statistics.waitingTime.put(inEdge, time.getTime() - timeInputPlaceLastMarked);
+					if (time != CompactAlignedLog.NO_TIMESTAMP) {
+
+						for (int inEdge : edgeIndex.inEdges[transitionIndex]) {
+							long timeInputPlaceLastMarked = timePlaceMarked[edgeIndex.edgePlace.get(inEdge)];
+							if (timeInputPlaceLastMarked != CompactAlignedLog.NO_TIMESTAMP) {
+								statistics.addWaitingTime(inEdge, time - timeInputPlaceLastMarked);
 							} else {
-								throw new IllegalStateException(
-										"Missing time information for input place " + inEdge.getSource().getLabel());
+								throw new IllegalStateException("Missing time information for input place "
+										+ edgeIndex.edges.get(inEdge).getSource().getLabel());
 							}
 						}
-						currentTime = time.getTime();
+						currentTime = time;
 					}
 				}
 
 				// Ignore other moves, as we don't know the time but remember when the output places were marked
-				for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> outEdge : outEdges) {
-					timePlaceMarked.put((Place) outEdge.getTarget(), currentTime);
+				for (int outEdge : edgeIndex.outEdges[transitionIndex]) {
+					timePlaceMarked[edgeIndex.edgePlace.get(outEdge)] = currentTime;
 				}
 			}
 		}
 	}
 
-	private final long getFirstTime(XAlignment a) {
-		for (XAlignmentMove move : a) {
-			if (move.getType() == MoveType.SYNCHRONOUS) { // Data does not matter here
-				XEvent activityObject = move.getEvent();
-				Date time = XTimeExtension.instance().extractTimestamp(activityObject);
-				if (time != null) {
-					return time.getTime();
-				}
-			}
-		}
-		return 0;
-	}
-
 	private static boolean isSynchronousDataMove(MoveType moveType, DataMoveType dataMoveType) {
 		return moveType == MoveType.SYNCHRONOUS && dataMoveType == DataMoveType.CORRECT;
 	}
@@ -294,34 +800,33 @@ abstract class NetViewAbstractPerformanceAware extends NetViewAbstractAlignmentA
 			PerformanceStatistics statistics, LabelMode labelMode, PerformanceMode edgeMeasureMode,
 			PerformanceMode firstMeasureMode, PerformanceMode secondMeasureMode) {
 
-		for (Entry<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> edgeEntry : statistics.edgeMoves
-				.entrySet()) {
+		Double maxCount = statistics.getMaxEdgeMeasure(edgeMeasureMode);
+
+		for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : statistics.getObservedEdges()) {
 
-			Double maxCount = calculateMaxEdgeMeasure(model, edgeMeasureMode, statistics);
-			Double edgeMeasure = calculateMeasure(edgeEntry.getElement(), statistics, edgeMeasureMode);
+			Double edgeMeasure = statistics.getEdgeMeasure(edge, edgeMeasureMode);
 
 			if (edgeMeasure != null) {
 				float edgeWidth = calcEdgeWidth(maxCount, edgeMeasure.doubleValue());
-				modelDecoration.putAttribute(edgeEntry.getElement(), DecorationKey.LINEWIDTH, edgeWidth);
+				modelDecoration.putAttribute(edge, DecorationKey.LINEWIDTH, edgeWidth);
 			} else {
-				modelDecoration.putAttribute(edgeEntry.getElement(), DecorationKey.LINEWIDTH,
-						explorerModel.getMinLineWidth());
+				modelDecoration.putAttribute(edge, DecorationKey.LINEWIDTH, explorerModel.getMinLineWidth());
 			}
 
 			String firstMeasureStr = "";
 			String secondMeasureStr = "";
 
-			if (isFrequencyEdge(edgeEntry.getElement(), firstMeasureMode)) {
-				Double firstMeasure = calculateMeasure(edgeEntry.getElement(), statistics, firstMeasureMode);
+			if (isFrequencyEdge(edge, firstMeasureMode)) {
+				Double firstMeasure = statistics.getEdgeMeasure(edge, firstMeasureMode);
 				firstMeasureStr = formatAsString(firstMeasureMode, firstMeasure);
 			}
 
-			if (isFrequencyEdge(edgeEntry.getElement(), secondMeasureMode)) {
-				Double secondMeasure = calculateMeasure(edgeEntry.getElement(), statistics, secondMeasureMode);
+			if (isFrequencyEdge(edge, secondMeasureMode)) {
+				Double secondMeasure = statistics.getEdgeMeasure(edge, secondMeasureMode);
 				secondMeasureStr = formatAsString(secondMeasureMode, secondMeasure);
 			}
 
-			modelDecoration.putAttribute(edgeEntry.getElement(), DecorationKey.EXTRALABEL,
+			modelDecoration.putAttribute(edge, DecorationKey.EXTRALABEL,
 					createEdgeLabel(labelMode, firstMeasureStr, secondMeasureStr));
 
 		}
@@ -374,91 +879,22 @@ abstract class NetViewAbstractPerformanceAware extends NetViewAbstractAlignmentA
 		}
 	}
 
-	private Double calculateMaxEdgeMeasure(DataPetriNet model, PerformanceMode edgeMeasureMode,
-			PerformanceStatistics statistics) {
-		switch (edgeMeasureMode) {
-			case FREQUENCY :
-				//TODO avoid copy
-				return Double.valueOf(
-						Multisets.copyHighestCountFirst(statistics.edgeMoves).entrySet().iterator().next().getCount());
-			case TRACE_PERCENTAGE :
-				//TODO might be more than 100%
-				return 1.0;
-			case LOCAL_PERCENTAGE :
-				return 1.0;
-			case TIME_1ST_QUARTILE :
-			case TIME_3RD_QUARTILE :
-			case TIME_AVERAGE :
-			case TIME_MAX :
-			case TIME_MEDIAN :
-			case TIME_MIN :
-				double maxValue = 0;
-				for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : model.getEdges()) {
-					List<Long> waitingTimes = statistics.waitingTime.get(edge);
-					if (!waitingTimes.isEmpty()) {
-						Double value = computeValue(edgeMeasureMode, waitingTimes);
-						maxValue = Math.max(maxValue, value);
-					}
-				}
-				return maxValue;
-			case NONE :
-				return null;
-			default :
-				throw new RuntimeException("Failed to compute measure " + edgeMeasureMode);
-		}
-	}
-
-	private Double calculateMeasure(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge,
-			PerformanceStatistics statistics, PerformanceMode measure) {
-		switch (measure) {
-			case FREQUENCY :
-				return Double.valueOf((statistics.edgeCorrectMovesMultiset.count(edge)
-						+ statistics.edgeInCorrectMovesMultiset.count(edge)));
-
-			case TRACE_PERCENTAGE :
-				return Double.valueOf((statistics.edgeCorrectMovesMultiset.count(edge)
-						+ statistics.edgeInCorrectMovesMultiset.count(edge)) / (double) statistics.numTraces.get());
-
-			case LOCAL_PERCENTAGE :
-				int totalMovesSourcePlace = statistics.placeMoves.count(edge.getSource());
-				return Double.valueOf(Double.valueOf((statistics.edgeCorrectMovesMultiset.count(edge)
-						+ statistics.edgeInCorrectMovesMultiset.count(edge)) / (double) totalMovesSourcePlace));
-
-			case TIME_1ST_QUARTILE :
-			case TIME_3RD_QUARTILE :
-			case TIME_AVERAGE :
-			case TIME_MAX :
-			case TIME_MEDIAN :
-			case TIME_MIN :
-				List<Long> waitingTimes = statistics.waitingTime.get(edge);
-				if (!waitingTimes.isEmpty()) {
-					return computeValue(measure, waitingTimes);
-				} else {
-					return null;
-				}
-			case NONE :
-				return null;
-			default :
-				throw new RuntimeException("Failed to compute measure " + measure);
-		}
-	}
-
 	protected void hideUnobseredPaths(DataPetriNet netView, ModelDecorationDataImpl modelDecoration,
 			PerformanceStatistics statistics) {
 		for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : netView.getEdges()) {
 			if (edge instanceof Arc) {
-				if (statistics.edgeMoves.count(edge) == 0) {
+				if (statistics.getEdgeMoves(edge) == 0) {
 					modelDecoration.putAttribute(edge, DecorationKey.LINECOLOR, Color.LIGHT_GRAY);
 					PetrinetNode source = edge.getSource();
 					PetrinetNode target = edge.getTarget();
-					int countSource;
-					int countTarget;
+					long countSource;
+					long countTarget;
 					if (source instanceof Place) {
-						countSource = statistics.placeMoves.count(source);
-						countTarget = statistics.transitionMoves.count(target);
+						countSource = statistics.getPlaceMoves(source);
+						countTarget = statistics.getTransitionMoves(target);
 					} else {
-						countSource = statistics.transitionMoves.count(source);
-						countTarget = statistics.placeMoves.count(target);
+						countSource = statistics.getTransitionMoves(source);
+						countTarget = statistics.getPlaceMoves(target);
 					}
 					if (countSource == 0) {
 						modelDecoration.putAttribute(source, DecorationKey.LINECOLOR, Color.LIGHT_GRAY);
@@ -538,53 +974,4 @@ abstract class NetViewAbstractPerformanceAware extends NetViewAbstractAlignmentA
 		return place.getGraph().getOutEdges(place).size() > 1;
 	}
 
-	protected final Double computeValue(PerformanceMode mode, Collection<Long> times) {
-		switch (mode) {
-			case TIME_3RD_QUARTILE :
-				return thirdQuartile(times);
-			case TIME_1ST_QUARTILE :
-				return firstQuartile(times);
-			case TIME_MEDIAN :
-				return median(times);
-			case TIME_AVERAGE :
-				return average(times);
-			case TIME_MAX :
-				return max(times);
-			case TIME_MIN :
-				return min(times);
-			default :
-				return average(times);
-		}
-	}
-
-	private final double thirdQuartile(Collection<Long> times) {
-		double[] waitingTimes = Doubles.toArray(times);
-		return StatUtils.percentile(waitingTimes, 75d);
-	}
-
-	private final double firstQuartile(Collection<Long> times) {
-		double[] waitingTimes = Doubles.toArray(times);
-		return StatUtils.percentile(waitingTimes, 25d);
-	}
-
-	private final double median(Collection<Long> times) {
-		double[] waitingTimes = Doubles.toArray(times);
-		return StatUtils.percentile(waitingTimes, 50d);
-	}
-
-	private final double min(Collection<Long> times) {
-		double[] waitingTimes = Doubles.toArray(times);
-		return StatUtils.min(waitingTimes);
-	}
-
-	private final double max(Collection<Long> times) {
-		double[] waitingTimes = Doubles.toArray(times);
-		return StatUtils.max(waitingTimes);
-	}
-
-	private double average(Collection<Long> times) {
-		double[] waitingTimes = Doubles.toArray(times);
-		return StatUtils.mean(waitingTimes);
-	}
-
-}
\ No newline at end of file
+}
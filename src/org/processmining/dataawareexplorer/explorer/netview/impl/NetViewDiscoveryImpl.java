@@ -20,6 +20,7 @@ import java.text.MessageFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -29,7 +30,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.prefs.Preferences;
 
 import javax.swing.AbstractAction;
@@ -64,13 +68,16 @@ import org.processmining.dataawareexplorer.explorer.work.DiscoveryProcessor;
 import org.processmining.dataawareexplorer.explorer.work.DiscoveryProcessor.DiscoveryAlgorithm;
 import org.processmining.dataawareexplorer.explorer.work.DiscoveryProcessor.DiscoveryResult;
 import org.processmining.dataawareexplorer.explorer.work.DiscoveryProcessor.ProgressPublisher;
+import org.processmining.dataawareexplorer.explorer.work.DiscoverySampling;
 import org.processmining.dataawareexplorer.explorer.work.TransitionStatistics;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
 import org.processmining.dataawareexplorer.utils.InitialValueMappingPanel;
 import org.processmining.dataawareexplorer.utils.PetrinetUtils;
 import org.processmining.datadiscovery.AbstractDecisionRuleDiscovery;
 import org.processmining.datadiscovery.DecisionTreeConfig;
 import org.processmining.datadiscovery.PetrinetDecisionRuleDiscovery.PetrinetDecisionRule;
 import org.processmining.datadiscovery.WekaDecisionTreeRuleDiscovery.TreeRule;
+import org.processmining.datadiscovery.estimators.FunctionEstimation;
 import org.processmining.datadiscovery.estimators.Type;
 import org.processmining.datadiscovery.visualizers.PrefuseTreeVisualization;
 import org.processmining.datadiscovery.visualizers.PrefuseTreeVisualization.TreePanel;
@@ -194,6 +201,10 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 				return;
 			}
 
+			if (discoveryWorker != null) {
+				discoveryWorker.cancel(true);
+			}
+			progressiveRules.clear();
 			startComputation();
 
 			Set<String> filteredAttributeSelection = queryLargeNominalAttributeSet(getUserSelectedAttributes());
@@ -216,7 +227,7 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 				discoveryProgressbar.setValue(0);
 			}
 
-			explorerContext.getExecutor().execute(new SwingWorker<DiscoveryResult, PetrinetDecisionRule>() {
+			discoveryWorker = new SwingWorker<DiscoveryResult, PetrinetDecisionRule>() {
 
 				protected DiscoveryResult doInBackground() throws Exception {
 
@@ -228,14 +239,17 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 
 					if (explorerModel.getDiscoveredWriteOperations() == null) {
 						explorerModel.setDiscoveredWriteOperations(DiscoveryProcessor.discoverWriteOperations(
-								explorerModel.getFilteredAlignments(), explorerModel.getModel().getTransitions(),
-								explorerModel.getTransitionsLocalId(), getWriteThreshold(),
+								explorerModel.getCompactAlignedLog(), explorerModel.getFilteredAlignments(),
+								explorerModel.getModel().getTransitions(), getWriteThreshold(),
 								getUserSelectedAttributes()));
 					}
 
 					DiscoveryProcessor processor = new DiscoveryProcessor(explorerModel.getModel(),
-							explorerModel.getFilteredAlignments(), initialValues, attributesForDiscovery,
-							attributeTypes, explorerModel.getLiteralValues(), explorerModel.getTransitionsLocalId(), explorerModel.getDiscoveryResult());
+							explorerModel.getFilteredAlignments(), explorerModel.getCompactAlignedLog(),
+							initialValues, attributesForDiscovery, attributeTypes, explorerModel.getLiteralValues(),
+							explorerModel.getTransitionsLocalId(), explorerModel.getDiscoveryResult());
+					processor.setRuleCache(explorerModel.getDiscoveryRuleCache(), createDiscoveryConfigurationKey());
+					processor.setSampling(getSelectedSampling());
 					return processor.discover(getSelectedDiscoveryAlgorithm(), config,
 							explorerModel.getDiscoveredWriteOperations(), consideredPlaces, getUserSelectedAttributes(),
 							new ProgressPublisher() {
@@ -243,46 +257,67 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 								public void onProgress(PetrinetDecisionRule decisionRule) {
 									publish(decisionRule);
 								}
-							}, explorerContext.getExecutor());
+							}, explorerContext.getRuntime().getExecutor(WorkQueue.CPU));
 
 				}
 
 				protected void done() {
+					if (discoveryWorker != this) {
+						// Superseded by a newer discovery
+						return;
+					}
 					try {
 						DiscoveryResult result = get();
+						progressiveRules.clear();
 						if (result != null) {
 							explorerModel.setDiscoveryResult(result);
-							updater.post(new NetViewConfigChangedEvent() {
-
-								public Object getSource() {
-									return NetViewDiscoveryImpl.this;
-								}
-
-							});
+							postConfigChanged();
 						} else {
 							explorerContext.getUserQuery().showWarning(
 									"Could not discover decision rules. "
 											+ "Maybe the model does not contain decision points (places with more than one outgoing edge)?",
 									"No rules discovered");
 						}
+					} catch (CancellationException e) {
+						// Rules of the finished places are discarded
+						progressiveRules.clear();
+						postConfigChanged();
 					} catch (ExecutionException e) {
+						progressiveRules.clear();
 						explorerContext.getUserQuery().showError("Error discovering rules", e);
 					} catch (InterruptedException e) {
 						Thread.currentThread().interrupt();
 					} finally {
+						discoveryWorker = null;
 						finishComputation();
 					}
 				}
 
 				protected void process(List<PetrinetDecisionRule> chunks) {
+					if (isCancelled()) {
+						return;
+					}
 					for (PetrinetDecisionRule c : chunks) {
 						discoveryProgressbar.setString(String.format("Discovered %s rule(s) for %s ...",
 								c.getRulesForTransition().size(), c.getDecisionPoint()));
 						discoveryProgressbar.setValue(discoveryProgressbar.getValue() + 1);
+						progressiveRules.put(c.getDecisionPoint(), c);
 					}
+					// Shows the guards of the finished places while the others are discovered
+					postConfigChanged();
 				}
 
-			});
+			};
+			try {
+				explorerContext.getRuntime().getExecutor(WorkQueue.ALIGNMENT).execute(discoveryWorker);
+			} catch (RejectedExecutionException e1) {
+				// The worker never runs, so done() is never called
+				discoveryWorker = null;
+				finishComputation();
+				explorerContext.getUserQuery().showError(
+						"Could not schedule the discovery of the rules: " + e1.getMessage(), "Error discovering rules",
+						e1);
+			}
 		}
 
 		private boolean queryInfrequentTransitions() {
@@ -403,8 +438,11 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 
 	// Weka does not work with a setting less than 2	
 	private static final int MIN_INSTANCES_AT_LEAF = 2;
+	private static final float CONFIDENCE_THRESHOLD = 0.25f;
+	private static final boolean IS_UNPRUNED = false;
 
 	private ProMComboBox<DiscoveryAlgorithm> discoveryComboBox;
+	private ProMComboBox<DiscoverySampling> samplingComboBox;
 
 	private ProMComboCheckBox attributeCCBox;
 	private JButton initialValuesButton;
@@ -416,6 +454,10 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 	private JCheckBox binaryCheckbox;
 
 	private JProgressBar discoveryProgressbar;
+	private JButton discoveryCancelButton;
+	private SwingWorker<DiscoveryResult, PetrinetDecisionRule> discoveryWorker;
+	// Rules of the running discovery by place, accessed by the event dispatch thread and the update
+	private final Map<Place, PetrinetDecisionRule> progressiveRules = new ConcurrentHashMap<>();
 
 	private final JPanel discoveredModelActionPanel;
 	private final JButton discoverButton;
@@ -512,6 +554,21 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 				.setToolTipText("Only use traces with a fitness exceeding the configured value.");
 		configPanel.addConfigurationComponent(fitnessThresholdSlider);
 
+		samplingComboBox = new ProMComboBox<>(new DiscoverySampling[] { DiscoverySampling.exact(),
+				DiscoverySampling.ofMaxError(0.01d, DiscoverySampling.DEFAULT_CONFIDENCE),
+				DiscoverySampling.ofMaxError(0.02d, DiscoverySampling.DEFAULT_CONFIDENCE),
+				DiscoverySampling.ofMaxError(0.05d, DiscoverySampling.DEFAULT_CONFIDENCE),
+				DiscoverySampling.ofSize(10000, DiscoverySampling.DEFAULT_CONFIDENCE),
+				DiscoverySampling.ofSize(100000, DiscoverySampling.DEFAULT_CONFIDENCE) });
+		samplingComboBox.setMinimumSize(new Dimension(150, 30));
+		samplingComboBox.setToolTipText(
+				"<HTML>Discover each rule from a sample of the traces stratified by the chosen activity. A sample gives a quick preview on large logs."
+						+ "<BR/>The \u00B1 of each place is the half-width of the 95% confidence interval of its weighted f1-score."
+						+ "<BR/>It assumes that all instances of a trace are classified alike, so it counts sampled traces rather than instances"
+						+ "<BR/>and is conservative. Rare activities are sampled beyond their share, which is accounted for in the error but"
+						+ "<BR/>shifts the score towards theirs. Use 'All instances' for the exact result.</HTML>");
+		configPanel.addConfigurationComponent(samplingComboBox);
+
 		JPanel checkboxes = new JPanel();
 		checkboxes.setLayout(new BoxLayout(checkboxes, BoxLayout.X_AXIS));
 		crossValidationCheckbox = SlickerFactory.instance().createCheckBox("Cross validate", false);
@@ -524,7 +581,22 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 		discoveryProgressbar.setVisible(false);
 		discoveryProgressbar.setString("Discovering ...");
 		discoveryProgressbar.setStringPainted(true);
-		configPanel.addConfigurationComponent(discoveryProgressbar);
+		discoveryCancelButton = SlickerFactory.instance().createButton("Cancel");
+		discoveryCancelButton.setVisible(false);
+		discoveryCancelButton.setToolTipText("Cancels the discovery. The rules discovered so far are discarded.");
+		discoveryCancelButton.addActionListener(new ActionListener() {
+
+			public void actionPerformed(ActionEvent e) {
+				if (discoveryWorker != null) {
+					discoveryWorker.cancel(true);
+				}
+			}
+		});
+		JPanel discoveryProgressPanel = new JPanel();
+		discoveryProgressPanel.setLayout(new BoxLayout(discoveryProgressPanel, BoxLayout.X_AXIS));
+		discoveryProgressPanel.add(discoveryProgressbar);
+		discoveryProgressPanel.add(discoveryCancelButton);
+		configPanel.addConfigurationComponent(discoveryProgressPanel);
 
 		discoverButton = SlickerFactory.instance().createButton("Discover");
 		discoverButton.setAlignmentX(JComponent.CENTER_ALIGNMENT);
@@ -592,6 +664,31 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 			colorPlacesBasedOnNumLeafParameter();
 		}
 
+		addProgressiveRules();
+	}
+
+	private void addProgressiveRules() {
+		DataPetriNet model = explorerModel.getModel();
+		for (PetrinetDecisionRule decisionRule : progressiveRules.values()) {
+			for (Entry<Transition, FunctionEstimation> entry : decisionRule.getRulesForTransition().entrySet()) {
+				setGuardLabel(model, entry.getKey(), entry.getValue().getExpression());
+			}
+			if (decisionRule.getRule() instanceof TreeRule) {
+				decorationData.putAttribute(decisionRule.getDecisionPoint(), DecorationKey.EXTRALABEL,
+						MessageFormat.format("{0,number,#.##}",
+								((TreeRule) decisionRule.getRule()).getEvaluation().weightedFMeasure()));
+			}
+		}
+	}
+
+	private void postConfigChanged() {
+		updater.post(new NetViewConfigChangedEvent() {
+
+			public Object getSource() {
+				return NetViewDiscoveryImpl.this;
+			}
+
+		});
 	}
 
 	private void buildLocalInfo(DiscoveryResult discoveryResult) {
@@ -615,6 +712,18 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 				if (decisionRule.getRule() instanceof TreeRule) {
 					double weightedFMeasure = ((TreeRule) decisionRule.getRule()).getEvaluation().weightedFMeasure();
 					infoData.addLocal(place, "Weighted f1-score", weightedFMeasure, InfoType.NUMBER);
+					DiscoverySampling.Sample sample = discoveryResult.getSamples()
+							.get(discoveryResult.getModelPlaceMapping().inverse().get(place));
+					if (sample != null) {
+						infoData.addLocal(place, "Weighted f1-score sampling error",
+								String.format("\u00B1%.3f (%.0f%% confidence)", sample.getError(weightedFMeasure),
+										sample.getConfidence() * 100),
+								InfoType.STRING);
+						infoData.addLocal(place, "Sampled traces", String.format("%,d of %,d",
+								sample.getNumSampledTraces(), sample.getNumTraces()), InfoType.STRING);
+						infoData.addLocal(place, "Sampled instances", String.format("%,d of %,d",
+								sample.getNumSampledInstances(), sample.getNumInstances()), InfoType.STRING);
+					}
 				}
 				if (decisionRule.getRule() instanceof TreeRule) {
 					TreeRule treeRule = (TreeRule) decisionRule.getRule();
@@ -765,6 +874,10 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 		return (DiscoveryAlgorithm) discoveryComboBox.getSelectedItem();
 	}
 
+	private DiscoverySampling getSelectedSampling() {
+		return (DiscoverySampling) samplingComboBox.getSelectedItem();
+	}
+
 	private double getMinPercentageTracesOnLeaf() {
 		return minLeafSlider.getValue();
 	}
@@ -779,14 +892,23 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 
 	private DecisionTreeConfig createDiscoveryConfiguration() {
 		final DecisionTreeConfig config = new DecisionTreeConfig();
-		config.setConfidenceTreshold(0.25f);
-		config.setUnpruned(false);
+		config.setConfidenceTreshold(CONFIDENCE_THRESHOLD);
+		config.setUnpruned(IS_UNPRUNED);
 		config.setBinarySplit(isBinary());
 		config.setMinPercentageObjectsOnLeaf(getMinPercentageTracesOnLeaf());
 		config.setCrossValidate(isCrossValidate());
 		return config;
 	}
 
+	/**
+	 * @return key that is equal for equal results of
+	 *         {@link #createDiscoveryConfiguration()}, all its settings have to
+	 *         be part of the key
+	 */
+	private Object createDiscoveryConfigurationKey() {
+		return Arrays.asList(CONFIDENCE_THRESHOLD, IS_UNPRUNED, isBinary(), getMinPercentageTracesOnLeaf(), isCrossValidate());
+	}
+
 	private Set<Place> createConsideredPlaces(DataPetriNet net, Set<Object> selectedNodes) {
 		final Set<Place> consideredPlaces = new HashSet<Place>();
 
@@ -848,10 +970,12 @@ class NetViewDiscoveryImpl extends NetViewAbstractPerformanceAware {
 
 	private void startComputation() {
 		discoveryProgressbar.setVisible(true);
+		discoveryCancelButton.setVisible(true);
 	}
 
 	private void finishComputation() {
 		discoveryProgressbar.setVisible(false);
+		discoveryCancelButton.setVisible(false);
 	}
 
 	private static Map<String, Type> getAttributeTypeMap(Map<String, Class<?>> attributesForDiscovery) {
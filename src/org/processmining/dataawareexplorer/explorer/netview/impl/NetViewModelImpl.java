@@ -8,7 +8,6 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.deckfour.xes.classification.XEventClass;
-import org.deckfour.xes.extension.std.XTimeExtension;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XTrace;
 import org.processmining.dataawareexplorer.explorer.ExplorerContext;
@@ -16,6 +15,7 @@ import org.processmining.dataawareexplorer.explorer.ExplorerUpdater;
 import org.processmining.dataawareexplorer.explorer.exception.NetVisualizationException;
 import org.processmining.dataawareexplorer.explorer.infoview.InfoData.InfoType;
 import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog;
 import org.processmining.datapetrinets.expression.AtomCollector;
 import org.processmining.models.graphbased.directed.petrinet.elements.Place;
 import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
@@ -106,10 +106,10 @@ public class NetViewModelImpl extends NetViewAbstractModelAwareImpl {
 			numEvents += trace.size();
 			numTraces++;
 			for (XEvent event : trace) {
-				Date time = XTimeExtension.instance().extractTimestamp(event);
-				if (time != null) {
-					firstEvent = Math.min(firstEvent, time.getTime());
-					lastEvent = Math.max(lastEvent, time.getTime());
+				long time = CompactAlignedLog.extractTimestamp(event);
+				if (time != CompactAlignedLog.NO_TIMESTAMP) {
+					firstEvent = Math.min(firstEvent, time);
+					lastEvent = Math.max(lastEvent, time);
 				}
 				eventClasses.add(explorerModel.getEventClasses().getClassOf(event));
 			}
@@ -23,10 +23,6 @@ import org.processmining.models.graphbased.directed.petrinet.PetrinetNode;
 import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
 
 import com.fluxicon.slickerbox.factory.SlickerFactory;
-import com.google.common.collect.ImmutableMultiset;
-import com.google.common.collect.Multiset;
-import com.google.common.collect.Multiset.Entry;
-import com.google.common.collect.Multisets;
 
 class NetViewPerformanceColoredImpl extends NetViewPerformanceImpl {
 
@@ -57,28 +53,23 @@ class NetViewPerformanceColoredImpl extends NetViewPerformanceImpl {
 		super.updateData();
 
 		if (colorCodeCheckbox.isSelected()) {
-			if (!getStatistics().transitionMoves.isEmpty()) {
-				int maxCount = calcMaxCount(getStatistics().transitionMoves);
-				for (Entry<Transition> entry : getStatistics().transitionMoves.entrySet()) {
-					int count = entry.getCount();
-					double frequency = transform(maxCount, count);
-					Color color = colorScheme.getColorFromGradient(frequency);
-					decorationData.putAttribute(entry.getElement(), DecorationKey.FILLCOLOR, color);
-					decorationData.putAttribute(entry.getElement(), DecorationKey.TEXTCOLOR,
-							determineFontColor(null, color));
-				}
+			long maxTransitionCount = getStatistics().getMaxTransitionMoves();
+			for (Transition transition : getStatistics().getObservedTransitions()) {
+				long count = getStatistics().getTransitionMoves(transition);
+				double frequency = transform(maxTransitionCount, count);
+				Color color = colorScheme.getColorFromGradient(frequency);
+				decorationData.putAttribute(transition, DecorationKey.FILLCOLOR, color);
+				decorationData.putAttribute(transition, DecorationKey.TEXTCOLOR, determineFontColor(null, color));
 			}
 
 			if (getEdgeMeasure() == PerformanceMode.FREQUENCY || getEdgeMeasure() == PerformanceMode.TRACE_PERCENTAGE) {
-				if (!getStatistics().edgeMoves.isEmpty()) {
-					int maxCount = calcMaxCount(getStatistics().edgeMoves);
-					for (Entry<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> entry : getStatistics().edgeMoves
-							.entrySet()) {
-						int count = getStatistics().edgeMoves.count(entry.getElement());
-						double frequency = transform(maxCount, count);
-						decorationData.putAttribute(entry.getElement(), DecorationKey.LINECOLOR,
-								colorScheme.getColorFromGradient(frequency));
-					}
+				long maxEdgeCount = getStatistics().getMaxEdgeMoves();
+				for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : getStatistics()
+						.getObservedEdges()) {
+					long count = getStatistics().getEdgeMoves(edge);
+					double frequency = transform(maxEdgeCount, count);
+					decorationData.putAttribute(edge, DecorationKey.LINECOLOR,
+							colorScheme.getColorFromGradient(frequency));
 				}
 			}
 		}
@@ -107,9 +98,4 @@ class NetViewPerformanceColoredImpl extends NetViewPerformanceImpl {
 		}
 	}
 
-	private int calcMaxCount(Multiset<?> statistics) {
-		ImmutableMultiset<?> highestCountFirst = Multisets.copyHighestCountFirst(statistics);
-		return highestCountFirst.entrySet().iterator().next().getCount();
-	}
-
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import javax.swing.AbstractAction;
@@ -25,6 +26,7 @@ import org.processmining.dataawareexplorer.explorer.events.NetViewConfigChangedE
 import org.processmining.dataawareexplorer.explorer.exception.NetVisualizationException;
 import org.processmining.dataawareexplorer.explorer.infoview.InfoData.InfoType;
 import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
 import org.processmining.dataawarereplayer.precision.DataAwarePrecisionPlugin;
 import org.processmining.dataawarereplayer.precision.PrecisionConfig;
 import org.processmining.dataawarereplayer.precision.PrecisionResult;
@@ -185,7 +187,8 @@ class NetViewPrecisionImpl extends NetViewPerformanceImpl {
 
 		precisionConfig.setConcurrentThreads(Runtime.getRuntime().availableProcessors() - 1);
 
-		Future<PrecisionResult> precisionFuture = explorerContext.getExecutor().submit(new Callable<PrecisionResult>() {
+		ExecutorService executor = explorerContext.getRuntime().getExecutor(WorkQueue.CPU);
+		Future<PrecisionResult> precisionFuture = executor.submit(new Callable<PrecisionResult>() {
 
 			public PrecisionResult call() throws Exception {
 				return new DataAwarePrecisionPlugin().doMeasurePrecisionWithAlignment(explorerModel.getModel(),
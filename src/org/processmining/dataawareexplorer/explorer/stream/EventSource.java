@@ -0,0 +1,25 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of the events of a live event stream.
+ */
+public interface EventSource extends Closeable {
+
+	/**
+	 * Waits for the next event of the stream.
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return the next event or <code>null</code> if no event arrived within
+	 *         the timeout
+	 * @throws IOException
+	 *             if the source cannot be read
+	 * @throws InterruptedException
+	 */
+	StreamEvent poll(long timeout, TimeUnit unit) throws IOException, InterruptedException;
+
+}
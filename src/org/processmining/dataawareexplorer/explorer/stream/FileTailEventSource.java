@@ -0,0 +1,166 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Events appended to a local text file, one event per line with the case, the
+ * activity and the time separated by the separator character, optionally
+ * followed by attributes as 'key=value', e.g., 'c1;A;1000;amount=60'. The time
+ * is either given in milliseconds or as xs:dateTime (as in XES). Attribute
+ * values are read as boolean, integer or decimal number if possible and as
+ * text otherwise. Empty lines and lines starting with '#' are ignored.
+ * Malformed lines are skipped and counted, so that a single bad line does not
+ * end the monitoring. The file is polled for new lines, a truncated file is
+ * read again from its beginning.
+ */
+public final class FileTailEventSource implements EventSource {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long POLL_INTERVAL = 200;
+
+	private final RandomAccessFile file;
+	private final Splitter splitter;
+
+	private final byte[] buffer = new byte[8192];
+	private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+	private final Deque<StreamEvent> pendingEvents = new ArrayDeque<>();
+	private long position;
+	private volatile long numMalformedLines;
+
+	/**
+	 * @param file
+	 * @param separator
+	 * @param isFromEnd
+	 *            whether only lines appended after opening the file are read
+	 * @throws IOException
+	 */
+	public FileTailEventSource(File file, char separator, boolean isFromEnd) throws IOException {
+		super();
+		this.file = new RandomAccessFile(file, "r");
+		this.splitter = Splitter.on(separator).trimResults();
+		this.position = isFromEnd ? this.file.length() : 0;
+	}
+
+	public StreamEvent poll(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+		long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+		while (true) {
+			if (pendingEvents.isEmpty()) {
+				readAppendedLines();
+			}
+			if (!pendingEvents.isEmpty()) {
+				return pendingEvents.poll();
+			}
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return null;
+			}
+			Thread.sleep(Math.min(remaining, POLL_INTERVAL));
+		}
+	}
+
+	private void readAppendedLines() throws IOException {
+		long length = file.length();
+		if (length < position) {
+			// File was truncated or replaced
+			position = 0;
+			partialLine.reset();
+		}
+		file.seek(position);
+		while (position < length) {
+			int read = file.read(buffer, 0, (int) Math.min(buffer.length, length - position));
+			if (read <= 0) {
+				break;
+			}
+			position += read;
+			int lineStart = 0;
+			for (int i = 0; i < read; i++) {
+				if (buffer[i] == '\n') {
+					partialLine.write(buffer, lineStart, i - lineStart);
+					parseLine(new String(partialLine.toByteArray(), UTF8));
+					partialLine.reset();
+					lineStart = i + 1;
+				}
+			}
+			partialLine.write(buffer, lineStart, read - lineStart);
+		}
+	}
+
+	private void parseLine(String line) {
+		String trimmedLine = line.trim();
+		if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+			return;
+		}
+		List<String> fields = ImmutableList.copyOf(splitter.split(trimmedLine));
+		if (fields.size() < 3) {
+			numMalformedLines++;
+			return;
+		}
+		try {
+			ImmutableMap.Builder<String, Object> attributes = ImmutableMap.builder();
+			for (String field : fields.subList(3, fields.size())) {
+				int separatorIndex = field.indexOf('=');
+				if (separatorIndex <= 0) {
+					numMalformedLines++;
+					return;
+				}
+				attributes.put(field.substring(0, separatorIndex).trim(),
+						parseValue(field.substring(separatorIndex + 1).trim()));
+			}
+			pendingEvents.add(
+					new StreamEvent(fields.get(0), fields.get(1), parseTime(fields.get(2)), attributes.build()));
+		} catch (IllegalArgumentException e) {
+			// Also thrown for duplicate attributes
+			numMalformedLines++;
+		}
+	}
+
+	private static Object parseValue(String value) {
+		if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+			return Boolean.valueOf(value);
+		}
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			// Not an integer
+		}
+		try {
+			return Double.valueOf(value);
+		} catch (NumberFormatException e) {
+			return value;
+		}
+	}
+
+	private static long parseTime(String time) {
+		if (!time.isEmpty() && Character.isDigit(time.charAt(time.length() - 1)) && time.indexOf('-') == -1) {
+			return Long.parseLong(time);
+		}
+		return DatatypeConverter.parseDateTime(time).getTimeInMillis();
+	}
+
+	/**
+	 * @return number of lines that were skipped since they did not contain a
+	 *         case, an activity and a valid time
+	 */
+	public long getNumMalformedLines() {
+		return numMalformedLines;
+	}
+
+	public void close() throws IOException {
+		file.close();
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events that are handed over in the same JVM, e.g., by another plug-in.
+ */
+public final class QueueEventSource implements EventSource {
+
+	private final BlockingQueue<StreamEvent> queue;
+
+	public QueueEventSource() {
+		this(new LinkedBlockingQueue<StreamEvent>());
+	}
+
+	/**
+	 * @param queue
+	 *            to which the events are added by the producer
+	 */
+	public QueueEventSource(BlockingQueue<StreamEvent> queue) {
+		super();
+		this.queue = queue;
+	}
+
+	/**
+	 * @param event
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for space in a bounded queue
+	 */
+	public void put(StreamEvent event) throws InterruptedException {
+		queue.put(event);
+	}
+
+	public StreamEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+		return queue.poll(timeout, unit);
+	}
+
+	public void close() {
+		// The queue is owned by the producer
+	}
+
+}
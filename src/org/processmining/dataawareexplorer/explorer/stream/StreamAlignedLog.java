@@ -0,0 +1,310 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.datapetrinets.DataPetriNet;
+import org.processmining.plugins.balancedconformance.BalancedDataXAlignmentPlugin;
+import org.processmining.plugins.balancedconformance.config.BalancedProcessorConfiguration;
+import org.processmining.plugins.balancedconformance.controlflow.ControlFlowAlignmentException;
+import org.processmining.plugins.balancedconformance.dataflow.exception.DataAlignmentException;
+import org.processmining.xesalignmentextension.XAlignmentExtension;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignmentMove;
+
+/**
+ * Aligns the cases of an event stream with the same aligner and configuration
+ * as the log of the explorer, so that guards, attributes and costs are taken
+ * into account and the fitness of a case equals the one of an offline
+ * alignment. Events are collected per open case and all cases with new events
+ * are aligned again by {@link #align()}, so that earlier moves are revised as
+ * the case proceeds.
+ * <p>
+ * A case is complete when its alignment needs no visible model move after its
+ * last event, i.e., its events reach a final marking. It is closed and its
+ * alignment is added to the window of the most recently closed cases, which
+ * {@link #getAlignedLog()} returns for the views of the explorer. A case is
+ * also closed by {@link #closeCase(String)} or when it is the least recently
+ * active case and more than the maximum number of cases are open, then its
+ * alignment includes the model moves that are missing to complete it. Open
+ * cases are not part of the window: the aligner aligns to a final marking, so
+ * their alignment counts the remaining activities as model moves. Later events
+ * of a closed case start a new case. Memory is bounded by the number of open
+ * cases and the size of the window, not by the length of the stream.
+ * <p>
+ * Not thread-safe, it is used by the thread of a {@link StreamMonitoringJob}.
+ */
+public final class StreamAlignedLog {
+
+	private static final class OpenCase {
+
+		private final XTrace trace;
+		// Alignment of the events up to the last call of align()
+		private XAlignment alignment;
+		// Whether the case has events that are not aligned yet
+		private boolean isDirty;
+
+		private OpenCase(XTrace trace) {
+			this.trace = trace;
+		}
+
+	}
+
+	private final DataPetriNet net;
+	private final BalancedProcessorConfiguration alignmentConfiguration;
+	private final int maxOpenCases;
+	private final int maxClosedCases;
+	private final XFactory factory = XFactoryRegistry.instance().currentDefault();
+
+	// Least recently active case first
+	private final LinkedHashMap<String, OpenCase> openCases = new LinkedHashMap<>(16, 0.75f, true);
+	// Traces of the cases that were closed with events that are not aligned yet
+	private final List<XTrace> closingTraces = new ArrayList<>();
+	// Most recently closed case last
+	private final Deque<XAlignment> closedAlignments = new ArrayDeque<>();
+	// Attributes, extensions and classifiers of the logs returned by the aligner
+	private XLog alignedLogTemplate;
+	private boolean isWindowChanged;
+
+	private long numEvents;
+	private long numClosedCases;
+	private long numUnalignedCases;
+
+	/**
+	 * @param net
+	 *            the net the events are aligned to
+	 * @param alignmentConfiguration
+	 *            configuration of the alignment of the log, its activity
+	 *            mapping classifies the events by their name
+	 * @param maxOpenCases
+	 *            number of open cases above which the least recently active
+	 *            case is closed
+	 * @param maxClosedCases
+	 *            number of the most recently closed cases that are kept
+	 */
+	public StreamAlignedLog(DataPetriNet net, BalancedProcessorConfiguration alignmentConfiguration,
+			int maxOpenCases, int maxClosedCases) {
+		super();
+		if (maxOpenCases < 1 || maxClosedCases < 1) {
+			throw new IllegalArgumentException(
+					"At least one open and one closed case need to be kept, was " + maxOpenCases + " and "
+							+ maxClosedCases);
+		}
+		this.net = net;
+		this.alignmentConfiguration = alignmentConfiguration;
+		this.maxOpenCases = maxOpenCases;
+		this.maxClosedCases = maxClosedCases;
+	}
+
+	/**
+	 * Adds the event to its case, it is aligned by the next call of
+	 * {@link #align()}.
+	 *
+	 * @param event
+	 */
+	public void add(StreamEvent event) {
+		numEvents++;
+		OpenCase openCase = openCases.get(event.getCaseId());
+		if (openCase == null) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, event.getCaseId());
+			openCase = new OpenCase(trace);
+			openCases.put(event.getCaseId(), openCase);
+			closeLeastRecentlyActiveCases();
+		}
+		openCase.trace.add(createEvent(event));
+		openCase.isDirty = true;
+	}
+
+	private XEvent createEvent(StreamEvent streamEvent) {
+		XEvent event = factory.createEvent();
+		XConceptExtension.instance().assignName(event, streamEvent.getActivity());
+		XTimeExtension.instance().assignTimestamp(event, streamEvent.getTimestamp());
+		XAttributeMap attributes = event.getAttributes();
+		for (Entry<String, Object> entry : streamEvent.getAttributes().entrySet()) {
+			attributes.put(entry.getKey(), createAttribute(entry.getKey(), entry.getValue()));
+		}
+		return event;
+	}
+
+	private XAttribute createAttribute(String key, Object value) {
+		if (value instanceof Long || value instanceof Integer) {
+			return factory.createAttributeDiscrete(key, ((Number) value).longValue(), null);
+		} else if (value instanceof Number) {
+			return factory.createAttributeContinuous(key, ((Number) value).doubleValue(), null);
+		} else if (value instanceof Boolean) {
+			return factory.createAttributeBoolean(key, (Boolean) value, null);
+		} else if (value instanceof Date) {
+			return factory.createAttributeTimestamp(key, (Date) value, null);
+		} else {
+			return factory.createAttributeLiteral(key, String.valueOf(value), null);
+		}
+	}
+
+	/**
+	 * Closes the case, it is added to the window with the next call of
+	 * {@link #align()} at the latest.
+	 *
+	 * @param caseId
+	 */
+	public void closeCase(String caseId) {
+		OpenCase openCase = openCases.remove(caseId);
+		if (openCase != null) {
+			close(openCase);
+		}
+	}
+
+	private void closeLeastRecentlyActiveCases() {
+		Iterator<OpenCase> iterator = openCases.values().iterator();
+		while (openCases.size() > maxOpenCases && iterator.hasNext()) {
+			OpenCase openCase = iterator.next();
+			iterator.remove();
+			close(openCase);
+		}
+	}
+
+	private void close(OpenCase openCase) {
+		if (openCase.isDirty || openCase.alignment == null) {
+			closingTraces.add(openCase.trace);
+		} else {
+			addClosedAlignment(openCase.alignment);
+		}
+	}
+
+	private void addClosedAlignment(XAlignment alignment) {
+		numClosedCases++;
+		closedAlignments.addLast(alignment);
+		if (closedAlignments.size() > maxClosedCases) {
+			closedAlignments.removeFirst();
+		}
+		isWindowChanged = true;
+	}
+
+	/**
+	 * Aligns the open cases with new events and the cases that were closed
+	 * since the last call, all in one run of the aligner. Complete cases are
+	 * closed. Cases for which no alignment can be found are left out of the
+	 * window, open cases are aligned again with their next event.
+	 *
+	 * @return whether the window of closed cases changed since the last call
+	 * @throws ControlFlowAlignmentException
+	 * @throws DataAlignmentException
+	 */
+	public boolean align() throws ControlFlowAlignmentException, DataAlignmentException {
+		XLog log = factory.createLog();
+		// The aligned traces are matched by their name, which is unique within a run
+		Set<String> closingCases = new HashSet<>();
+		for (Iterator<XTrace> iterator = closingTraces.iterator(); iterator.hasNext();) {
+			XTrace trace = iterator.next();
+			if (closingCases.add(XConceptExtension.instance().extractName(trace))) {
+				log.add(trace);
+				iterator.remove();
+			}
+		}
+		Map<String, OpenCase> changedCases = new HashMap<>();
+		for (Entry<String, OpenCase> entry : openCases.entrySet()) {
+			if (entry.getValue().isDirty && !closingCases.contains(entry.getKey())) {
+				changedCases.put(entry.getKey(), entry.getValue());
+				log.add(entry.getValue().trace);
+			}
+		}
+
+		if (!log.isEmpty()) {
+			XLog alignmentResult = new BalancedDataXAlignmentPlugin().alignLog(net, log, alignmentConfiguration);
+			if (alignedLogTemplate == null) {
+				alignedLogTemplate = createEmptyCopy(alignmentResult);
+			}
+			for (XAlignment alignment : XAlignmentExtension.instance().extendLog(alignmentResult)) {
+				String caseId = alignment.getName();
+				if (closingCases.remove(caseId)) {
+					addClosedAlignment(alignment);
+				} else {
+					OpenCase openCase = changedCases.get(caseId);
+					if (openCase != null) {
+						openCase.alignment = alignment;
+						if (isComplete(alignment)) {
+							openCases.remove(caseId);
+							addClosedAlignment(alignment);
+						}
+					}
+				}
+			}
+			// No alignment was found for the remaining closed cases
+			numUnalignedCases += closingCases.size();
+			for (OpenCase openCase : changedCases.values()) {
+				openCase.isDirty = false;
+			}
+		}
+
+		boolean result = isWindowChanged;
+		isWindowChanged = false;
+		return result;
+	}
+
+	/**
+	 * @param alignment
+	 * @return whether no visible model move follows the last event
+	 */
+	static boolean isComplete(XAlignment alignment) {
+		boolean isComplete = true;
+		for (XAlignmentMove move : alignment) {
+			if (move.getType() != MoveType.MODEL) {
+				isComplete = true;
+			} else if (move.isObservable()) {
+				isComplete = false;
+			}
+		}
+		return isComplete;
+	}
+
+	private XLog createEmptyCopy(XLog log) {
+		XLog copy = factory.createLog((XAttributeMap) log.getAttributes().clone());
+		copy.getExtensions().addAll(log.getExtensions());
+		copy.getClassifiers().addAll(log.getClassifiers());
+		copy.getGlobalTraceAttributes().addAll(log.getGlobalTraceAttributes());
+		copy.getGlobalEventAttributes().addAll(log.getGlobalEventAttributes());
+		return copy;
+	}
+
+	/**
+	 * @return the alignments of the window of the most recently closed cases,
+	 *         in the order in which they were closed
+	 */
+	public XAlignedLog getAlignedLog() {
+		XLog log = alignedLogTemplate != null ? createEmptyCopy(alignedLogTemplate) : factory.createLog();
+		for (XAlignment alignment : closedAlignments) {
+			log.add(alignment.getTrace());
+		}
+		return XAlignmentExtension.instance().extendLog(log);
+	}
+
+	/**
+	 * @return the counts of the stream so far
+	 */
+	public StreamStatus getStatus() {
+		return new StreamStatus(numEvents, openCases.size(), numClosedCases, closedAlignments.size(),
+				numUnalignedCases);
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Event of a live event stream: the case it belongs to, its activity (i.e.,
+ * the name of the event), the time at which it occurred and its attributes.
+ */
+public final class StreamEvent {
+
+	private final String caseId;
+	private final String activity;
+	private final long timestamp;
+	private final Map<String, Object> attributes;
+
+	/**
+	 * @param caseId
+	 * @param activity
+	 *            name of the event as classified by the activity mapping
+	 * @param timestamp
+	 *            in milliseconds
+	 */
+	public StreamEvent(String caseId, String activity, long timestamp) {
+		this(caseId, activity, timestamp, ImmutableMap.<String, Object>of());
+	}
+
+	/**
+	 * @param caseId
+	 * @param activity
+	 *            name of the event as classified by the activity mapping
+	 * @param timestamp
+	 *            in milliseconds
+	 * @param attributes
+	 *            values of type {@link Long}, {@link Double}, {@link Boolean},
+	 *            {@link java.util.Date} or {@link String}, other values are
+	 *            used as strings
+	 */
+	public StreamEvent(String caseId, String activity, long timestamp, Map<String, ?> attributes) {
+		super();
+		this.caseId = caseId;
+		this.activity = activity;
+		this.timestamp = timestamp;
+		this.attributes = ImmutableMap.copyOf(attributes);
+	}
+
+	public String getCaseId() {
+		return caseId;
+	}
+
+	public String getActivity() {
+		return activity;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	public String toString() {
+		return caseId + ":" + activity + "@" + timestamp + (attributes.isEmpty() ? "" : attributes.toString());
+	}
+
+}
@@ -0,0 +1,126 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.Future;
+
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.AncestorEvent;
+import javax.swing.event.AncestorListener;
+
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
+
+import com.fluxicon.slickerbox.factory.SlickerFactory;
+
+/**
+ * Shows the {@link StreamStatus} published by a {@link StreamMonitoringJob},
+ * the alignments themselves are shown by the views of the explorer. The job is
+ * cancelled when the panel is removed from its window or when the monitoring
+ * is stopped.
+ */
+public final class StreamMonitorPanel extends JPanel {
+
+	private static final long serialVersionUID = -2391728104316729516L;
+
+	private final EventSource source;
+	private final JLabel summaryLabel;
+	private final JButton stopButton;
+
+	private Future<?> job;
+
+	public StreamMonitorPanel(EventSource source) {
+		super();
+		this.source = source;
+		setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+		setBackground(null);
+
+		summaryLabel = new JLabel("Waiting for events ...");
+		add(summaryLabel);
+
+		stopButton = SlickerFactory.instance().createButton("Stop monitoring");
+		stopButton.addActionListener(new ActionListener() {
+
+			public void actionPerformed(ActionEvent e) {
+				stop();
+			}
+		});
+		add(stopButton);
+
+		addAncestorListener(new AncestorListener() {
+
+			public void ancestorRemoved(AncestorEvent event) {
+				stop();
+			}
+
+			public void ancestorMoved(AncestorEvent event) {
+			}
+
+			public void ancestorAdded(AncestorEvent event) {
+			}
+		});
+	}
+
+	/**
+	 * @param job
+	 *            the future of the job that publishes to this panel
+	 */
+	public void setJob(Future<?> job) {
+		this.job = job;
+	}
+
+	/**
+	 * Cancels the job, which closes the source.
+	 */
+	public void stop() {
+		if (job != null) {
+			job.cancel(true);
+		}
+		stopButton.setEnabled(false);
+	}
+
+	/**
+	 * Shows the status, may be called on any thread.
+	 *
+	 * @param status
+	 * @param alignedLog
+	 *            ignored, the views of the explorer show the alignments
+	 */
+	public void streamUpdated(final StreamStatus status, XAlignedLog alignedLog) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			public void run() {
+				updateStatus(status);
+			}
+		});
+	}
+
+	/**
+	 * Shows the error, may be called on any thread.
+	 *
+	 * @param e
+	 */
+	public void streamFailed(final Exception e) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			public void run() {
+				summaryLabel.setText("Monitoring stopped: " + e.getMessage());
+				stopButton.setEnabled(false);
+			}
+		});
+	}
+
+	private void updateStatus(StreamStatus status) {
+		String malformedLines = source instanceof FileTailEventSource
+				? String.format(", %,d skipped lines", ((FileTailEventSource) source).getNumMalformedLines()) : "";
+		summaryLabel.setText(String.format(
+				"<HTML>%,d events%s, %,d open cases<BR/>%,d closed cases, the views show the last %,d, "
+						+ "%,d closed cases could not be aligned</HTML>",
+				status.getNumEvents(), malformedLines, status.getNumOpenCases(), status.getNumClosedCases(),
+				status.getNumWindowCases(), status.getNumUnalignedCases()));
+	}
+
+}
@@ -0,0 +1,114 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime.WorkQueue;
+import org.processmining.plugins.balancedconformance.controlflow.ControlFlowAlignmentException;
+import org.processmining.plugins.balancedconformance.dataflow.exception.DataAlignmentException;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
+
+/**
+ * Feeds the events of an {@link EventSource} to a {@link StreamAlignedLog}
+ * until it is cancelled, aligns the new events once per update interval and
+ * publishes the window of closed cases whenever it changed. The job runs as
+ * long as the stream is monitored, so it gets its own daemon thread instead of
+ * occupying one of the threads of the {@link WorkQueue#ALIGNMENT} queue. It is
+ * stopped by cancelling the returned {@link Future}, which closes the source.
+ */
+public final class StreamMonitoringJob implements Runnable {
+
+	public interface StreamListener {
+
+		/**
+		 * Called on the thread of the job after each alignment of the new
+		 * events and once when the job stops.
+		 *
+		 * @param status
+		 * @param alignedLog
+		 *            the alignments of the window of closed cases or
+		 *            <code>null</code> if the window did not change
+		 */
+		void streamUpdated(StreamStatus status, XAlignedLog alignedLog);
+
+		/**
+		 * Called on the thread of the job when the source cannot be read or
+		 * the events cannot be aligned, the job stops afterwards.
+		 *
+		 * @param e
+		 */
+		void streamFailed(Exception e);
+
+	}
+
+	private final EventSource source;
+	private final StreamAlignedLog alignedLog;
+	private final StreamListener listener;
+	private final long updateInterval;
+
+	/**
+	 * @param source
+	 * @param alignedLog
+	 * @param listener
+	 * @param updateInterval
+	 *            milliseconds between two alignments of the new events
+	 */
+	public StreamMonitoringJob(EventSource source, StreamAlignedLog alignedLog, StreamListener listener,
+			long updateInterval) {
+		super();
+		this.source = source;
+		this.alignedLog = alignedLog;
+		this.listener = listener;
+		this.updateInterval = updateInterval;
+	}
+
+	/**
+	 * Starts the job on a new daemon thread.
+	 *
+	 * @return the future of the job, cancel it with interruption to stop the
+	 *         job
+	 */
+	public Future<?> start() {
+		FutureTask<Void> task = new FutureTask<>(this, null);
+		Thread thread = new Thread(task, "explorer-stream-monitor");
+		thread.setDaemon(true);
+		thread.start();
+		return task;
+	}
+
+	public void run() {
+		try {
+			long nextUpdate = System.currentTimeMillis() + updateInterval;
+			while (!Thread.currentThread().isInterrupted()) {
+				long timeout = Math.max(0, nextUpdate - System.currentTimeMillis());
+				StreamEvent event = source.poll(timeout, TimeUnit.MILLISECONDS);
+				if (event != null) {
+					alignedLog.add(event);
+				}
+				if (System.currentTimeMillis() >= nextUpdate) {
+					publish();
+					nextUpdate = System.currentTimeMillis() + updateInterval;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | ControlFlowAlignmentException | DataAlignmentException e) {
+			listener.streamFailed(e);
+		} finally {
+			try {
+				source.close();
+			} catch (IOException e) {
+				listener.streamFailed(e);
+			}
+			listener.streamUpdated(alignedLog.getStatus(), null);
+		}
+	}
+
+	private void publish() throws ControlFlowAlignmentException, DataAlignmentException {
+		boolean isChanged = alignedLog.align();
+		listener.streamUpdated(alignedLog.getStatus(), isChanged ? alignedLog.getAlignedLog() : null);
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+/**
+ * Snapshot of the counts of a {@link StreamAlignedLog}. The snapshot does not
+ * change when more events arrive.
+ */
+public final class StreamStatus {
+
+	private final long numEvents;
+	private final int numOpenCases;
+	private final long numClosedCases;
+	private final int numWindowCases;
+	private final long numUnalignedCases;
+
+	StreamStatus(long numEvents, int numOpenCases, long numClosedCases, int numWindowCases,
+			long numUnalignedCases) {
+		super();
+		this.numEvents = numEvents;
+		this.numOpenCases = numOpenCases;
+		this.numClosedCases = numClosedCases;
+		this.numWindowCases = numWindowCases;
+		this.numUnalignedCases = numUnalignedCases;
+	}
+
+	public long getNumEvents() {
+		return numEvents;
+	}
+
+	public int getNumOpenCases() {
+		return numOpenCases;
+	}
+
+	/**
+	 * @return number of cases that were closed with an alignment
+	 */
+	public long getNumClosedCases() {
+		return numClosedCases;
+	}
+
+	/**
+	 * @return number of closed cases in the window shown by the explorer
+	 */
+	public int getNumWindowCases() {
+		return numWindowCases;
+	}
+
+	/**
+	 * @return number of closed cases for which no alignment was found
+	 */
+	public long getNumUnalignedCases() {
+		return numUnalignedCases;
+	}
+
+	public String toString() {
+		return String.format("%d events, %d open cases, %d closed cases (%d in window), %d unaligned cases",
+				numEvents, numOpenCases, numClosedCases, numWindowCases, numUnalignedCases);
+	}
+
+}
@@ -0,0 +1,352 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.processmining.dataawareexplorer.parallel.MapReduce;
+import org.processmining.dataawareexplorer.parallel.Output;
+import org.processmining.dataawareexplorer.parallel.RangeInput;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.datapetrinets.DataPetriNetsWithMarkings;
+import org.processmining.models.semantics.petrinet.Marking;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+/**
+ * Contribution of each variant of a {@link VariantIndex} to the counters of
+ * {@link StatisticsStore}. The contributions do not depend on any filter, so
+ * they are computed once per aligned log by replaying one representative of
+ * every variant a single time. Each contribution is stored as a sparse int
+ * vector over the slots of the {@link StatisticsStore}. The
+ * {@link AlignmentInformation} of any subset of the alignments is then
+ * obtained as the sum of the vectors of their variants weighted by the number
+ * of alignments in each variant, without replaying the Petri net semantics or
+ * evaluating guards again. Only the fitness is summed per alignment.
+ * <p>
+ * This is the parallel aggregation of the statistics. Both the replay of the
+ * variants and the sum are split with {@link MapReduce}: each worker replays
+ * its range of variants with its own {@link StatisticsAccumulator}, i.e., its
+ * own marking, variable frame and partial counters, and the reduce phase
+ * merges the partial results. The result equals a sequential replay of the
+ * alignments.
+ * <p>
+ * An alignment is identified by its trace id in the {@link CompactAlignedLog}.
+ */
+public final class AlignmentContributions {
+
+	/**
+	 * Contributions of a consecutive range of variants in CSR layout.
+	 */
+	private static final class Chunk {
+
+		private final IntArrayList offsets = new IntArrayList();
+		private final IntArrayList slots = new IntArrayList();
+		private final IntArrayList counts = new IntArrayList();
+		private final IntArrayList logMoveOffsets = new IntArrayList();
+		private final IntArrayList logMovePlaces = new IntArrayList();
+		private final List<String> logMoveClasses = new ArrayList<>();
+
+		private void append(Chunk other) {
+			int slotBase = slots.size();
+			for (int i = 0; i < other.offsets.size(); i++) {
+				offsets.add(slotBase + other.offsets.get(i));
+			}
+			slots.addAll(other.slots);
+			counts.addAll(other.counts);
+			int logMoveBase = logMovePlaces.size();
+			for (int i = 0; i < other.logMoveOffsets.size(); i++) {
+				logMoveOffsets.add(logMoveBase + other.logMoveOffsets.get(i));
+			}
+			logMovePlaces.addAll(other.logMovePlaces);
+			logMoveClasses.addAll(other.logMoveClasses);
+		}
+	}
+
+	private static final class ChunkInput extends RangeInput<Chunk> {
+
+		private final NetIndex netIndex;
+		private final int[] initialMarking;
+		private final VariantIndex variants;
+
+		private ChunkInput(NetIndex netIndex, int[] initialMarking, VariantIndex variants, int from, int to) {
+			super(from, to);
+			this.netIndex = netIndex;
+			this.initialMarking = initialMarking;
+			this.variants = variants;
+		}
+
+		protected Output<Chunk> computeRange(int from, int to) {
+			StatisticsAccumulator accumulator = new StatisticsAccumulator(netIndex, initialMarking);
+			accumulator.enableTracking();
+			StatisticsStore scratch = accumulator.getStore();
+			Chunk chunk = new Chunk();
+			for (int variant = from; variant < to; variant++) {
+				accumulator.addVariant(variants, variant, 1);
+				chunk.offsets.add(chunk.slots.size());
+				IntArrayList touchedSlots = accumulator.getTouchedSlots();
+				for (int i = 0; i < touchedSlots.size(); i++) {
+					int slot = touchedSlots.get(i);
+					long count = scratch.get(slot);
+					if (count != 0) {
+						chunk.slots.add(slot);
+						chunk.counts.add((int) count);
+					}
+				}
+				chunk.logMoveOffsets.add(chunk.logMovePlaces.size());
+				chunk.logMovePlaces.addAll(accumulator.getTrackedLogMovePlaces());
+				chunk.logMoveClasses.addAll(accumulator.getTrackedLogMoveClasses());
+				accumulator.resetTracked();
+			}
+			return new ChunkOutput(chunk);
+		}
+
+		protected RangeInput<Chunk> createRange(int from, int to) {
+			return new ChunkInput(netIndex, initialMarking, variants, from, to);
+		}
+	}
+
+	private static final class ChunkOutput implements Output<Chunk> {
+
+		private final Chunk chunk;
+
+		private ChunkOutput(Chunk chunk) {
+			this.chunk = chunk;
+		}
+
+		public Output<Chunk> reduce(Output<Chunk> other) {
+			chunk.append(other.getResult());
+			return this;
+		}
+
+		public Chunk getResult() {
+			return chunk;
+		}
+	}
+
+	private final class SumInput extends RangeInput<StatisticsStore> {
+
+		private final int[] variantCounts;
+
+		private SumInput(int[] variantCounts, int from, int to) {
+			super(from, to);
+			this.variantCounts = variantCounts;
+		}
+
+		protected Output<StatisticsStore> computeRange(int from, int to) {
+			StatisticsStore store = new StatisticsStore(netIndex);
+			for (int variant = from; variant < to; variant++) {
+				if (variantCounts[variant] != 0) {
+					addVariantTo(store, variant, variantCounts[variant]);
+				}
+			}
+			return new SumOutput(store);
+		}
+
+		protected RangeInput<StatisticsStore> createRange(int from, int to) {
+			return new SumInput(variantCounts, from, to);
+		}
+	}
+
+	private static final class SumOutput implements Output<StatisticsStore> {
+
+		private final StatisticsStore store;
+
+		private SumOutput(StatisticsStore store) {
+			this.store = store;
+		}
+
+		public Output<StatisticsStore> reduce(Output<StatisticsStore> other) {
+			store.add(other.getResult());
+			return this;
+		}
+
+		public StatisticsStore getResult() {
+			return store;
+		}
+	}
+
+	private final NetIndex netIndex;
+	private final CompactAlignedLog log;
+	private final VariantIndex variants;
+	private final int[] initialMarking;
+
+	private final int[] offsets;
+	private final int[] slots;
+	private final int[] counts;
+
+	private final int[] logMoveOffsets;
+	private final int[] logMovePlaces;
+	private final int[] logMoveClasses;
+	private final String[] eventClasses;
+
+	public AlignmentContributions(DataPetriNetsWithMarkings net, VariantIndex variants, ForkJoinPool pool) {
+		super();
+		this.log = variants.getLog();
+		this.netIndex = log.getNetIndex();
+		this.variants = variants;
+		this.initialMarking = netIndex.encodeMarking(net.getInitialMarking());
+
+		Chunk chunk = new MapReduce<Chunk>(pool)
+				.execute(new ChunkInput(netIndex, initialMarking, variants, 0, variants.size()));
+
+		chunk.offsets.add(chunk.slots.size());
+		this.offsets = chunk.offsets.toArray();
+		this.slots = chunk.slots.toArray();
+		this.counts = chunk.counts.toArray();
+
+		chunk.logMoveOffsets.add(chunk.logMovePlaces.size());
+		this.logMoveOffsets = chunk.logMoveOffsets.toArray();
+		this.logMovePlaces = chunk.logMovePlaces.toArray();
+		this.logMoveClasses = new int[chunk.logMoveClasses.size()];
+		Map<String, Integer> dictionary = new HashMap<>();
+		List<String> classes = new ArrayList<>();
+		for (int i = 0; i < logMoveClasses.length; i++) {
+			String eventClass = chunk.logMoveClasses.get(i);
+			Integer id = dictionary.get(eventClass);
+			if (id == null) {
+				id = classes.size();
+				dictionary.put(eventClass, id);
+				classes.add(eventClass);
+			}
+			logMoveClasses[i] = id;
+		}
+		this.eventClasses = classes.toArray(new String[classes.size()]);
+	}
+
+	/**
+	 * @param alignedLog
+	 * @param initialMarking
+	 * @return whether the contributions have been computed for this aligned
+	 *         log and initial marking
+	 */
+	public boolean isValidFor(XAlignedLog alignedLog, Marking initialMarking) {
+		return log.isDecodedFrom(alignedLog) && Arrays.equals(this.initialMarking, netIndex.encodeMarking(initialMarking));
+	}
+
+	public NetIndex getNetIndex() {
+		return netIndex;
+	}
+
+	public CompactAlignedLog getLog() {
+		return log;
+	}
+
+	public VariantIndex getVariants() {
+		return variants;
+	}
+
+	public int size() {
+		return log.size();
+	}
+
+	/**
+	 * @param alignment
+	 * @return the trace id of the alignment or -1 if it is not part of the
+	 *         aligned log
+	 */
+	public int getTraceId(XAlignment alignment) {
+		return log.getTraceId(alignment);
+	}
+
+	/**
+	 * Adds the contribution of one alignment to the store.
+	 *
+	 * @param store
+	 * @param traceId
+	 * @param weight
+	 *            +1 to add, -1 to subtract the contribution
+	 */
+	public void addTo(StatisticsStore store, int traceId, int weight) {
+		addVariantTo(store, variants.getVariant(traceId), weight);
+		store.addFitness(log.getFitness(traceId), weight);
+	}
+
+	/**
+	 * Adds the contribution of the moves of a variant multiplied by count to
+	 * the store. The fitness is not added.
+	 *
+	 * @param store
+	 * @param variant
+	 * @param count
+	 *            number of alignments of the variant, negative to subtract
+	 */
+	public void addVariantTo(StatisticsStore store, int variant, int count) {
+		for (int i = offsets[variant]; i < offsets[variant + 1]; i++) {
+			store.inc(slots[i], (long) counts[i] * count);
+		}
+		for (int i = logMoveOffsets[variant]; i < logMoveOffsets[variant + 1]; i++) {
+			store.addLogMove(logMovePlaces[i], eventClasses[logMoveClasses[i]], count);
+		}
+	}
+
+	/**
+	 * Sums up the contributions of the alignments.
+	 *
+	 * @param alignments
+	 *            part of the aligned log
+	 * @param pool
+	 * @return the same result as replaying the alignments
+	 */
+	public AlignmentInformation sum(List<XAlignment> alignments, ForkJoinPool pool) {
+		int[] variantCounts = new int[variants.size()];
+		double fitnessSum = 0;
+		for (XAlignment alignment : alignments) {
+			int traceId = log.requireTraceId(alignment);
+			variantCounts[variants.getVariant(traceId)]++;
+			fitnessSum += log.getFitness(traceId);
+		}
+		StatisticsStore store = new MapReduce<StatisticsStore>(pool)
+				.execute(new SumInput(variantCounts, 0, variantCounts.length));
+		store.addFitnessSum(fitnessSum, alignments.size());
+		return new AlignmentInformation(netIndex, store);
+	}
+
+	/**
+	 * Adds the contributions of the added alignments and subtracts those of the
+	 * removed alignments from the previous result.
+	 *
+	 * @param previous
+	 *            computed for alignments of the same aligned log
+	 * @param added
+	 * @param removed
+	 * @return updated statistics, previous is not changed
+	 */
+	public AlignmentInformation update(AlignmentInformation previous, Iterable<XAlignment> added,
+			Iterable<XAlignment> removed) {
+		StatisticsStore store = new StatisticsStore(previous.getStore());
+		int[] variantDeltas = new int[variants.size()];
+		boolean[] isChanged = new boolean[variants.size()];
+		IntArrayList changedVariants = new IntArrayList();
+		for (XAlignment alignment : added) {
+			int traceId = log.requireTraceId(alignment);
+			changeVariant(variantDeltas, isChanged, changedVariants, variants.getVariant(traceId), 1);
+			store.addFitness(log.getFitness(traceId), 1);
+		}
+		for (XAlignment alignment : removed) {
+			int traceId = log.requireTraceId(alignment);
+			changeVariant(variantDeltas, isChanged, changedVariants, variants.getVariant(traceId), -1);
+			store.addFitness(log.getFitness(traceId), -1);
+		}
+		for (int i = 0; i < changedVariants.size(); i++) {
+			int variant = changedVariants.get(i);
+			if (variantDeltas[variant] != 0) {
+				addVariantTo(store, variant, variantDeltas[variant]);
+			}
+		}
+		return new AlignmentInformation(netIndex, store);
+	}
+
+	private static void changeVariant(int[] variantDeltas, boolean[] isChanged, IntArrayList changedVariants,
+			int variant, int delta) {
+		if (!isChanged[variant]) {
+			isChanged[variant] = true;
+			changedVariants.add(variant);
+		}
+		variantDeltas[variant] += delta;
+	}
+
+}
@@ -0,0 +1,543 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.util.XAttributeUtils;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+
+/**
+ * Inverted index over the trace and event attributes of a log, used to answer
+ * filter queries without iterating over all traces. Literal, boolean and id
+ * attributes are dictionary-coded and each value maps to the sorted positions
+ * of the traces containing it. Numeric attributes are stored as a column of
+ * values sorted together with the trace positions, so range predicates are
+ * resolved by binary search. Like the query language, a trace matches a
+ * predicate if the trace itself or any of its events has a matching attribute.
+ * <p>
+ * Only the documented subset of the query syntax is evaluated on the index:
+ * names (optionally prefixed by '%' or '~'), comparisons 'key OP value' with
+ * the operators =, !=, &gt;, &lt;, &gt;=, &lt;=, % and ~, connected with AND,
+ * OR and parens. For any other query {@link #filter(String)} returns
+ * <code>null</code> and the caller has to fall back to a full scan.
+ */
+public final class AttributeIndex {
+
+	/**
+	 * Thrown while evaluating a query that cannot be answered by the index.
+	 */
+	private static final class UnsupportedQueryException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	private static final class LiteralColumn {
+
+		private final Map<String, IntArrayList> postings = new HashMap<>();
+
+		private void add(String value, int trace) {
+			IntArrayList traces = postings.get(value);
+			if (traces == null) {
+				traces = new IntArrayList(4);
+				postings.put(value, traces);
+			}
+			// Traces are added in order, so duplicates are always adjacent
+			if (traces.isEmpty() || traces.get(traces.size() - 1) != trace) {
+				traces.add(trace);
+			}
+		}
+
+	}
+
+	private static final class NumericColumn {
+
+		// Values and trace positions of all occurrences, sorted by value once sealed
+		private double[] values = new double[8];
+		private int[] traces = new int[8];
+		private int size;
+
+		private void add(double value, int trace) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+				traces = Arrays.copyOf(traces, size * 2);
+			}
+			values[size] = value;
+			traces[size] = trace;
+			size++;
+		}
+
+		private void seal() {
+			values = Arrays.copyOf(values, size);
+			traces = Arrays.copyOf(traces, size);
+			sort(values, traces, new double[size], new int[size], 0, size);
+		}
+
+		/**
+		 * Stable merge sort of the values from (inclusive) to (exclusive),
+		 * which moves the trace at the same position along with each value.
+		 */
+		private static void sort(double[] values, int[] traces, double[] valueBuffer, int[] traceBuffer, int from,
+				int to) {
+			if (to - from < 2) {
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			sort(values, traces, valueBuffer, traceBuffer, from, middle);
+			sort(values, traces, valueBuffer, traceBuffer, middle, to);
+			if (Double.compare(values[middle - 1], values[middle]) <= 0) {
+				// Already in order
+				return;
+			}
+			System.arraycopy(values, from, valueBuffer, from, to - from);
+			System.arraycopy(traces, from, traceBuffer, from, to - from);
+			int left = from;
+			int right = middle;
+			for (int i = from; i < to; i++) {
+				if (right >= to || (left < middle && Double.compare(valueBuffer[left], valueBuffer[right]) <= 0)) {
+					values[i] = valueBuffer[left];
+					traces[i] = traceBuffer[left++];
+				} else {
+					values[i] = valueBuffer[right];
+					traces[i] = traceBuffer[right++];
+				}
+			}
+		}
+
+		/**
+		 * @return first position with a value not smaller (inclusive) or
+		 *         greater (exclusive) than the value
+		 */
+		private int lowerBound(double value, boolean inclusive) {
+			int low = 0;
+			int high = values.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (values[middle] < value || (!inclusive && values[middle] == value)) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		private void select(int from, int to, BitSet result) {
+			for (int i = from; i < to; i++) {
+				result.set(traces[i]);
+			}
+		}
+
+	}
+
+	private enum TokenType {
+		WORD, QUOTED, OPERATOR, OPEN, CLOSE
+	}
+
+	private static final class Token {
+
+		private final TokenType type;
+		private final String text;
+
+		private Token(TokenType type, String text) {
+			this.type = type;
+			this.text = text;
+		}
+
+	}
+
+	private final XLog log;
+	private final XTrace[] traces;
+
+	private final Map<String, LiteralColumn> literalColumns = new HashMap<>();
+	private final Map<String, NumericColumn> numericColumns = new HashMap<>();
+	private final Set<String> unindexedKeys = new HashSet<>();
+	private final Map<String, Class<? extends XAttribute>> attributeTypes = new HashMap<>();
+
+	private final AttributeTypeCatalog typeCatalog;
+
+	public AttributeIndex(XLog log) {
+		super();
+		this.log = log;
+		this.traces = log.toArray(new XTrace[log.size()]);
+		for (int i = 0; i < traces.length; i++) {
+			XTrace trace = traces[i];
+			addAttributes(trace.getAttributes().values(), i);
+			for (XEvent event : trace) {
+				addAttributes(event.getAttributes().values(), i);
+			}
+		}
+		for (NumericColumn column : numericColumns.values()) {
+			column.seal();
+		}
+		this.typeCatalog = new AttributeTypeCatalog(attributeTypes);
+	}
+
+	private void addAttributes(Iterable<XAttribute> attributes, int trace) {
+		for (XAttribute attribute : attributes) {
+			String key = attribute.getKey();
+			if (!attributeTypes.containsKey(key)) {
+				// Same as the first attribute found by a search through the log
+				attributeTypes.put(key, XAttributeUtils.getType(attribute));
+			}
+			if (attribute instanceof XAttributeDiscrete) {
+				getNumericColumn(key).add(((XAttributeDiscrete) attribute).getValue(), trace);
+			} else if (attribute instanceof XAttributeContinuous) {
+				getNumericColumn(key).add(((XAttributeContinuous) attribute).getValue(), trace);
+			} else if (attribute instanceof XAttributeLiteral || attribute instanceof XAttributeBoolean
+					|| attribute instanceof XAttributeID) {
+				getLiteralColumn(key).add(attribute.toString(), trace);
+			} else {
+				// Timestamps and lists are not indexed, queries on them use the full scan
+				unindexedKeys.add(key);
+			}
+		}
+	}
+
+	private LiteralColumn getLiteralColumn(String key) {
+		LiteralColumn column = literalColumns.get(key);
+		if (column == null) {
+			column = new LiteralColumn();
+			literalColumns.put(key, column);
+		}
+		return column;
+	}
+
+	private NumericColumn getNumericColumn(String key) {
+		NumericColumn column = numericColumns.get(key);
+		if (column == null) {
+			column = new NumericColumn();
+			numericColumns.put(key, column);
+		}
+		return column;
+	}
+
+	/**
+	 * @param log
+	 * @return whether this index has been built for exactly this log
+	 */
+	public boolean isBuiltFor(XLog log) {
+		return this.log == log;
+	}
+
+	/**
+	 * @return the types of all attributes of the log, to be used when the
+	 *         query has to be evaluated by a full scan
+	 */
+	public AttributeTypeCatalog getTypeCatalog() {
+		return typeCatalog;
+	}
+
+	/**
+	 * @param query
+	 * @return the traces matching the query in the order of the log or
+	 *         <code>null</code> if the query cannot be answered by the index
+	 */
+	public List<XTrace> filter(String query) {
+		BitSet selected = select(query);
+		if (selected == null) {
+			return null;
+		}
+		List<XTrace> result = new ArrayList<>(selected.cardinality());
+		for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+			result.add(traces[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * @param query
+	 * @return the positions of the traces matching the query or
+	 *         <code>null</code> if the query cannot be answered by the index
+	 */
+	public BitSet select(String query) {
+		try {
+			List<Token> tokens = tokenize(query);
+			int[] position = new int[1];
+			BitSet result = parseOr(tokens, position);
+			if (position[0] != tokens.size()) {
+				throw new UnsupportedQueryException();
+			}
+			return result;
+		} catch (UnsupportedQueryException e) {
+			return null;
+		}
+	}
+
+	private static List<Token> tokenize(String query) throws UnsupportedQueryException {
+		List<Token> tokens = new ArrayList<>();
+		int i = 0;
+		while (i < query.length()) {
+			char c = query.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '(') {
+				tokens.add(new Token(TokenType.OPEN, "("));
+				i++;
+			} else if (c == ')') {
+				tokens.add(new Token(TokenType.CLOSE, ")"));
+				i++;
+			} else if (c == '"') {
+				int end = query.indexOf('"', i + 1);
+				if (end == -1) {
+					throw new UnsupportedQueryException();
+				}
+				String text = query.substring(i + 1, end);
+				if (text.indexOf('\\') != -1) {
+					throw new UnsupportedQueryException();
+				}
+				tokens.add(new Token(TokenType.QUOTED, text));
+				i = end + 1;
+			} else if (c == '!' || c == '>' || c == '<') {
+				if (i + 1 < query.length() && query.charAt(i + 1) == '=') {
+					tokens.add(new Token(TokenType.OPERATOR, query.substring(i, i + 2)));
+					i += 2;
+				} else if (c == '!') {
+					throw new UnsupportedQueryException();
+				} else {
+					tokens.add(new Token(TokenType.OPERATOR, String.valueOf(c)));
+					i++;
+				}
+			} else if (c == '=' || c == '%' || c == '~') {
+				if (c == '=' && i + 1 < query.length() && query.charAt(i + 1) == '=') {
+					throw new UnsupportedQueryException();
+				}
+				tokens.add(new Token(TokenType.OPERATOR, String.valueOf(c)));
+				i++;
+			} else if (c == '\'') {
+				// Event qualified attributes are not supported
+				throw new UnsupportedQueryException();
+			} else {
+				int start = i;
+				while (i < query.length() && !isDelimiter(query.charAt(i))) {
+					i++;
+				}
+				tokens.add(new Token(TokenType.WORD, query.substring(start, i)));
+			}
+		}
+		return tokens;
+	}
+
+	private static boolean isDelimiter(char c) {
+		return Character.isWhitespace(c) || "()\"'!<>=%~".indexOf(c) != -1;
+	}
+
+	private static boolean isKeyword(Token token, String keyword) {
+		return token.type == TokenType.WORD && token.text.equals(keyword);
+	}
+
+	private static Token next(List<Token> tokens, int[] position) throws UnsupportedQueryException {
+		if (position[0] >= tokens.size()) {
+			throw new UnsupportedQueryException();
+		}
+		return tokens.get(position[0]++);
+	}
+
+	private BitSet parseOr(List<Token> tokens, int[] position) throws UnsupportedQueryException {
+		BitSet result = parseAnd(tokens, position);
+		while (position[0] < tokens.size() && isKeyword(tokens.get(position[0]), "OR")) {
+			position[0]++;
+			result.or(parseAnd(tokens, position));
+		}
+		return result;
+	}
+
+	private BitSet parseAnd(List<Token> tokens, int[] position) throws UnsupportedQueryException {
+		BitSet result = parseTerm(tokens, position);
+		while (position[0] < tokens.size() && isKeyword(tokens.get(position[0]), "AND")) {
+			position[0]++;
+			result.and(parseTerm(tokens, position));
+		}
+		return result;
+	}
+
+	private BitSet parseTerm(List<Token> tokens, int[] position) throws UnsupportedQueryException {
+		Token token = next(tokens, position);
+		switch (token.type) {
+			case OPEN :
+				BitSet result = parseOr(tokens, position);
+				if (next(tokens, position).type != TokenType.CLOSE) {
+					throw new UnsupportedQueryException();
+				}
+				return result;
+			case OPERATOR :
+				// Name with '%' or '~' prefix
+				if (token.text.equals("%") || token.text.equals("~")) {
+					return selectLiteral(XConceptExtension.KEY_NAME, token.text, parseValue(tokens, position));
+				}
+				throw new UnsupportedQueryException();
+			case WORD :
+				checkNoKeyword(token);
+				return parseNameOrComparison(token, tokens, position);
+			case QUOTED :
+				return parseNameOrComparison(token, tokens, position);
+			case CLOSE :
+			default :
+				throw new UnsupportedQueryException();
+		}
+	}
+
+	private BitSet parseNameOrComparison(Token token, List<Token> tokens, int[] position)
+			throws UnsupportedQueryException {
+		if (position[0] < tokens.size() && tokens.get(position[0]).type == TokenType.OPERATOR) {
+			String operator = next(tokens, position).text;
+			return selectAttribute(token.text, operator, parseValue(tokens, position));
+		}
+		return selectLiteral(XConceptExtension.KEY_NAME, "=", token.text);
+	}
+
+	private static void checkNoKeyword(Token token) throws UnsupportedQueryException {
+		String text = token.text;
+		if (text.equalsIgnoreCase("AND") || text.equalsIgnoreCase("OR") || text.equalsIgnoreCase("NOT")
+				|| text.indexOf('.') != -1 && !isNumber(text)) {
+			// Keywords in other positions or spelling and event qualified attributes
+			throw new UnsupportedQueryException();
+		}
+	}
+
+	private static String parseValue(List<Token> tokens, int[] position) throws UnsupportedQueryException {
+		Token token = next(tokens, position);
+		if (token.type == TokenType.QUOTED) {
+			return token.text;
+		} else if (token.type == TokenType.WORD) {
+			if (token.text.equalsIgnoreCase("AND") || token.text.equalsIgnoreCase("OR")) {
+				throw new UnsupportedQueryException();
+			}
+			return token.text;
+		}
+		throw new UnsupportedQueryException();
+	}
+
+	private static boolean isNumber(String text) {
+		try {
+			Double.parseDouble(text);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private BitSet selectAttribute(String key, String operator, String value) throws UnsupportedQueryException {
+		boolean isLiteral = literalColumns.containsKey(key);
+		boolean isNumeric = numericColumns.containsKey(key);
+		if (unindexedKeys.contains(key) || (isLiteral && isNumeric)) {
+			// Mixed types are resolved differently by the full scan
+			throw new UnsupportedQueryException();
+		} else if (isNumeric) {
+			return selectNumeric(key, operator, value);
+		} else if (isLiteral) {
+			return selectLiteral(key, operator, value);
+		}
+		// No trace has the attribute
+		return new BitSet(traces.length);
+	}
+
+	private BitSet selectLiteral(String key, String operator, String value) throws UnsupportedQueryException {
+		BitSet result = new BitSet(traces.length);
+		if (unindexedKeys.contains(key) || numericColumns.containsKey(key)) {
+			throw new UnsupportedQueryException();
+		}
+		LiteralColumn column = literalColumns.get(key);
+		if (column == null) {
+			// No trace has the attribute
+			return result;
+		}
+		switch (operator) {
+			case "=" :
+				addPostings(column.postings.get(value), result);
+				return result;
+			case "!=" :
+				for (Entry<String, IntArrayList> entry : column.postings.entrySet()) {
+					if (!entry.getKey().equals(value)) {
+						addPostings(entry.getValue(), result);
+					}
+				}
+				return result;
+			case "%" :
+				for (Entry<String, IntArrayList> entry : column.postings.entrySet()) {
+					if (entry.getKey().contains(value)) {
+						addPostings(entry.getValue(), result);
+					}
+				}
+				return result;
+			case "~" :
+				Pattern pattern;
+				try {
+					pattern = Pattern.compile(value);
+				} catch (PatternSyntaxException e) {
+					// Let the full scan report the error
+					throw new UnsupportedQueryException();
+				}
+				for (Entry<String, IntArrayList> entry : column.postings.entrySet()) {
+					if (pattern.matcher(entry.getKey()).matches()) {
+						addPostings(entry.getValue(), result);
+					}
+				}
+				return result;
+			default :
+				// Ordering of literals is left to the full scan
+				throw new UnsupportedQueryException();
+		}
+	}
+
+	private static void addPostings(IntArrayList postings, BitSet result) {
+		if (postings != null) {
+			for (int i = 0; i < postings.size(); i++) {
+				result.set(postings.get(i));
+			}
+		}
+	}
+
+	private BitSet selectNumeric(String key, String operator, String value) throws UnsupportedQueryException {
+		if (!isNumber(value)) {
+			throw new UnsupportedQueryException();
+		}
+		double number = Double.parseDouble(value);
+		NumericColumn column = numericColumns.get(key);
+		int size = column.values.length;
+		BitSet result = new BitSet(traces.length);
+		switch (operator) {
+			case "=" :
+				column.select(column.lowerBound(number, true), column.lowerBound(number, false), result);
+				return result;
+			case "!=" :
+				column.select(0, column.lowerBound(number, true), result);
+				column.select(column.lowerBound(number, false), size, result);
+				return result;
+			case ">" :
+				column.select(column.lowerBound(number, false), size, result);
+				return result;
+			case ">=" :
+				column.select(column.lowerBound(number, true), size, result);
+				return result;
+			case "<" :
+				column.select(0, column.lowerBound(number, true), result);
+				return result;
+			case "<=" :
+				column.select(0, column.lowerBound(number, false), result);
+				return result;
+			default :
+				throw new UnsupportedQueryException();
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.Map;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.processmining.xeslite.query.AttributeTypeResolver;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * {@link AttributeTypeResolver} that answers from the attribute types of a log
+ * collected once, instead of searching the log for every attribute name of
+ * every query. For each key the catalog holds the type of the first attribute
+ * found when visiting the traces and their events in order, which is the type
+ * the search returned. A name that is not in the catalog is known to be absent
+ * and resolved to {@link XAttributeLiteral} right away, as the search would
+ * have done.
+ * <p>
+ * The catalog is collected while building the {@link AttributeIndex} and
+ * kept in memory with it for as long as the log is shown. It is not persisted
+ * with the log. The value types in the metadata of a log are not used, as they
+ * may differ from the first attribute found and not every value type maps to
+ * an attribute type. The catalog is immutable and can be shared between
+ * threads.
+ */
+public final class AttributeTypeCatalog implements AttributeTypeResolver {
+
+	private final Map<String, Class<? extends XAttribute>> types;
+
+	/**
+	 * @param types
+	 *            the type of the first attribute found for each key of the log
+	 */
+	public AttributeTypeCatalog(Map<String, Class<? extends XAttribute>> types) {
+		super();
+		this.types = ImmutableMap.copyOf(types);
+	}
+
+	public Class<? extends XAttribute> getAttributeType(String attributeName) {
+		Class<? extends XAttribute> type = types.get(attributeName);
+		if (type != null) {
+			return type;
+		}
+		return XAttributeLiteral.class;
+	}
+
+}
@@ -0,0 +1,28 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Checkpoints for the cooperative cancellation of long running updates. An
+ * update is cancelled by interrupting the thread it runs on. Computations
+ * call {@link #checkpoint()} between their passes, so that a superseded
+ * update stops at the next checkpoint instead of finishing work whose result
+ * is discarded anyway.
+ */
+public final class Cancellation {
+
+	private Cancellation() {
+	}
+
+	/**
+	 * @throws CancellationException
+	 *             if the current thread has been interrupted, the interrupt
+	 *             flag is kept
+	 */
+	public static void checkpoint() throws CancellationException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("Update was superseded");
+		}
+	}
+
+}
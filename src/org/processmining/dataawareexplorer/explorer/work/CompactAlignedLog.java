@@ -0,0 +1,654 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.dataawareexplorer.parallel.MapReduce;
+import org.processmining.dataawareexplorer.parallel.Output;
+import org.processmining.dataawareexplorer.parallel.RangeInput;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.dataawareexplorer.utils.LongArrayList;
+import org.processmining.log.utils.XUtils;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignmentMove;
+import org.processmining.xesalignmentextension.XDataAlignmentExtension;
+import org.processmining.xesalignmentextension.XDataAlignmentExtension.DataMoveType;
+import org.processmining.xesalignmentextension.XDataAlignmentExtension.XDataAlignmentExtensionException;
+
+/**
+ * Columnar copy of the moves of a list of alignments. All moves are decoded
+ * once from the XES attributes through the XAlignmentExtension and
+ * {@link XDataAlignmentExtension}, and stored in flat arrays: move type, data
+ * move type, transition index of the {@link NetIndex}, observability, event
+ * class and timestamp per move, as well as the key, value, log value and
+ * status of every attribute of a move. Attribute keys, attribute values and
+ * event classes are dictionary encoded.
+ * <p>
+ * A trace is identified by its position in the list of alignments (the trace
+ * id). The moves of a trace are the moves from {@link #getMoveStart(int)}
+ * (inclusive) to {@link #getMoveEnd(int)} (exclusive), the attributes of a
+ * move those from {@link #getAttributeStart(int)} to
+ * {@link #getAttributeEnd(int)}. The log is immutable and can be shared
+ * between threads.
+ */
+public final class CompactAlignedLog {
+
+	/**
+	 * Data alignment status of an attribute of a move.
+	 */
+	public enum AttributeStatus {
+		/**
+		 * Attribute does not carry data alignment information
+		 */
+		NONE, //
+		CORRECT, //
+		INCORRECT, //
+		MISSING, //
+		/**
+		 * Data alignment information could not be read
+		 */
+		INVALID
+	}
+
+	public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	private static final int NO_VALUE = -1;
+
+	private static final MoveType[] MOVE_TYPES = MoveType.values();
+	private static final DataMoveType[] DATA_MOVE_TYPES = DataMoveType.values();
+	private static final AttributeStatus[] ATTRIBUTE_STATUS = AttributeStatus.values();
+
+	private static final class Dictionary {
+
+		private final Map<Object, Integer> ids = new HashMap<>();
+		private final List<Object> entries = new ArrayList<>();
+
+		private int encode(Object entry) {
+			Integer id = ids.get(entry);
+			if (id == null) {
+				id = entries.size();
+				ids.put(entry, id);
+				entries.add(entry);
+			}
+			return id;
+		}
+
+		/**
+		 * Adds all entries of the other dictionary.
+		 *
+		 * @param other
+		 * @return for each id of the other dictionary the id in this dictionary
+		 */
+		private int[] merge(Dictionary other) {
+			int[] mapping = new int[other.entries.size()];
+			for (int i = 0; i < mapping.length; i++) {
+				mapping[i] = encode(other.entries.get(i));
+			}
+			return mapping;
+		}
+
+	}
+
+	/**
+	 * Decoded moves of a consecutive range of alignments.
+	 */
+	private static final class Chunk {
+
+		private final Dictionary keys = new Dictionary();
+		private final Dictionary values = new Dictionary();
+		private final Dictionary eventClasses = new Dictionary();
+
+		private final List<String> traceNames = new ArrayList<>();
+		private final List<Double> fitness = new ArrayList<>();
+		private final IntArrayList traceAttributeOffsets = new IntArrayList();
+		private final IntArrayList traceAttributeKeys = new IntArrayList();
+		private final IntArrayList traceAttributeValues = new IntArrayList();
+
+		private final IntArrayList moveOffsets = new IntArrayList();
+		private final IntArrayList moveTypes = new IntArrayList();
+		private final IntArrayList dataMoveTypes = new IntArrayList();
+		private final IntArrayList transitions = new IntArrayList();
+		private final IntArrayList observable = new IntArrayList();
+		private final IntArrayList eventClassIds = new IntArrayList();
+		private final LongArrayList timestamps = new LongArrayList();
+
+		private final IntArrayList attributeOffsets = new IntArrayList();
+		private final IntArrayList attributeKeys = new IntArrayList();
+		private final IntArrayList attributeValues = new IntArrayList();
+		private final IntArrayList attributeLogValues = new IntArrayList();
+		private final IntArrayList attributeStatus = new IntArrayList();
+
+		private void addAlignment(NetIndex netIndex, XAlignment alignment) {
+			traceNames.add(alignment.getName());
+			fitness.add(alignment.getFitness());
+			traceAttributeOffsets.add(traceAttributeKeys.size());
+			for (XAttribute a : alignment.getTrace().getAttributes().values()) {
+				traceAttributeKeys.add(keys.encode(a.getKey()));
+				traceAttributeValues.add(values.encode(XUtils.getAttributeValue(a)));
+			}
+			moveOffsets.add(moveTypes.size());
+			for (XAlignmentMove move : alignment) {
+				addMove(netIndex, move);
+			}
+		}
+
+		private void addMove(NetIndex netIndex, XAlignmentMove move) {
+			XDataAlignmentExtension alignmentExtension = XDataAlignmentExtension.instance();
+			XEvent event = move.getEvent();
+
+			MoveType moveType = move.getType();
+			if (moveType == null) {
+				throw new RuntimeException("Could to read alignment:moveType from move "
+						+ XUtils.stringifyEvent(event) + "! Alignment is corrupted!");
+			}
+
+			int transition = NO_VALUE;
+			int dataMoveType = NO_VALUE;
+			boolean isObservable = true;
+			if (moveType != MoveType.LOG) {
+				transition = netIndex.indexOfLocalId(move.getActivityId());
+				if (transition == NO_VALUE) {
+					throw new RuntimeException("Unknown transition " + move.getActivityId()
+							+ " in alignment! Alignment does not belong to the model!");
+				}
+				DataMoveType type = alignmentExtension.extractDataMoveType(event);
+				if (type != null) {
+					dataMoveType = type.ordinal();
+				} else if (moveType == MoveType.SYNCHRONOUS) {
+					throw new RuntimeException("Could to read dataalignment:dataMoveType from move "
+							+ XUtils.stringifyEvent(event) + "! Alignment is corrupted!");
+				}
+				isObservable = move.isObservable();
+			}
+
+			moveTypes.add(moveType.ordinal());
+			dataMoveTypes.add(dataMoveType);
+			transitions.add(transition);
+			observable.add(isObservable ? 1 : 0);
+
+			String eventClassId = move.getEventClassId();
+			eventClassIds.add(eventClassId != null ? eventClasses.encode(eventClassId) : NO_VALUE);
+
+			timestamps.add(extractTimestamp(event));
+
+			attributeOffsets.add(attributeKeys.size());
+			for (XAttribute a : event.getAttributes().values()) {
+				attributeKeys.add(keys.encode(a.getKey()));
+				attributeValues.add(values.encode(XUtils.getAttributeValue(a)));
+				XAttribute logValue = alignmentExtension.extractLogValue(a);
+				attributeLogValues
+						.add(logValue != null ? values.encode(XUtils.getAttributeValue(logValue)) : NO_VALUE);
+				attributeStatus.add(decodeStatus(alignmentExtension, a).ordinal());
+			}
+		}
+
+		private void append(Chunk other) {
+			int[] keyMapping = keys.merge(other.keys);
+			int[] valueMapping = values.merge(other.values);
+			int[] eventClassMapping = eventClasses.merge(other.eventClasses);
+
+			traceNames.addAll(other.traceNames);
+			fitness.addAll(other.fitness);
+			int traceAttributeBase = traceAttributeKeys.size();
+			for (int i = 0; i < other.traceAttributeOffsets.size(); i++) {
+				traceAttributeOffsets.add(traceAttributeBase + other.traceAttributeOffsets.get(i));
+			}
+			appendMapped(traceAttributeKeys, other.traceAttributeKeys, keyMapping);
+			appendMapped(traceAttributeValues, other.traceAttributeValues, valueMapping);
+
+			int moveBase = moveTypes.size();
+			for (int i = 0; i < other.moveOffsets.size(); i++) {
+				moveOffsets.add(moveBase + other.moveOffsets.get(i));
+			}
+			moveTypes.addAll(other.moveTypes);
+			dataMoveTypes.addAll(other.dataMoveTypes);
+			transitions.addAll(other.transitions);
+			observable.addAll(other.observable);
+			appendMapped(eventClassIds, other.eventClassIds, eventClassMapping);
+			timestamps.addAll(other.timestamps);
+
+			int attributeBase = attributeKeys.size();
+			for (int i = 0; i < other.attributeOffsets.size(); i++) {
+				attributeOffsets.add(attributeBase + other.attributeOffsets.get(i));
+			}
+			appendMapped(attributeKeys, other.attributeKeys, keyMapping);
+			appendMapped(attributeValues, other.attributeValues, valueMapping);
+			appendMapped(attributeLogValues, other.attributeLogValues, valueMapping);
+			attributeStatus.addAll(other.attributeStatus);
+		}
+
+		private static void appendMapped(IntArrayList target, IntArrayList source, int[] mapping) {
+			for (int i = 0; i < source.size(); i++) {
+				int id = source.get(i);
+				target.add(id != NO_VALUE ? mapping[id] : NO_VALUE);
+			}
+		}
+
+	}
+
+	private static final class ChunkInput extends RangeInput<Chunk> {
+
+		private final NetIndex netIndex;
+		private final List<XAlignment> alignments;
+
+		private ChunkInput(NetIndex netIndex, List<XAlignment> alignments, int from, int to) {
+			super(from, to);
+			this.netIndex = netIndex;
+			this.alignments = alignments;
+		}
+
+		protected Output<Chunk> computeRange(int from, int to) {
+			Chunk chunk = new Chunk();
+			for (XAlignment alignment : alignments.subList(from, to)) {
+				chunk.addAlignment(netIndex, alignment);
+			}
+			return new ChunkOutput(chunk);
+		}
+
+		protected RangeInput<Chunk> createRange(int from, int to) {
+			return new ChunkInput(netIndex, alignments, from, to);
+		}
+	}
+
+	private static final class ChunkOutput implements Output<Chunk> {
+
+		private final Chunk chunk;
+
+		private ChunkOutput(Chunk chunk) {
+			this.chunk = chunk;
+		}
+
+		public Output<Chunk> reduce(Output<Chunk> other) {
+			chunk.append(other.getResult());
+			return this;
+		}
+
+		public Chunk getResult() {
+			return chunk;
+		}
+	}
+
+	private final NetIndex netIndex;
+	private final List<XAlignment> alignments;
+	private final Map<XTrace, Integer> traceIds;
+
+	private final String[] keys;
+	private final Map<String, Integer> keyIndex;
+	private final Object[] values;
+	private final String[] eventClasses;
+	private final int[] variableKeys;
+
+	private final String[] traceNames;
+	private final double[] fitness;
+	private final int[] traceAttributeOffsets;
+	private final int[] traceAttributeKeys;
+	private final int[] traceAttributeValues;
+
+	private final int[] moveOffsets;
+	private final byte[] moveTypes;
+	private final byte[] dataMoveTypes;
+	private final int[] transitions;
+	private final boolean[] observable;
+	private final int[] eventClassIds;
+	private final long[] timestamps;
+	// Timestamp of the first synchronous move with a timestamp by trace
+	private final long[] firstTimestamps;
+
+	private final int[] attributeOffsets;
+	private final int[] attributeKeys;
+	private final int[] attributeValues;
+	private final int[] attributeLogValues;
+	private final byte[] attributeStatus;
+
+	/**
+	 * Decodes the alignments sequentially.
+	 *
+	 * @param netIndex
+	 * @param alignments
+	 */
+	public CompactAlignedLog(NetIndex netIndex, List<XAlignment> alignments) {
+		this(netIndex, alignments, new ChunkInput(netIndex, alignments, 0, alignments.size()).computeDirectly().getResult());
+	}
+
+	/**
+	 * Decodes the alignments in parallel on the supplied pool.
+	 *
+	 * @param netIndex
+	 * @param alignments
+	 * @param pool
+	 */
+	public CompactAlignedLog(NetIndex netIndex, List<XAlignment> alignments, ForkJoinPool pool) {
+		this(netIndex, alignments, new MapReduce<Chunk>(pool).execute(new ChunkInput(netIndex, alignments, 0, alignments.size())));
+	}
+
+	private CompactAlignedLog(NetIndex netIndex, List<XAlignment> alignments, Chunk chunk) {
+		super();
+		this.netIndex = netIndex;
+		this.alignments = alignments;
+
+		int size = chunk.traceNames.size();
+		this.traceIds = new IdentityHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			traceIds.put(alignments.get(i).getTrace(), i);
+		}
+
+		this.keys = chunk.keys.entries.toArray(new String[chunk.keys.entries.size()]);
+		this.keyIndex = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			keyIndex.put(keys[i], i);
+		}
+		this.values = chunk.values.entries.toArray();
+		this.eventClasses = chunk.eventClasses.entries.toArray(new String[chunk.eventClasses.entries.size()]);
+		this.variableKeys = new int[netIndex.getNumVariables()];
+		for (int i = 0; i < variableKeys.length; i++) {
+			variableKeys[i] = indexOfKey(netIndex.getVariableName(i));
+		}
+
+		this.traceNames = chunk.traceNames.toArray(new String[size]);
+		this.fitness = new double[size];
+		for (int i = 0; i < size; i++) {
+			fitness[i] = chunk.fitness.get(i);
+		}
+		chunk.traceAttributeOffsets.add(chunk.traceAttributeKeys.size());
+		this.traceAttributeOffsets = chunk.traceAttributeOffsets.toArray();
+		this.traceAttributeKeys = chunk.traceAttributeKeys.toArray();
+		this.traceAttributeValues = chunk.traceAttributeValues.toArray();
+
+		chunk.moveOffsets.add(chunk.moveTypes.size());
+		this.moveOffsets = chunk.moveOffsets.toArray();
+		int numMoves = chunk.moveTypes.size();
+		this.moveTypes = new byte[numMoves];
+		this.dataMoveTypes = new byte[numMoves];
+		this.observable = new boolean[numMoves];
+		for (int i = 0; i < numMoves; i++) {
+			moveTypes[i] = (byte) chunk.moveTypes.get(i);
+			dataMoveTypes[i] = (byte) chunk.dataMoveTypes.get(i);
+			observable[i] = chunk.observable.get(i) != 0;
+		}
+		this.transitions = chunk.transitions.toArray();
+		this.eventClassIds = chunk.eventClassIds.toArray();
+		this.timestamps = chunk.timestamps.toArray();
+		this.firstTimestamps = new long[size];
+		for (int i = 0; i < size; i++) {
+			firstTimestamps[i] = findFirstTimestamp(i);
+		}
+
+		chunk.attributeOffsets.add(chunk.attributeKeys.size());
+		this.attributeOffsets = chunk.attributeOffsets.toArray();
+		this.attributeKeys = chunk.attributeKeys.toArray();
+		this.attributeValues = chunk.attributeValues.toArray();
+		this.attributeLogValues = chunk.attributeLogValues.toArray();
+		this.attributeStatus = new byte[attributeKeys.length];
+		for (int i = 0; i < attributeStatus.length; i++) {
+			attributeStatus[i] = (byte) chunk.attributeStatus.get(i);
+		}
+	}
+
+	private long findFirstTimestamp(int traceId) {
+		for (int move = moveOffsets[traceId]; move < moveOffsets[traceId + 1]; move++) {
+			if (MOVE_TYPES[moveTypes[move]] == MoveType.SYNCHRONOUS && timestamps[move] != NO_TIMESTAMP) {
+				return timestamps[move];
+			}
+		}
+		return NO_TIMESTAMP;
+	}
+
+	/**
+	 * Reads the timestamp of the event without creating a {@link Date}.
+	 *
+	 * @param event
+	 * @return the timestamp in milliseconds or {@link #NO_TIMESTAMP}
+	 */
+	public static long extractTimestamp(XEvent event) {
+		XAttribute attribute = event.getAttributes().get(XTimeExtension.KEY_TIMESTAMP);
+		if (attribute instanceof XAttributeTimestamp) {
+			return ((XAttributeTimestamp) attribute).getValueMillis();
+		}
+		return NO_TIMESTAMP;
+	}
+
+	private static AttributeStatus decodeStatus(XDataAlignmentExtension alignmentExtension, XAttribute a) {
+		try {
+			if (alignmentExtension.isCorrectAttribute(a)) {
+				return AttributeStatus.CORRECT;
+			} else if (alignmentExtension.isMissingAttribute(a)) {
+				return AttributeStatus.MISSING;
+			} else if (alignmentExtension.isIncorrectAttribute(a)) {
+				return AttributeStatus.INCORRECT;
+			}
+			return AttributeStatus.NONE;
+		} catch (XDataAlignmentExtensionException e) {
+			return AttributeStatus.INVALID;
+		}
+	}
+
+	public NetIndex getNetIndex() {
+		return netIndex;
+	}
+
+	/**
+	 * @return the alignments this log was decoded from, indexed by trace id
+	 */
+	public List<XAlignment> getAlignments() {
+		return alignments;
+	}
+
+	/**
+	 * @param alignments
+	 * @return whether this log was decoded from exactly this list
+	 */
+	public boolean isDecodedFrom(List<XAlignment> alignments) {
+		return this.alignments == alignments;
+	}
+
+	public int size() {
+		return traceNames.length;
+	}
+
+	public int getNumMoves() {
+		return moveTypes.length;
+	}
+
+	/**
+	 * @param alignment
+	 * @return the trace id of the alignment or -1 if it is not part of the log
+	 */
+	public int getTraceId(XAlignment alignment) {
+		Integer id = traceIds.get(alignment.getTrace());
+		return id != null ? id : -1;
+	}
+
+	/**
+	 * @param alignment
+	 * @return the trace id of the alignment
+	 * @throws IllegalArgumentException
+	 *             if the alignment is not part of the log
+	 */
+	public int requireTraceId(XAlignment alignment) {
+		int id = getTraceId(alignment);
+		if (id == -1) {
+			throw new IllegalArgumentException("Alignment " + alignment.getName() + " is not part of the aligned log!");
+		}
+		return id;
+	}
+
+	public String getTraceName(int traceId) {
+		return traceNames[traceId];
+	}
+
+	public double getFitness(int traceId) {
+		return fitness[traceId];
+	}
+
+	/**
+	 * @param traceId
+	 * @param keyId
+	 * @return the value of the trace attribute or <code>null</code> if the
+	 *         trace has no such attribute
+	 */
+	public Object getTraceAttributeValue(int traceId, int keyId) {
+		for (int i = traceAttributeOffsets[traceId]; i < traceAttributeOffsets[traceId + 1]; i++) {
+			if (traceAttributeKeys[i] == keyId) {
+				return values[traceAttributeValues[i]];
+			}
+		}
+		return null;
+	}
+
+	public int getMoveStart(int traceId) {
+		return moveOffsets[traceId];
+	}
+
+	public int getMoveEnd(int traceId) {
+		return moveOffsets[traceId + 1];
+	}
+
+	public MoveType getMoveType(int move) {
+		return MOVE_TYPES[moveTypes[move]];
+	}
+
+	/**
+	 * @param move
+	 * @return the data move type or <code>null</code> for log moves and moves
+	 *         without data move type
+	 */
+	public DataMoveType getDataMoveType(int move) {
+		byte type = dataMoveTypes[move];
+		return type != NO_VALUE ? DATA_MOVE_TYPES[type] : null;
+	}
+
+	/**
+	 * @param move
+	 * @return the transition index in the {@link NetIndex} or -1 for log moves
+	 */
+	public int getTransition(int move) {
+		return transitions[move];
+	}
+
+	public boolean isObservable(int move) {
+		return observable[move];
+	}
+
+	/**
+	 * @param move
+	 * @return the event class id of the move or <code>null</code>
+	 */
+	public String getEventClass(int move) {
+		int id = eventClassIds[move];
+		return id != NO_VALUE ? eventClasses[id] : null;
+	}
+
+	/**
+	 * @param move
+	 * @return the timestamp in milliseconds or {@link #NO_TIMESTAMP}
+	 */
+	public long getTimestamp(int move) {
+		return timestamps[move];
+	}
+
+	/**
+	 * @param traceId
+	 * @return the timestamp of the first synchronous move of the trace with a
+	 *         timestamp in milliseconds or {@link #NO_TIMESTAMP}
+	 */
+	public long getFirstTimestamp(int traceId) {
+		return firstTimestamps[traceId];
+	}
+
+	int getEventClassId(int move) {
+		return eventClassIds[move];
+	}
+
+	public int getAttributeStart(int move) {
+		return attributeOffsets[move];
+	}
+
+	public int getAttributeEnd(int move) {
+		return attributeOffsets[move + 1];
+	}
+
+	/**
+	 * @param move
+	 * @param keyId
+	 * @return the position of the attribute of the move with this key or -1
+	 */
+	public int findAttribute(int move, int keyId) {
+		if (keyId != NO_VALUE) {
+			for (int i = attributeOffsets[move]; i < attributeOffsets[move + 1]; i++) {
+				if (attributeKeys[i] == keyId) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	public int getAttributeKey(int attribute) {
+		return attributeKeys[attribute];
+	}
+
+	public Object getAttributeValue(int attribute) {
+		return values[attributeValues[attribute]];
+	}
+
+	int getAttributeValueId(int attribute) {
+		return attributeValues[attribute];
+	}
+
+	int getAttributeLogValueId(int attribute) {
+		return attributeLogValues[attribute];
+	}
+
+	/**
+	 * @param attribute
+	 * @return the value recorded in the log for the attribute or
+	 *         <code>null</code> if there is none
+	 */
+	public Object getAttributeLogValue(int attribute) {
+		int id = attributeLogValues[attribute];
+		return id != NO_VALUE ? values[id] : null;
+	}
+
+	public AttributeStatus getAttributeStatus(int attribute) {
+		return ATTRIBUTE_STATUS[attributeStatus[attribute]];
+	}
+
+	public int getNumKeys() {
+		return keys.length;
+	}
+
+	public String getKey(int keyId) {
+		return keys[keyId];
+	}
+
+	/**
+	 * @param key
+	 * @return the id of the attribute key or -1 if no trace or move has an
+	 *         attribute with this key
+	 */
+	public int indexOfKey(String key) {
+		Integer id = keyIndex.get(key);
+		return id != null ? id : -1;
+	}
+
+	/**
+	 * @param variable
+	 *            index in the {@link NetIndex}
+	 * @return the id of the attribute key written for the variable or -1
+	 */
+	public int getVariableKey(int variable) {
+		return variableKeys[variable];
+	}
+
+}
@@ -0,0 +1,298 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog.AttributeStatus;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.datadiscovery.ProjectedEvent;
+import org.processmining.datadiscovery.ProjectedLog;
+import org.processmining.datadiscovery.ProjectedTrace;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Projection of the model moves of a {@link CompactAlignedLog} on the
+ * attributes written by their transitions, materialized once for a discovery
+ * run. Every event has one slot per attribute written by its transition, the
+ * values of all slots are stored in one flat array. Values are the decoded
+ * values of the {@link CompactAlignedLog}, so that no value is copied.
+ * Traces and events are returned as views on the arrays.
+ * <p>
+ * The log is immutable after its creation and can be iterated by multiple
+ * threads, e.g., by the discovery tasks of all decision points.
+ */
+public final class CompactProjectedLog implements ProjectedLog {
+
+	// Missing value that is reported to the discovery as null, i.e., as N/A
+	private static final Object NULL = new Object();
+
+	private final NetIndex netIndex;
+	private final Map<String, Object> initialValues;
+
+	// Attributes written by each transition by transition index, the slots of its events
+	private final String[][] slotKeys;
+	private final List<Set<String>> slotKeySets;
+
+	// Events of trace i are those from eventOffsets[i] to eventOffsets[i + 1]
+	private final int[] eventOffsets;
+	private final int[] eventTransitions;
+	// Slots of event i are those from valueOffsets[i], values are either NULL or null if absent
+	private final int[] valueOffsets;
+	private final Object[] values;
+	// Events that have a value (or NULL) for all of their slots
+	private final BitSet completeEvents;
+
+	private final class TraceView implements ProjectedTrace {
+
+		private final int trace;
+
+		private TraceView(int trace) {
+			this.trace = trace;
+		}
+
+		public Iterator<ProjectedEvent> iterator() {
+			return new Iterator<ProjectedEvent>() {
+
+				private int event = eventOffsets[trace];
+
+				public boolean hasNext() {
+					return event < eventOffsets[trace + 1];
+				}
+
+				public ProjectedEvent next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return new EventView(event++);
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		public Object getAttributeValue(String attributeName) {
+			return null;
+		}
+
+		public Set<String> getAttributes() {
+			return ImmutableSet.of();
+		}
+
+	}
+
+	private final class EventView implements ProjectedEvent {
+
+		private final int event;
+
+		private EventView(int event) {
+			this.event = event;
+		}
+
+		public Transition getActivity() {
+			return netIndex.getTransition(eventTransitions[event]);
+		}
+
+		public Set<String> getAttributes() {
+			int transition = eventTransitions[event];
+			if (completeEvents.get(event)) {
+				return slotKeySets.get(transition);
+			}
+			ImmutableSet.Builder<String> attributes = ImmutableSet.builder();
+			String[] keys = slotKeys[transition];
+			for (int i = 0; i < keys.length; i++) {
+				if (values[valueOffsets[event] + i] != null) {
+					attributes.add(keys[i]);
+				}
+			}
+			return attributes.build();
+		}
+
+		public Object getAttributeValue(String varName) {
+			String[] keys = slotKeys[eventTransitions[event]];
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i].equals(varName)) {
+					Object value = values[valueOffsets[event] + i];
+					return value != NULL ? value : null;
+				}
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * Projects the alignments on the written attributes.
+	 *
+	 * @param log
+	 *            the log the alignments are part of
+	 * @param alignments
+	 * @param writtenAttributes
+	 *            attributes for which each transition has a slot
+	 * @param isTreatMissingValuesAsNA
+	 *            whether attributes with a missing value are left out and
+	 *            attributes that are not written are reported as
+	 *            <code>null</code> (N/A)
+	 * @param initialValues
+	 */
+	public CompactProjectedLog(CompactAlignedLog log, Iterable<XAlignment> alignments,
+			SetMultimap<Transition, String> writtenAttributes, boolean isTreatMissingValuesAsNA,
+			Map<String, Object> initialValues) {
+		super();
+		this.netIndex = log.getNetIndex();
+		this.initialValues = initialValues;
+
+		int numTransitions = netIndex.getNumTransitions();
+		this.slotKeys = new String[numTransitions][];
+		this.slotKeySets = new ArrayList<>(numTransitions);
+		int[][] slotKeyIds = new int[numTransitions][];
+		for (int t = 0; t < numTransitions; t++) {
+			Set<String> keys = ImmutableSet.copyOf(writtenAttributes.get(netIndex.getTransition(t)));
+			slotKeySets.add(keys);
+			slotKeys[t] = keys.toArray(new String[keys.size()]);
+			slotKeyIds[t] = new int[slotKeys[t].length];
+			for (int i = 0; i < slotKeys[t].length; i++) {
+				slotKeyIds[t][i] = log.indexOfKey(slotKeys[t][i]);
+			}
+		}
+
+		IntArrayList eventOffsetList = new IntArrayList();
+		IntArrayList eventTransitionList = new IntArrayList();
+		IntArrayList valueOffsetList = new IntArrayList();
+		List<Object> valueList = new ArrayList<>();
+		BitSet completeEventSet = new BitSet();
+		for (XAlignment alignment : alignments) {
+			int traceId = log.requireTraceId(alignment);
+			eventOffsetList.add(eventTransitionList.size());
+			for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+				if (log.getMoveType(move) != MoveType.LOG) {
+					int transition = log.getTransition(move);
+					eventTransitionList.add(transition);
+					valueOffsetList.add(valueList.size());
+					boolean isEventComplete = true;
+					for (int keyId : slotKeyIds[transition]) {
+						Object value = projectValue(log, log.findAttribute(move, keyId), isTreatMissingValuesAsNA);
+						isEventComplete &= value != null;
+						valueList.add(value);
+					}
+					completeEventSet.set(eventTransitionList.size() - 1, isEventComplete);
+				}
+			}
+		}
+		eventOffsetList.add(eventTransitionList.size());
+
+		this.eventOffsets = eventOffsetList.toArray();
+		this.eventTransitions = eventTransitionList.toArray();
+		this.valueOffsets = valueOffsetList.toArray();
+		this.values = valueList.toArray();
+		this.completeEvents = completeEventSet;
+	}
+
+	private static Object projectValue(CompactAlignedLog log, int attribute, boolean isTreatMissingValuesAsNA) {
+		if (attribute == -1) {
+			// Not written results in N/A for the discovery
+			return isTreatMissingValuesAsNA ? NULL : null;
+		}
+		if (isTreatMissingValuesAsNA) {
+			AttributeStatus status = log.getAttributeStatus(attribute);
+			if (status == AttributeStatus.INVALID) {
+				throw new RuntimeException("Invalid alignment format!");
+			} else if (status == AttributeStatus.MISSING) {
+				// Missing values are left out
+				return null;
+			}
+		}
+		return log.getAttributeValue(attribute);
+	}
+
+	public Iterator<ProjectedTrace> iterator() {
+		return new Iterator<ProjectedTrace>() {
+
+			private int trace = 0;
+
+			public boolean hasNext() {
+				return trace < eventOffsets.length - 1;
+			}
+
+			public ProjectedTrace next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return new TraceView(trace++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public Set<String> getAttributes() {
+		return initialValues.keySet();
+	}
+
+	public Object getInitialValue(String attributeName) {
+		return initialValues.get(attributeName);
+	}
+
+	/**
+	 * @return number of traces
+	 */
+	public int size() {
+		return eventOffsets.length - 1;
+	}
+
+	/**
+	 * @param traces
+	 *            positions of the traces in the iteration order of this log
+	 * @return a view that contains only the given traces, e.g., of a
+	 *         {@link DiscoverySampling.Sample}
+	 */
+	public ProjectedLog select(final int[] traces) {
+		return new ProjectedLog() {
+
+			public Iterator<ProjectedTrace> iterator() {
+				return new Iterator<ProjectedTrace>() {
+
+					private int index = 0;
+
+					public boolean hasNext() {
+						return index < traces.length;
+					}
+
+					public ProjectedTrace next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						return new TraceView(traces[index++]);
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			public Set<String> getAttributes() {
+				return CompactProjectedLog.this.getAttributes();
+			}
+
+			public Object getInitialValue(String attributeName) {
+				return CompactProjectedLog.this.getInitialValue(attributeName);
+			}
+
+		};
+	}
+
+}
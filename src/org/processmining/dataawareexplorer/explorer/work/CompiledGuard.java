@@ -0,0 +1,142 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.Set;
+
+import org.processmining.datapetrinets.exception.EvaluatorException;
+import org.processmining.datapetrinets.exception.UnsupportedFunctionException;
+import org.processmining.datapetrinets.expression.GuardExpression;
+
+/**
+ * {@link GuardExpression} whose normal and prime variables have been resolved
+ * to the variable slots of a {@link NetIndex}. Checking whether all variables
+ * are available and looking up their values during evaluation then only uses
+ * the int slots and the values stored in a {@link VariableFrame}.
+ */
+public final class CompiledGuard {
+
+	private final GuardExpression expression;
+
+	private final String[] normalNames;
+	private final int[] normalSlots;
+
+	// Names including the prime suffix as passed to the VariableProvider
+	private final String[] primedNames;
+	private final int[] primeSlots;
+
+	// A variable that is not part of the net will never have a value
+	private final boolean evaluable;
+
+	private CompiledGuard(GuardExpression expression, NetIndex netIndex) {
+		this.expression = expression;
+		boolean allResolved = true;
+
+		Set<String> normalVariables = expression.getNormalVariables();
+		this.normalNames = new String[normalVariables.size()];
+		this.normalSlots = new int[normalVariables.size()];
+		int i = 0;
+		for (String varName : normalVariables) {
+			normalNames[i] = varName;
+			normalSlots[i] = netIndex.indexOfVariableName(varName);
+			allResolved &= normalSlots[i] != -1;
+			i++;
+		}
+
+		Set<String> primeVariables = expression.getPrimeVariables();
+		this.primedNames = new String[primeVariables.size()];
+		this.primeSlots = new int[primeVariables.size()];
+		i = 0;
+		for (String varName : primeVariables) {
+			primedNames[i] = varName + "'";
+			primeSlots[i] = netIndex.indexOfVariableName(varName);
+			allResolved &= primeSlots[i] != -1;
+			i++;
+		}
+
+		this.evaluable = allResolved;
+	}
+
+	/**
+	 * @param expression
+	 * @param netIndex
+	 * @return the compiled guard
+	 */
+	public static CompiledGuard compile(GuardExpression expression, NetIndex netIndex) {
+		return new CompiledGuard(expression, netIndex);
+	}
+
+	public GuardExpression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * @param frame
+	 * @return whether the values of all variables used by the guard are known
+	 */
+	public boolean allVariablesAvailable(VariableFrame frame) {
+		if (!evaluable) {
+			return false;
+		}
+		for (int i = 0; i < normalSlots.length; i++) {
+			if (!frame.hasValue(normalSlots[i])) {
+				return false;
+			}
+		}
+		for (int i = 0; i < primeSlots.length; i++) {
+			if (!frame.hasPrimeValue(primeSlots[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates the guard against the values of the frame. Guards for which
+	 * some variable is missing are never violated. Guards using unsupported
+	 * functions are never violated.
+	 *
+	 * @param frame
+	 * @return whether the guard evaluates to false
+	 */
+	public boolean isViolated(VariableFrame frame) {
+		if (allVariablesAvailable(frame)) {
+			frame.bind(this);
+			try {
+				return expression.isFalse(frame);
+			} catch (EvaluatorException e) {
+				if (e.getCause() instanceof UnsupportedFunctionException) {
+					return false; // Functions cannot be violated!
+				} else {
+					throw e;
+				}
+			} finally {
+				frame.bind(null);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param variableName
+	 *            as passed to the VariableProvider, prime variables end with
+	 *            a single quote
+	 * @return the slot of a normal variable (>= 0), the slot of a prime
+	 *         variable encoded as <code>-(slot + 1)</code>, or
+	 *         {@link Integer#MIN_VALUE} if the guard does not use the variable
+	 */
+	int resolve(String variableName) {
+		for (int i = 0; i < normalNames.length; i++) {
+			String name = normalNames[i];
+			if (name == variableName || name.equals(variableName)) {
+				return normalSlots[i];
+			}
+		}
+		for (int i = 0; i < primedNames.length; i++) {
+			String name = primedNames[i];
+			if (name == variableName || name.equals(variableName)) {
+				return -(primeSlots[i] + 1);
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+}
@@ -2,6 +2,8 @@ package org.processmining.dataawareexplorer.explorer.work;
 
 import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -11,9 +13,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.deckfour.xes.extension.std.XConceptExtension;
@@ -21,6 +25,11 @@ import org.deckfour.xes.extension.std.XLifecycleExtension;
 import org.deckfour.xes.extension.std.XTimeExtension;
 import org.deckfour.xes.model.XAttribute;
 import org.deckfour.xes.model.XAttributeMap;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime;
+import org.processmining.dataawareexplorer.parallel.MapReduce;
+import org.processmining.dataawareexplorer.parallel.Output;
+import org.processmining.dataawareexplorer.parallel.RangeInput;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
 import org.processmining.dataawareexplorer.utils.PetrinetUtils;
 import org.processmining.datadiscovery.AbstractDecisionRuleDiscovery;
 import org.processmining.datadiscovery.BasicDecisionTreeImpl;
@@ -55,12 +64,12 @@ import org.processmining.xesalignmentextension.XDataAlignmentExtension.XDataAlig
 
 import com.google.common.base.Function;
 import com.google.common.collect.BiMap;
-import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
@@ -104,9 +113,22 @@ public final class DiscoveryProcessor {
 
 		DiscoveryAlgorithm getAlgorithm();
 
+		/**
+		 * Samples by place of the discovered model, places whose rule was
+		 * discovered from all instances are missing
+		 */
+		Map<Place, DiscoverySampling.Sample> getSamples();
+
 	}
 
 	public interface ProgressPublisher {
+
+		/**
+		 * Called on the discovering thread as soon as the rule of a decision
+		 * point is available, in the order in which the places finish.
+		 *
+		 * @param decisionRule
+		 */
 		void onProgress(PetrinetDecisionRule decisionRule);
 	}
 
@@ -228,6 +250,7 @@ public final class DiscoveryProcessor {
 	private final Map<String, Transition> transitionsLocalId;
 
 	private final Iterable<XAlignment> alignedLog;
+	private final CompactAlignedLog compactLog;
 
 	private final Map<String, Class<?>> attributesForDiscoveryWithPreparedNames;
 	private final Map<String, Type> attributeTypeMap;
@@ -239,12 +262,40 @@ public final class DiscoveryProcessor {
 	private final Map<String, Set<String>> literalValues;
 	private final DiscoveryResult existingResult;
 
+	private DiscoveryRuleCache ruleCache;
+	private Object configurationKey;
+	private DiscoverySampling sampling = DiscoverySampling.exact();
+
 	public DiscoveryProcessor(DataPetriNetsWithMarkings net, Iterable<XAlignment> alignedLog,
 			Map<String, Object> initialValues, Map<String, Class<?>> attributesForDiscovery,
 			Map<String, Type> attributeTypes, Map<String, Set<String>> literalValues,
 			Map<String, Transition> transitionsLocalId, DiscoveryResult oldDiscoveryResult) {
+		this(net, alignedLog, null, initialValues, attributesForDiscovery, attributeTypes, literalValues,
+				transitionsLocalId, oldDiscoveryResult);
+	}
+
+	/**
+	 * @param net
+	 * @param alignedLog
+	 * @param compactLog
+	 *            the columnar form of the aligned log, which is projected
+	 *            once for all decision points, or <code>null</code> to
+	 *            project the alignments whenever they are iterated
+	 * @param initialValues
+	 * @param attributesForDiscovery
+	 * @param attributeTypes
+	 * @param literalValues
+	 * @param transitionsLocalId
+	 * @param oldDiscoveryResult
+	 */
+	public DiscoveryProcessor(DataPetriNetsWithMarkings net, Iterable<XAlignment> alignedLog,
+			CompactAlignedLog compactLog, Map<String, Object> initialValues,
+			Map<String, Class<?>> attributesForDiscovery, Map<String, Type> attributeTypes,
+			Map<String, Set<String>> literalValues, Map<String, Transition> transitionsLocalId,
+			DiscoveryResult oldDiscoveryResult) {
 		this.net = net;
 		this.alignedLog = alignedLog;
+		this.compactLog = compactLog;
 		this.existingResult = oldDiscoveryResult;
 		this.attributesForDiscoveryWithPreparedNames = transformToWekaNames(attributesForDiscovery);
 		this.transitionsLocalId = transitionsLocalId;
@@ -266,6 +317,15 @@ public final class DiscoveryProcessor {
 		return builder.build(); // throws illegal argument when duplicate variable names are detected
 	}
 
+	/**
+	 * Discovers the rules of the considered places in parallel. Interrupting
+	 * the calling thread cancels the discovery of all places that have not
+	 * finished yet.
+	 *
+	 * @throws CancellationException
+	 *             if the calling thread was interrupted, the interrupt flag is
+	 *             kept
+	 */
 	public DiscoveryResult discover(final DiscoveryAlgorithm algorithm, final DecisionTreeConfig config,
 			final SetMultimap<Transition, String> attributesWritten, Set<Place> consideredPlaces,
 			final Set<String> consideredAttributes, ProgressPublisher progressPublisher, ExecutorService executor)
@@ -274,37 +334,81 @@ public final class DiscoveryProcessor {
 		Map<String, Object> initialValuesForConsideredAttributes = filterInitialAttributeByConsidered(
 				consideredAttributes);
 
-		ProjectedLog projectedLog = new ProjectedLogForDiscovery(
-				Iterables.transform(alignedLog, new Function<XAlignment, ProjectedTrace>() {
+		Object runKey = ruleCache != null && compactLog != null
+				? createRunKey(algorithm, attributesWritten, consideredAttributes, initialValuesForConsideredAttributes)
+				: null;
 
-					public ProjectedTrace apply(XAlignment alignment) {
-						return new ProjectedTraceForDiscovery(alignment, attributesWritten, transitionsLocalId);
-					}
-				}), initialValuesForConsideredAttributes);
+		// Sampling selects traces of the compact log, without it all instances are used
+		final Map<Place, DiscoverySampling.Sample> samples = compactLog != null
+				? sampling.sample(compactLog, alignedLog, consideredPlaces)
+				: new HashMap<Place, DiscoverySampling.Sample>();
 
-		final PetrinetDecisionRuleDiscovery ruleDiscovery = createRuleDiscovery(algorithm, config, projectedLog);
+		// Only decision points without a rule from an earlier run with the same key are trained
+		Collection<PetrinetDecisionRule> discoveredRules = new ArrayList<>();
+		List<Place> missingPlaces = new ArrayList<>();
+		for (Place p : consideredPlaces) {
+			PetrinetDecisionRule cachedRule = runKey != null ? ruleCache.get(p, runKey) : null;
+			if (cachedRule != null) {
+				discoveredRules.add(cachedRule);
+				progressPublisher.onProgress(cachedRule);
+			} else {
+				missingPlaces.add(p);
+			}
+		}
 
-		Collection<Future<PetrinetDecisionRule>> futureRules = new ArrayList<>();
+		if (!missingPlaces.isEmpty()) {
+			Cancellation.checkpoint();
+			ProjectedLog projectedLog;
+			CompactProjectedLog compactProjectedLog = null;
+			if (compactLog != null) {
+				// Materialized once and shared read-only by the discovery of all places
+				compactProjectedLog = new CompactProjectedLog(compactLog, alignedLog, attributesWritten,
+						isTreatMissingValuesAsNA(), initialValuesForConsideredAttributes);
+				projectedLog = compactProjectedLog;
+			} else {
+				projectedLog = new ProjectedLogForDiscovery(
+						Iterables.transform(alignedLog, new Function<XAlignment, ProjectedTrace>() {
+
+							public ProjectedTrace apply(XAlignment alignment) {
+								return new ProjectedTraceForDiscovery(alignment, attributesWritten, transitionsLocalId);
+							}
+						}), initialValuesForConsideredAttributes);
+			}
 
-		for (final Place p : consideredPlaces) {
-			Callable<PetrinetDecisionRule> discoveryCallable = new Callable<PetrinetDecisionRule>() {
+			final PetrinetDecisionRuleDiscovery fullRuleDiscovery = createRuleDiscovery(algorithm, config, projectedLog);
 
-				public PetrinetDecisionRule call() throws Exception {
-					return ruleDiscovery.discoverRulesForPlace(net, p);
-				}
+			// Rules are collected in the order in which their discovery finishes
+			CompletionService<PetrinetDecisionRule> completionService = new ExecutorCompletionService<>(executor);
+			Map<Future<PetrinetDecisionRule>, Place> futureRules = new HashMap<>();
 
-			};
-			futureRules.add(executor.submit(discoveryCallable));
-		}
+			for (final Place p : missingPlaces) {
+				DiscoverySampling.Sample sample = samples.get(p);
+				final PetrinetDecisionRuleDiscovery ruleDiscovery = sample != null
+						? createRuleDiscovery(algorithm, config, compactProjectedLog.select(sample.getTraces()))
+						: fullRuleDiscovery;
+				Callable<PetrinetDecisionRule> discoveryCallable = new Callable<PetrinetDecisionRule>() {
+
+					public PetrinetDecisionRule call() throws Exception {
+						return ruleDiscovery.discoverRulesForPlace(net, p);
+					}
+
+				};
+				futureRules.put(completionService.submit(discoveryCallable), p);
+			}
 
-		Collection<PetrinetDecisionRule> discoveredRules = new ArrayList<>();
-		for (Future<PetrinetDecisionRule> future : futureRules) {
 			try {
-				PetrinetDecisionRule decisionRule = future.get();
-				discoveredRules.add(decisionRule);
-				progressPublisher.onProgress(decisionRule);
+				for (int i = 0; i < futureRules.size(); i++) {
+					Future<PetrinetDecisionRule> future = completionService.take();
+					PetrinetDecisionRule decisionRule = future.get();
+					discoveredRules.add(decisionRule);
+					if (runKey != null) {
+						ruleCache.put(futureRules.get(future), runKey, decisionRule);
+					}
+					progressPublisher.onProgress(decisionRule);
+				}
 			} catch (InterruptedException e) {
-				throw new RuleDiscoveryException(e);
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Discovery was cancelled");
 			} catch (ExecutionException e) {
 				if (e.getCause() instanceof RuleDiscoveryException
 						&& e.getCause().getCause() instanceof StackOverflowError) {
@@ -314,10 +418,16 @@ public final class DiscoveryProcessor {
 				} else {
 					throw new RuleDiscoveryException("An error occured while trying to discover rules!", e);
 				}
+			} finally {
+				// Stops the discovery of the remaining places after a cancellation or failure
+				for (Future<PetrinetDecisionRule> future : futureRules.keySet()) {
+					future.cancel(true);
+				}
 			}
-
 		}
 
+		Cancellation.checkpoint();
+
 		if (discoveredRules.size() > 0) {
 
 			PetriNetWithDataFactory discoveredNetFactory = cloneExistingNet();
@@ -326,9 +436,10 @@ public final class DiscoveryProcessor {
 			final BiMap<Transition, Transition> old2NewTransitions = createTransitionMapping(discoveredNetFactory);
 			final BiMap<Place, Place> old2NewPlaces = createPlaceMapping(discoveredNetFactory);
 			final Map<Place, PetrinetDecisionRule> discoveryInfo = new HashMap<>();
+			final Map<Place, DiscoverySampling.Sample> discoverySamples = new HashMap<>();
 
 			if (existingResult != null) {
-				addExistingResult(newNet, old2NewTransitions, old2NewPlaces, discoveryInfo);
+				addExistingResult(newNet, old2NewTransitions, old2NewPlaces, discoveryInfo, discoverySamples);
 			}
 
 			// Copy old variables
@@ -404,7 +515,14 @@ public final class DiscoveryProcessor {
 						discoveredTransition.removeGuard();
 					}
 				}
-				discoveryInfo.put(old2NewPlaces.get(rule.getDecisionPoint()), rule);
+				Place newPlace = old2NewPlaces.get(rule.getDecisionPoint());
+				discoveryInfo.put(newPlace, rule);
+				DiscoverySampling.Sample sample = samples.get(rule.getDecisionPoint());
+				if (sample != null) {
+					discoverySamples.put(newPlace, sample);
+				} else {
+					discoverySamples.remove(newPlace);
+				}
 			}
 
 			return new DiscoveryResult() {
@@ -432,6 +550,10 @@ public final class DiscoveryProcessor {
 				public DiscoveryAlgorithm getAlgorithm() {
 					return algorithm;
 				}
+
+				public Map<Place, DiscoverySampling.Sample> getSamples() {
+					return discoverySamples;
+				}
 			};
 
 		} else {
@@ -442,13 +564,18 @@ public final class DiscoveryProcessor {
 
 	private void addExistingResult(final DataPetriNetsWithMarkings newNet,
 			final BiMap<Transition, Transition> old2NewTransitions, final BiMap<Place, Place> old2NewPlaces,
-			final Map<Place, PetrinetDecisionRule> discoveryInfo) {
+			final Map<Place, PetrinetDecisionRule> discoveryInfo,
+			final Map<Place, DiscoverySampling.Sample> discoverySamples) {
 		BiMap<Place, Place> existingPlaceMapping = existingResult.getModelPlaceMapping();
 		BiMap<Transition, Transition> existingTransitionMapping = existingResult.getModelTransitionMapping();
 		for (Entry<Place, PetrinetDecisionRule> entry : existingResult.getRules().entrySet()) {
 			Place originalPlace = existingPlaceMapping.get(entry.getKey());
 			discoveryInfo.put(old2NewPlaces.get(originalPlace), entry.getValue());
 		}
+		for (Entry<Place, DiscoverySampling.Sample> entry : existingResult.getSamples().entrySet()) {
+			Place originalPlace = existingPlaceMapping.get(entry.getKey());
+			discoverySamples.put(old2NewPlaces.get(originalPlace), entry.getValue());
+		}
 		for (DataElement variable : existingResult.getModel().getVariables()) {
 			newNet.addVariable(variable.getVarName(), variable.getType(), variable.getMinValue(),
 					variable.getMaxValue());
@@ -503,6 +630,22 @@ public final class DiscoveryProcessor {
 				false);
 	}
 
+	/**
+	 * @return a key that identifies everything the rules of a run are learned
+	 *         from, the traces are identified by their ids in the compact log
+	 */
+	private Object createRunKey(DiscoveryAlgorithm algorithm, SetMultimap<Transition, String> attributesWritten,
+			Set<String> consideredAttributes, Map<String, Object> initialValuesForConsideredAttributes) {
+		BitSet traceIds = new BitSet(compactLog.size());
+		for (XAlignment alignment : alignedLog) {
+			traceIds.set(compactLog.requireTraceId(alignment));
+		}
+		return Arrays.asList(traceIds, ImmutableSet.copyOf(consideredAttributes),
+				ImmutableSetMultimap.copyOf(attributesWritten), new HashMap<>(initialValuesForConsideredAttributes),
+				new HashMap<>(attributeTypeMap), new HashMap<>(literalValues), isTreatMissingValuesAsNA, algorithm,
+				configurationKey, sampling);
+	}
+
 	private Map<String, Object> filterInitialAttributeByConsidered(final Set<String> consideredAttributes) {
 		Map<String, Object> initialValuesForConsideredAttributes = Maps
 				.newHashMapWithExpectedSize(consideredAttributes.size());
@@ -550,6 +693,36 @@ public final class DiscoveryProcessor {
 		}
 	}
 
+	/**
+	 * Reuses the rules of earlier runs with the same traces, attributes and
+	 * configuration, and stores the rules of this run. Requires the compact
+	 * form of the aligned log.
+	 *
+	 * @param ruleCache
+	 * @param configurationKey
+	 *            equal for equal {@link DecisionTreeConfig}s, which do not
+	 *            implement equals
+	 */
+	public void setRuleCache(DiscoveryRuleCache ruleCache, Object configurationKey) {
+		this.ruleCache = ruleCache;
+		this.configurationKey = configurationKey;
+	}
+
+	public DiscoverySampling getSampling() {
+		return sampling;
+	}
+
+	/**
+	 * Discovers the rule of each decision point from a stratified sample of
+	 * its instances. Requires the compact form of the aligned log, otherwise
+	 * all instances are used.
+	 *
+	 * @param sampling
+	 */
+	public void setSampling(DiscoverySampling sampling) {
+		this.sampling = sampling;
+	}
+
 	public boolean isTreatMissingValuesAsNA() {
 		return isTreatMissingValuesAsNA;
 	}
@@ -566,80 +739,126 @@ public final class DiscoveryProcessor {
 		this.isAddWriteOperationsNotInGuard = isAddWriteOperationsNotInGuard;
 	}
 
-	public static SetMultimap<Transition, String> discoverWriteOperations(Iterable<XAlignment> alignedLog,
-			Collection<Transition> transitions, Map<String, Transition> transitionsLocalId, double writeThreshold,
-			Set<String> consideredAttributes) {
+	/**
+	 * Counts of the executions of each transition and of the considered
+	 * attributes written by them, indexed by transition and attribute slot.
+	 */
+	private static final class WriteCounts implements Output<WriteCounts> {
 
-		final Map<Transition, ConcurrentHashMultiset<String>> numOccurenceAttributePerTransition = new HashMap<>();
-		for (Transition trans : transitions) {
-			numOccurenceAttributePerTransition.put(trans, ConcurrentHashMultiset.<String>create());
-		}
-		final ConcurrentHashMultiset<Transition> numOccurenceTransition = ConcurrentHashMultiset.create();
-		determineFrequencies(alignedLog, numOccurenceAttributePerTransition, numOccurenceTransition,
-				consideredAttributes, transitionsLocalId);
+		private final int numSlots;
+		private final long[] transitionCounts;
+		private final long[] attributeCounts;
 
-		final SetMultimap<Transition, String> attributesWritten = HashMultimap.create();
+		private WriteCounts(int numTransitions, int numSlots) {
+			this.numSlots = numSlots;
+			this.transitionCounts = new long[numTransitions];
+			this.attributeCounts = new long[numTransitions * numSlots];
+		}
 
-		// Mine write operations
-		for (Transition transition : transitions) {
-			//Set the write operations
-			long numberOfExecution = numOccurenceTransition.count(transition);
-			for (com.google.common.collect.Multiset.Entry<String> numWritesVariable : numOccurenceAttributePerTransition
-					.get(transition).entrySet()) {
-				if (numWritesVariable.getCount() > (numberOfExecution * writeThreshold)) {
-					String varName = numWritesVariable.getElement();
-					attributesWritten.put(transition, WekaUtil.replaceNonUriEncodedChars(varName));
-				}
+		public Output<WriteCounts> reduce(Output<WriteCounts> other) {
+			WriteCounts otherCounts = other.getResult();
+			for (int i = 0; i < transitionCounts.length; i++) {
+				transitionCounts[i] += otherCounts.transitionCounts[i];
 			}
+			for (int i = 0; i < attributeCounts.length; i++) {
+				attributeCounts[i] += otherCounts.attributeCounts[i];
+			}
+			return this;
+		}
+
+		public WriteCounts getResult() {
+			return this;
 		}
 
-		return attributesWritten;
 	}
 
-	private static void determineFrequencies(Iterable<XAlignment> alignedLog,
-			final Map<Transition, ConcurrentHashMultiset<String>> numOccurenceAttributePerTransition,
-			final ConcurrentHashMultiset<Transition> numOccurenceTransition, final Set<String> consideredAttributes,
-			final Map<String, Transition> transitionsLocalId) {
-
-		Iterable<List<XAlignment>> partitionedAlignments = Iterables.partition(alignedLog, 10000);
-		List<Callable<Void>> callables = new ArrayList<>();
-		for (final List<XAlignment> subAlignments : partitionedAlignments) {
-			callables.add(new Callable<Void>() {
-
-				public Void call() throws Exception {
-					for (XAlignment alignment : subAlignments) {
-						for (XAlignmentMove move : alignment) {
-							if (move.getType() != MoveType.LOG) {
-								Transition transition = transitionsLocalId.get(move.getActivityId());
-								numOccurenceTransition.add(transition);
-								ConcurrentHashMultiset<String> numOccurenceAttribute = numOccurenceAttributePerTransition
-										.get(transition);
-								XAttributeMap attributes = move.getEvent().getAttributes();
-								for (String key : attributes.keySet()) {
-									if (consideredAttributes.contains(key)) {
-										numOccurenceAttribute.add(key);
-									}
-								}
+	private static final class WriteCountInput extends RangeInput<WriteCounts> {
+
+		private final CompactAlignedLog log;
+		private final int[] traceIds;
+		private final int[] keySlots;
+		private final int numSlots;
+
+		private WriteCountInput(CompactAlignedLog log, int[] traceIds, int[] keySlots, int numSlots, int from,
+				int to) {
+			super(from, to);
+			this.log = log;
+			this.traceIds = traceIds;
+			this.keySlots = keySlots;
+			this.numSlots = numSlots;
+		}
+
+		protected Output<WriteCounts> computeRange(int from, int to) {
+			WriteCounts counts = new WriteCounts(log.getNetIndex().getNumTransitions(), numSlots);
+			for (int i = from; i < to; i++) {
+				int traceId = traceIds[i];
+				for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+					if (log.getMoveType(move) != MoveType.LOG) {
+						int transition = log.getTransition(move);
+						counts.transitionCounts[transition]++;
+						for (int a = log.getAttributeStart(move); a < log.getAttributeEnd(move); a++) {
+							int slot = keySlots[log.getAttributeKey(a)];
+							if (slot != -1) {
+								counts.attributeCounts[transition * numSlots + slot]++;
 							}
 						}
 					}
-					return null;
 				}
+			}
+			return counts;
+		}
 
-			});
+		protected RangeInput<WriteCounts> createRange(int from, int to) {
+			return new WriteCountInput(log, traceIds, keySlots, numSlots, from, to);
 		}
 
-		ExecutorService pool = Executors
-				.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	public static SetMultimap<Transition, String> discoverWriteOperations(CompactAlignedLog log,
+			Iterable<XAlignment> alignedLog, Collection<Transition> transitions, double writeThreshold,
+			Set<String> consideredAttributes) {
 
-		try {
-			pool.invokeAll(callables);
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
+		NetIndex netIndex = log.getNetIndex();
+
+		// Dense slot of every considered attribute key, -1 for all other keys
+		int[] keySlots = new int[log.getNumKeys()];
+		Arrays.fill(keySlots, -1);
+		List<String> slotKeys = new ArrayList<>();
+		for (String attribute : consideredAttributes) {
+			int keyId = log.indexOfKey(attribute);
+			if (keyId != -1 && keySlots[keyId] == -1) {
+				keySlots[keyId] = slotKeys.size();
+				slotKeys.add(attribute);
+			}
 		}
 
-		pool.shutdown();
+		IntArrayList traceIds = new IntArrayList();
+		for (XAlignment alignment : alignedLog) {
+			traceIds.add(log.requireTraceId(alignment));
+		}
+		int[] traceIdArray = traceIds.toArray();
+		WriteCounts counts = new MapReduce<WriteCounts>(ExplorerRuntime.getInstance().getForkJoinPool())
+				.execute(new WriteCountInput(log, traceIdArray, keySlots, slotKeys.size(), 0, traceIdArray.length));
+
+		final SetMultimap<Transition, String> attributesWritten = HashMultimap.create();
 
+		// Mine write operations
+		for (Transition transition : transitions) {
+			int t = netIndex.indexOf(transition);
+			if (t == -1) {
+				continue;
+			}
+			//Set the write operations
+			long numberOfExecution = counts.transitionCounts[t];
+			for (int slot = 0; slot < slotKeys.size(); slot++) {
+				long numWritesVariable = counts.attributeCounts[t * slotKeys.size() + slot];
+				if (numWritesVariable > 0 && numWritesVariable > (numberOfExecution * writeThreshold)) {
+					attributesWritten.put(transition, WekaUtil.replaceNonUriEncodedChars(slotKeys.get(slot)));
+				}
+			}
+		}
+
+		return attributesWritten;
 	}
 
-}
\ No newline at end of file
+}
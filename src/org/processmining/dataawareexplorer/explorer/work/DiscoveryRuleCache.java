@@ -0,0 +1,82 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.processmining.datadiscovery.PetrinetDecisionRuleDiscovery.PetrinetDecisionRule;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+
+import com.google.common.base.Objects;
+
+/**
+ * Least recently used cache of the rules discovered for decision points of
+ * one net. A rule is identified by its place and by a key of the discovery
+ * run, which has to identify everything the rule is learned from: the
+ * traces, the attributes and their write operations, the algorithm and its
+ * configuration. The rules refer to the places and transitions of the net,
+ * so the cache has to be cleared when the net or the alignment changes.
+ */
+public final class DiscoveryRuleCache {
+
+	private static final class Key {
+
+		private final Place place;
+		private final Object runKey;
+
+		private Key(Place place, Object runKey) {
+			this.place = place;
+			this.runKey = runKey;
+		}
+
+		public int hashCode() {
+			return Objects.hashCode(place, runKey);
+		}
+
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return place.equals(other.place) && runKey.equals(other.runKey);
+		}
+
+	}
+
+	private final int maxEntries;
+	private final LinkedHashMap<Key, PetrinetDecisionRule> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * @param maxEntries
+	 *            number of rules that are kept
+	 */
+	public DiscoveryRuleCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @param place
+	 * @param runKey
+	 * @return the rule discovered for the place in a run with an equal key or
+	 *         <code>null</code>
+	 */
+	public synchronized PetrinetDecisionRule get(Place place, Object runKey) {
+		return entries.get(new Key(place, runKey));
+	}
+
+	public synchronized void put(Place place, Object runKey, PetrinetDecisionRule rule) {
+		entries.put(new Key(place, runKey), rule);
+		Iterator<PetrinetDecisionRule> iterator = entries.values().iterator();
+		while (entries.size() > maxEntries && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+}
@@ -0,0 +1,371 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+import com.google.common.base.Objects;
+
+/**
+ * Configuration of the class-stratified sampling of the instances used to
+ * discover the rule of a decision point. An instance is an execution of a
+ * transition in the post-set of the place, its class is the transition.
+ * Traces are sampled as a whole, since the attribute values of an instance
+ * depend on all earlier events of its trace. The traces that reach the place
+ * are stratified by the class of their first instance and each stratum is
+ * sampled proportionally, but with at least {@link #MIN_TRACES_PER_CLASS}
+ * traces so that rare classes are kept.
+ * <p>
+ * The sample size is either given as a number of instances or derived from
+ * the largest acceptable error of the weighted f1-score at a confidence level.
+ * The error uses the normal approximation for a proportion, but since whole
+ * traces are sampled, the instances of a trace are not independent. In the
+ * worst case, all instances of a trace are classified alike, so the error is
+ * based on the number of sampled traces rather than instances: the effective
+ * sample size of Kish for traces weighted by their number of instances and by
+ * the inverse of the sampling fraction of their stratum. The latter accounts
+ * for strata that are sampled beyond their share to keep rare classes. The
+ * finite population correction is taken over the traces as well. Sampling is
+ * deterministic, equal configurations select equal traces.
+ */
+public final class DiscoverySampling {
+
+	public static final int MIN_TRACES_PER_CLASS = 10;
+	public static final double DEFAULT_CONFIDENCE = 0.95d;
+
+	private static final long SEED = 0x5DEECE66DL;
+
+	/**
+	 * Traces selected for one decision point together with the number of
+	 * traces and instances in the sample and in all traces.
+	 */
+	public static final class Sample {
+
+		private final int[] traces;
+		private final int numTraces;
+		private final long numSampledInstances;
+		private final long numInstances;
+		private final double effectiveSize;
+		private final double confidence;
+
+		private Sample(int[] traces, int numTraces, long numSampledInstances, long numInstances,
+				double effectiveSize, double confidence) {
+			this.traces = traces;
+			this.numTraces = numTraces;
+			this.numSampledInstances = numSampledInstances;
+			this.numInstances = numInstances;
+			this.effectiveSize = effectiveSize;
+			this.confidence = confidence;
+		}
+
+		/**
+		 * @return positions of the selected traces in the iteration order of
+		 *         the alignments, ascending
+		 */
+		public int[] getTraces() {
+			return traces;
+		}
+
+		public int getNumSampledTraces() {
+			return traces.length;
+		}
+
+		/**
+		 * @return number of traces with an instance of the decision point
+		 */
+		public int getNumTraces() {
+			return numTraces;
+		}
+
+		public long getNumSampledInstances() {
+			return numSampledInstances;
+		}
+
+		public long getNumInstances() {
+			return numInstances;
+		}
+
+		public double getConfidence() {
+			return confidence;
+		}
+
+		/**
+		 * @return number of independent instances that give the same variance
+		 *         as the sampled traces, at most the number of sampled traces
+		 */
+		public double getEffectiveSize() {
+			return effectiveSize;
+		}
+
+		/**
+		 * @param fMeasure
+		 *            the score measured on the sample
+		 * @return half-width of the confidence interval of the score based on
+		 *         the effective sample size, including the finite population
+		 *         correction over the traces
+		 */
+		public double getError(double fMeasure) {
+			if (effectiveSize == 0 || traces.length >= numTraces) {
+				return 0;
+			}
+			double p = Math.min(1, Math.max(0, fMeasure));
+			double finitePopulation = (double) (numTraces - traces.length) / (numTraces - 1);
+			return zScore(confidence) * Math.sqrt(p * (1 - p) / effectiveSize * finitePopulation);
+		}
+
+	}
+
+	private static final DiscoverySampling EXACT = new DiscoverySampling(-1, Double.NaN, DEFAULT_CONFIDENCE);
+
+	private final int sampleSize;
+	private final double maxError;
+	private final double confidence;
+
+	private DiscoverySampling(int sampleSize, double maxError, double confidence) {
+		this.sampleSize = sampleSize;
+		this.maxError = maxError;
+		this.confidence = confidence;
+	}
+
+	/**
+	 * @return configuration that uses all instances
+	 */
+	public static DiscoverySampling exact() {
+		return EXACT;
+	}
+
+	/**
+	 * @param sampleSize
+	 *            number of instances per decision point, strata of rare
+	 *            classes may add more
+	 * @param confidence
+	 *            level of the reported error
+	 * @return
+	 */
+	public static DiscoverySampling ofSize(int sampleSize, double confidence) {
+		if (sampleSize <= 0) {
+			throw new IllegalArgumentException("Sample size must be positive, was " + sampleSize);
+		}
+		return new DiscoverySampling(sampleSize, Double.NaN, confidence);
+	}
+
+	/**
+	 * @param maxError
+	 *            largest acceptable half-width of the confidence interval of
+	 *            the weighted f1-score, the traces are sampled until the
+	 *            error for a score of 0.5 is within it
+	 * @param confidence
+	 * @return
+	 */
+	public static DiscoverySampling ofMaxError(double maxError, double confidence) {
+		if (maxError <= 0 || maxError >= 1) {
+			throw new IllegalArgumentException("Error must be within (0,1), was " + maxError);
+		}
+		return new DiscoverySampling(-1, maxError, confidence);
+	}
+
+	private static double zScore(double confidence) {
+		return new NormalDistribution().inverseCumulativeProbability(1 - (1 - confidence) / 2);
+	}
+
+	public boolean isExact() {
+		return sampleSize == -1 && Double.isNaN(maxError);
+	}
+
+	/**
+	 * @return number of instances per decision point or -1 if not given
+	 */
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * Samples the traces of each place independently.
+	 *
+	 * @param log
+	 *            the log the alignments are part of
+	 * @param alignments
+	 * @param places
+	 * @return samples by place, places for which the sample would contain
+	 *         all traces are left out and use all traces
+	 */
+	public Map<Place, Sample> sample(CompactAlignedLog log, Iterable<XAlignment> alignments,
+			Collection<Place> places) {
+		Map<Place, Sample> samples = new HashMap<>();
+		if (isExact()) {
+			return samples;
+		}
+
+		IntArrayList traceIdList = new IntArrayList();
+		for (XAlignment alignment : alignments) {
+			traceIdList.add(log.requireTraceId(alignment));
+		}
+		int[] traceIds = traceIdList.toArray();
+
+		NetIndex netIndex = log.getNetIndex();
+		// Transitions that have the place in their pre-set, by place index
+		IntArrayList[] placePostsets = new IntArrayList[netIndex.getNumPlaces()];
+		for (int t = 0; t < netIndex.getNumTransitions(); t++) {
+			for (int p : netIndex.getPreset(t)) {
+				if (placePostsets[p] == null) {
+					placePostsets[p] = new IntArrayList();
+				}
+				placePostsets[p].add(t);
+			}
+		}
+
+		int[] instances = new int[traceIds.length];
+		for (Place place : places) {
+			int p = netIndex.indexOf(place);
+			if (p == -1 || placePostsets[p] == null) {
+				continue;
+			}
+			Sample sample = sample(log, traceIds, placePostsets[p].toArray(), p, instances);
+			if (sample != null) {
+				samples.put(place, sample);
+			}
+		}
+		return samples;
+	}
+
+	private Sample sample(CompactAlignedLog log, int[] traceIds, int[] postset, int place, int[] instances) {
+		int numTransitions = log.getNetIndex().getNumTransitions();
+		int[] classOf = new int[numTransitions];
+		Arrays.fill(classOf, -1);
+		for (int c = 0; c < postset.length; c++) {
+			classOf[postset[c]] = c;
+		}
+
+		// Traces with at least one instance by the class of their first instance
+		IntArrayList[] strata = new IntArrayList[postset.length];
+		for (int c = 0; c < strata.length; c++) {
+			strata[c] = new IntArrayList();
+		}
+		long numInstances = 0;
+		int numTraces = 0;
+		for (int i = 0; i < traceIds.length; i++) {
+			int traceId = traceIds[i];
+			int firstClass = -1;
+			int count = 0;
+			for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+				if (log.getMoveType(move) != MoveType.LOG) {
+					int c = classOf[log.getTransition(move)];
+					if (c != -1) {
+						if (firstClass == -1) {
+							firstClass = c;
+						}
+						count++;
+					}
+				}
+			}
+			instances[i] = count;
+			if (firstClass != -1) {
+				strata[firstClass].add(i);
+				numInstances += count;
+				numTraces++;
+			}
+		}
+
+		if (sampleSize != -1) {
+			if (numInstances <= sampleSize) {
+				return null;
+			}
+			return drawSample(strata, instances, numTraces, numInstances, (double) sampleSize / numInstances,
+					place);
+		}
+
+		if (numTraces == 0) {
+			return null;
+		}
+		// Worst case of a score of 0.5, first assuming independent traces, then
+		// growing the sample until the effective size is large enough
+		double z = zScore(confidence);
+		double independentSize = z * z * 0.25d / (maxError * maxError);
+		double fraction = independentSize / (1 + (independentSize - 1) / numTraces) / numTraces;
+		while (fraction < 1) {
+			Sample sample = drawSample(strata, instances, numTraces, numInstances, fraction, place);
+			if (sample.getNumSampledTraces() >= numTraces) {
+				break;
+			}
+			double error = sample.getError(0.5d);
+			if (error <= maxError) {
+				return sample;
+			}
+			fraction *= Math.max(1.1d, (error * error) / (maxError * maxError));
+		}
+		return null;
+	}
+
+	private Sample drawSample(IntArrayList[] strata, int[] instances, int numTraces, long numInstances,
+			double fraction, int place) {
+		Random random = new Random(SEED ^ place);
+		IntArrayList selected = new IntArrayList();
+		long numSampledInstances = 0;
+		// Sums of the weighted instances and of their squares for the effective size
+		double weightedInstances = 0;
+		double squaredWeightedInstances = 0;
+		for (IntArrayList stratum : strata) {
+			int[] traces = stratum.toArray();
+			int size = Math.min(traces.length,
+					Math.max(MIN_TRACES_PER_CLASS, (int) Math.round(fraction * traces.length)));
+			double weight = (double) traces.length / size;
+			// Partial Fisher-Yates shuffle, the first traces are the sample
+			for (int i = 0; i < size; i++) {
+				int j = i + random.nextInt(traces.length - i);
+				int trace = traces[j];
+				traces[j] = traces[i];
+				traces[i] = trace;
+				selected.add(trace);
+				numSampledInstances += instances[trace];
+				weightedInstances += weight * instances[trace];
+				squaredWeightedInstances += (weight * instances[trace]) * (weight * instances[trace]);
+			}
+		}
+
+		int[] sampledTraces = selected.toArray();
+		Arrays.sort(sampledTraces);
+		double effectiveSize = squaredWeightedInstances > 0
+				? weightedInstances * weightedInstances / squaredWeightedInstances
+				: 0;
+		return new Sample(sampledTraces, numTraces, numSampledInstances, numInstances, effectiveSize, confidence);
+	}
+
+	public int hashCode() {
+		return Objects.hashCode(sampleSize, maxError, confidence);
+	}
+
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DiscoverySampling)) {
+			return false;
+		}
+		DiscoverySampling other = (DiscoverySampling) obj;
+		return sampleSize == other.sampleSize && Double.compare(maxError, other.maxError) == 0
+				&& Double.compare(confidence, other.confidence) == 0;
+	}
+
+	public String toString() {
+		if (isExact()) {
+			return "All instances";
+		} else if (!Double.isNaN(maxError)) {
+			return String.format("Sample (f1-score \u00B1%.2f)", maxError);
+		} else {
+			return String.format("Sample (%,d instances)", sampleSize);
+		}
+	}
+
+}
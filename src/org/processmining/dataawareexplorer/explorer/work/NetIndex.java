@@ -0,0 +1,276 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.processmining.datapetrinets.DataPetriNet;
+import org.processmining.models.graphbased.directed.petrinet.PetrinetEdge;
+import org.processmining.models.graphbased.directed.petrinet.PetrinetNode;
+import org.processmining.models.graphbased.directed.petrinet.elements.Arc;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.models.graphbased.directed.petrinetwithdata.newImpl.DataElement;
+import org.processmining.models.graphbased.directed.petrinetwithdata.newImpl.PNWDTransition;
+import org.processmining.models.semantics.petrinet.Marking;
+
+/**
+ * Assigns a dense int index to every transition, place and variable of a
+ * {@link DataPetriNet}. Also stores the pre- and post-set of each transition
+ * and the variables written by each transition as index arrays, so that the
+ * token game can be played on an int[] marking without any map lookup. The
+ * guards of all transitions are compiled once against the variable index.
+ *
+ * The index is immutable and can be shared between threads.
+ */
+public final class NetIndex {
+
+	private final Transition[] transitions;
+	private final Place[] places;
+	private final DataElement[] variables;
+	private final String[] variableNames;
+
+	private final Map<Transition, Integer> transitionIndex;
+	private final Map<Place, Integer> placeIndex;
+	private final Map<DataElement, Integer> variableIndex;
+	private final Map<String, Integer> variableNameIndex;
+	private final Map<String, Integer> localIdIndex;
+
+	private final int[][] preset;
+	private final int[][] presetWeights;
+	private final int[][] postset;
+	private final int[][] postsetWeights;
+	private final int[][] writeOperations;
+	private final CompiledGuard[] guards;
+
+	public NetIndex(DataPetriNet net, Map<String, Transition> localIdToTransition) {
+		super();
+
+		List<Transition> transitionList = new ArrayList<>(net.getTransitions());
+		List<Place> placeList = new ArrayList<>(net.getPlaces());
+		List<DataElement> variableList = new ArrayList<>(net.getVariables());
+
+		this.transitions = transitionList.toArray(new Transition[transitionList.size()]);
+		this.places = placeList.toArray(new Place[placeList.size()]);
+		this.variables = variableList.toArray(new DataElement[variableList.size()]);
+
+		this.transitionIndex = new HashMap<>();
+		for (int i = 0; i < transitions.length; i++) {
+			transitionIndex.put(transitions[i], i);
+		}
+		this.placeIndex = new HashMap<>();
+		for (int i = 0; i < places.length; i++) {
+			placeIndex.put(places[i], i);
+		}
+		this.variableIndex = new HashMap<>();
+		this.variableNameIndex = new HashMap<>();
+		this.variableNames = new String[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			variableIndex.put(variables[i], i);
+			variableNames[i] = variables[i].getVarName();
+			variableNameIndex.put(variableNames[i], i);
+		}
+		this.localIdIndex = new HashMap<>();
+		for (Entry<String, Transition> entry : localIdToTransition.entrySet()) {
+			Integer index = transitionIndex.get(entry.getValue());
+			if (index != null) {
+				localIdIndex.put(entry.getKey(), index);
+			}
+		}
+
+		this.preset = new int[transitions.length][];
+		this.presetWeights = new int[transitions.length][];
+		this.postset = new int[transitions.length][];
+		this.postsetWeights = new int[transitions.length][];
+		this.writeOperations = new int[transitions.length][];
+		this.guards = new CompiledGuard[transitions.length];
+
+		for (int i = 0; i < transitions.length; i++) {
+			Transition t = transitions[i];
+
+			List<int[]> in = new ArrayList<>();
+			for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : net.getInEdges(t)) {
+				if (edge.getSource() instanceof Place) {
+					in.add(new int[] { placeIndex.get(edge.getSource()), getWeight(edge) });
+				}
+			}
+			preset[i] = new int[in.size()];
+			presetWeights[i] = new int[in.size()];
+			for (int j = 0; j < in.size(); j++) {
+				preset[i][j] = in.get(j)[0];
+				presetWeights[i][j] = in.get(j)[1];
+			}
+
+			List<int[]> out = new ArrayList<>();
+			for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : net.getOutEdges(t)) {
+				if (edge.getTarget() instanceof Place) {
+					out.add(new int[] { placeIndex.get(edge.getTarget()), getWeight(edge) });
+				}
+			}
+			postset[i] = new int[out.size()];
+			postsetWeights[i] = new int[out.size()];
+			for (int j = 0; j < out.size(); j++) {
+				postset[i][j] = out.get(j)[0];
+				postsetWeights[i][j] = out.get(j)[1];
+			}
+
+			if (t instanceof PNWDTransition) {
+				PNWDTransition transition = (PNWDTransition) t;
+				List<DataElement> writes = new ArrayList<>(transition.getWriteOperations());
+				writeOperations[i] = new int[writes.size()];
+				for (int j = 0; j < writes.size(); j++) {
+					writeOperations[i][j] = variableIndex.get(writes.get(j));
+				}
+				if (transition.hasGuardExpression()) {
+					guards[i] = CompiledGuard.compile(transition.getGuardExpression(), this);
+				}
+			} else {
+				writeOperations[i] = new int[0];
+			}
+		}
+	}
+
+	private static int getWeight(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+		if (edge instanceof Arc) {
+			return ((Arc) edge).getWeight();
+		}
+		return 1;
+	}
+
+	public int getNumTransitions() {
+		return transitions.length;
+	}
+
+	public int getNumPlaces() {
+		return places.length;
+	}
+
+	public int getNumVariables() {
+		return variables.length;
+	}
+
+	public Transition getTransition(int index) {
+		return transitions[index];
+	}
+
+	public Place getPlace(int index) {
+		return places[index];
+	}
+
+	public DataElement getVariable(int index) {
+		return variables[index];
+	}
+
+	public String getVariableName(int index) {
+		return variableNames[index];
+	}
+
+	/**
+	 * @param transition
+	 * @return the index of the transition or -1 if it is not part of the net
+	 */
+	public int indexOf(Transition transition) {
+		Integer index = transitionIndex.get(transition);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @param place
+	 * @return the index of the place or -1 if it is not part of the net
+	 */
+	public int indexOf(Place place) {
+		Integer index = placeIndex.get(place);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @param variable
+	 * @return the index of the variable or -1 if it is not part of the net
+	 */
+	public int indexOf(DataElement variable) {
+		Integer index = variableIndex.get(variable);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @param variableName
+	 * @return the index of the variable with this name or -1 if there is none
+	 */
+	public int indexOfVariableName(String variableName) {
+		Integer index = variableNameIndex.get(variableName);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @param localId
+	 *            as stored in the activity id of an alignment move
+	 * @return the index of the transition or -1 if unknown
+	 */
+	public int indexOfLocalId(String localId) {
+		Integer index = localIdIndex.get(localId);
+		return index != null ? index : -1;
+	}
+
+	public int[] getPreset(int transition) {
+		return preset[transition];
+	}
+
+	public int[] getPostset(int transition) {
+		return postset[transition];
+	}
+
+	public int[] getWriteOperations(int transition) {
+		return writeOperations[transition];
+	}
+
+	/**
+	 * @param transition
+	 * @return the compiled guard of the transition or <code>null</code> if it
+	 *         has no guard
+	 */
+	public CompiledGuard getGuard(int transition) {
+		return guards[transition];
+	}
+
+	/**
+	 * Converts the marking to a dense int[] indexed by place.
+	 *
+	 * @param marking
+	 * @return number of tokens per place index
+	 */
+	public int[] encodeMarking(Marking marking) {
+		int[] encoded = new int[places.length];
+		if (marking != null) {
+			for (Place p : marking.baseSet()) {
+				Integer index = placeIndex.get(p);
+				if (index != null) {
+					encoded[index] = marking.occurrences(p);
+				}
+			}
+		}
+		return encoded;
+	}
+
+	/**
+	 * Fires the transition on the marking without checking whether it is
+	 * enabled.
+	 *
+	 * @param marking
+	 * @param transition
+	 */
+	public void fire(int[] marking, int transition) {
+		int[] in = preset[transition];
+		int[] inWeights = presetWeights[transition];
+		for (int i = 0; i < in.length; i++) {
+			marking[in[i]] -= inWeights[i];
+		}
+		int[] out = postset[transition];
+		int[] outWeights = postsetWeights[transition];
+		for (int i = 0; i < out.length; i++) {
+			marking[out[i]] += outWeights[i];
+		}
+	}
+
+}
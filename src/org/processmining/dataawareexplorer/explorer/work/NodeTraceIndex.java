@@ -0,0 +1,120 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+
+/**
+ * Maps every transition and place of the net to the set of variants of a
+ * {@link VariantIndex} that visit it. A variant visits a transition if it has
+ * a synchronous or model move for the transition, and it visits a place if it
+ * visits a transition in its post-set. All traces of a variant visit the same
+ * nodes, so the sets are kept over variants rather than over traces. Node
+ * selections are then answered by unions and intersections of these sets.
+ */
+public final class NodeTraceIndex {
+
+	private final VariantIndex variants;
+
+	private final BitSet[] transitionVariants;
+	private final BitSet[] placeVariants;
+
+	public NodeTraceIndex(VariantIndex variants) {
+		super();
+		this.variants = variants;
+
+		CompactAlignedLog log = variants.getLog();
+		NetIndex netIndex = log.getNetIndex();
+
+		this.transitionVariants = new BitSet[netIndex.getNumTransitions()];
+		for (int i = 0; i < transitionVariants.length; i++) {
+			transitionVariants[i] = new BitSet(variants.size());
+		}
+		this.placeVariants = new BitSet[netIndex.getNumPlaces()];
+		for (int i = 0; i < placeVariants.length; i++) {
+			placeVariants[i] = new BitSet(variants.size());
+		}
+
+		for (int variant = 0; variant < variants.size(); variant++) {
+			int traceId = variants.getRepresentative(variant);
+			for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+				MoveType moveType = log.getMoveType(move);
+				if (moveType == MoveType.SYNCHRONOUS || moveType == MoveType.MODEL) {
+					int transition = log.getTransition(move);
+					transitionVariants[transition].set(variant);
+					for (int place : netIndex.getPreset(transition)) {
+						placeVariants[place].set(variant);
+					}
+				}
+			}
+		}
+	}
+
+	public VariantIndex getVariants() {
+		return variants;
+	}
+
+	/**
+	 * @param nodes
+	 *            transitions and places of the net
+	 * @return the variants that visit at least one of the nodes
+	 */
+	public BitSet getVariantsVisitingAny(Collection<?> nodes) {
+		BitSet result = new BitSet(variants.size());
+		for (Object node : nodes) {
+			BitSet nodeVariants = getNodeVariants(node);
+			if (nodeVariants != null) {
+				result.or(nodeVariants);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param nodes
+	 *            transitions and places of the net
+	 * @return the variants that visit all of the nodes, empty if some node is
+	 *         not part of the net
+	 */
+	public BitSet getVariantsVisitingAll(Collection<?> nodes) {
+		BitSet result = new BitSet(variants.size());
+		result.set(0, variants.size());
+		for (Object node : nodes) {
+			BitSet nodeVariants = getNodeVariants(node);
+			if (nodeVariants == null) {
+				// Some selected node can never be found
+				result.clear();
+				return result;
+			}
+			result.and(nodeVariants);
+		}
+		return result;
+	}
+
+	/**
+	 * @param nodes
+	 *            transitions and places of the net
+	 * @return the variants that visit none of the nodes
+	 */
+	public BitSet getVariantsVisitingNone(Collection<?> nodes) {
+		BitSet result = getVariantsVisitingAny(nodes);
+		result.flip(0, variants.size());
+		return result;
+	}
+
+	private BitSet getNodeVariants(Object node) {
+		NetIndex netIndex = variants.getLog().getNetIndex();
+		if (node instanceof Transition) {
+			int index = netIndex.indexOf((Transition) node);
+			return index != -1 ? transitionVariants[index] : null;
+		} else if (node instanceof Place) {
+			int index = netIndex.indexOf((Place) node);
+			return index != -1 ? placeVariants[index] : null;
+		}
+		return null;
+	}
+
+}
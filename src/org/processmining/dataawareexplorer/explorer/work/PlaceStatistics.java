@@ -1,24 +1,36 @@
 package org.processmining.dataawareexplorer.explorer.work;
 
-import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 
 public final class PlaceStatistics {
 
-	public long numGoodMoves;
-	public long numModelMoves;
-	public long numLogMoves;
-	public long numDataMoves;
+	public final long numGoodMoves;
+	public final long numModelMoves;
+	public final long numLogMoves;
+	public final long numDataMoves;
 
-	public long numGoodWriteOps;
-	public long numWrongWriteOps;
-	public long numMissingWriteOps;
+	public final long numGoodWriteOps;
+	public final long numWrongWriteOps;
+	public final long numMissingWriteOps;
 
 	public long numGoodWritesForGuard;
 	public long numWrongWritesForGuard;
 	public long numMissingWritesForGuard;
 
-	public Multiset<String> observedLogMoves = HashMultiset.create();
+	public final Multiset<String> observedLogMoves;
+
+	PlaceStatistics(StatisticsStore store, int place) {
+		numGoodMoves = store.getPlace(StatisticsStore.P_GOOD_MOVES, place);
+		numModelMoves = store.getPlace(StatisticsStore.P_MODEL_MOVES, place);
+		numLogMoves = store.getPlace(StatisticsStore.P_LOG_MOVES, place);
+		numDataMoves = store.getPlace(StatisticsStore.P_DATA_MOVES, place);
+		numGoodWriteOps = store.getPlace(StatisticsStore.P_GOOD_WRITES, place);
+		numWrongWriteOps = store.getPlace(StatisticsStore.P_WRONG_WRITES, place);
+		numMissingWriteOps = store.getPlace(StatisticsStore.P_MISSING_WRITES, place);
+		Multiset<String> logMoves = store.getLogMoves(place);
+		observedLogMoves = logMoves != null ? logMoves : ImmutableMultiset.<String>of();
+	}
 
 	public long getObservedMoves() {
 		return numGoodMoves + numLogMoves + numModelMoves + numDataMoves;
@@ -44,36 +56,4 @@ public final class PlaceStatistics {
 		}
 	}
 
-	public void incLogMoves() {
-		numLogMoves++;
-	}
-
-	public void incGoodMoves() {
-		numGoodMoves++;
-	}
-
-	public void incModelMoves() {
-		numModelMoves++;
-	}
-
-	public void incMissingWriteOps(long missingWriteOps) {
-		numMissingWriteOps += missingWriteOps;
-	}
-
-	public void incDataMoves() {
-		numDataMoves++;
-	}
-
-	public void incWrongWriteOps(long incorrectWritings) {
-		numWrongWriteOps += incorrectWritings;
-	}
-
-	public void incGoodWriteOps(long correctWritings) {
-		numGoodWriteOps += correctWritings;
-	}
-
-	public void addLogMove(String string) {
-		observedLogMoves.add(string);
-	}
-
-}
\ No newline at end of file
+}
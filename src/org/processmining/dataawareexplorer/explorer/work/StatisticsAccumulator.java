@@ -0,0 +1,352 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog.AttributeStatus;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+import org.processmining.xesalignmentextension.XDataAlignmentExtension.DataMoveType;
+
+/**
+ * Holds the replay state and the partial statistics of one worker.
+ * {@link AlignmentContributions} uses one instance per chunk of variants.
+ */
+final class StatisticsAccumulator {
+
+	private static final class ReplayState {
+
+		private final int[] initialMarking;
+		private final int[] marking;
+
+		private final VariableFrame variables;
+
+		private ReplayState(int[] initialMarking, int numVariables) {
+			super();
+			this.initialMarking = initialMarking;
+			this.marking = initialMarking.clone();
+			this.variables = new VariableFrame(numVariables);
+		}
+
+		public void reset() {
+			// Reset the state to the initial marking
+			System.arraycopy(initialMarking, 0, marking, 0, marking.length);
+
+			// Reset variable state
+			variables.reset();
+		}
+
+		public int[] getMarking() {
+			return marking;
+		}
+
+		public VariableFrame getVariables() {
+			return variables;
+		}
+
+	}
+
+	private final NetIndex index;
+	private final ReplayState state;
+	private final StatisticsStore store;
+
+	/**
+	 * Multiplier of the contribution of the replayed alignment, e.g., the
+	 * number of alignments of a variant
+	 */
+	private int weight = 1;
+
+	// Only used when tracking the contribution of single alignments
+	private boolean[] touched;
+	private IntArrayList touchedSlots;
+	private IntArrayList trackedLogMovePlaces;
+	private List<String> trackedLogMoveClasses;
+
+	StatisticsAccumulator(NetIndex index, int[] initialMarking) {
+		this.index = index;
+		this.state = new ReplayState(initialMarking, index.getNumVariables());
+		this.store = new StatisticsStore(index);
+	}
+
+	/**
+	 * Adds the contribution of the alignment with the trace id, including its
+	 * fitness, by replaying it.
+	 */
+	void add(CompactAlignedLog log, int traceId) {
+
+		// Keep track of fitness
+		store.addFitness(log.getFitness(traceId), weight);
+
+		replay(log, traceId);
+	}
+
+	/**
+	 * Adds the contribution of the moves of the variant, multiplied by count,
+	 * by replaying its representative once. The fitness is not added as it
+	 * differs between the traces of a variant.
+	 */
+	void addVariant(VariantIndex variants, int variant, int count) {
+		int previousWeight = weight;
+		weight = previousWeight * count;
+		try {
+			replay(variants.getLog(), variants.getRepresentative(variant));
+		} finally {
+			weight = previousWeight;
+		}
+	}
+
+	private void replay(CompactAlignedLog log, int traceId) {
+		for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+
+			processMoveForStatistics(log, move);
+			movePrimeVariables(state);
+
+		}
+
+		state.reset();
+	}
+
+	StatisticsStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Starts to record which slots are changed, so that the contribution of a
+	 * single alignment can be read with {@link #getTouchedSlots()} and
+	 * {@link #getTrackedLogMovePlaces()}. Log moves are then only recorded and
+	 * not added to the store.
+	 */
+	void enableTracking() {
+		touched = new boolean[store.getNumSlots()];
+		touchedSlots = new IntArrayList();
+		trackedLogMovePlaces = new IntArrayList();
+		trackedLogMoveClasses = new ArrayList<>();
+	}
+
+	IntArrayList getTouchedSlots() {
+		return touchedSlots;
+	}
+
+	IntArrayList getTrackedLogMovePlaces() {
+		return trackedLogMovePlaces;
+	}
+
+	List<String> getTrackedLogMoveClasses() {
+		return trackedLogMoveClasses;
+	}
+
+	/**
+	 * Sets all touched slots back to zero and forgets the recorded log moves.
+	 */
+	void resetTracked() {
+		for (int i = 0; i < touchedSlots.size(); i++) {
+			int slot = touchedSlots.get(i);
+			store.inc(slot, -store.get(slot));
+			touched[slot] = false;
+		}
+		touchedSlots.clear();
+		trackedLogMovePlaces.clear();
+		trackedLogMoveClasses.clear();
+	}
+
+	private void inc(int slot, long delta) {
+		store.inc(slot, delta * weight);
+		if (touched != null && !touched[slot]) {
+			touched[slot] = true;
+			touchedSlots.add(slot);
+		}
+	}
+
+	private void addLogMove(int place, String eventClassId) {
+		if (touched != null) {
+			trackedLogMovePlaces.add(place);
+			trackedLogMoveClasses.add(eventClassId);
+		} else {
+			store.addLogMove(place, eventClassId, weight);
+		}
+	}
+
+	private static void movePrimeVariables(ReplayState state) {
+		state.getVariables().commit();
+	}
+
+	private final void processMoveForStatistics(final CompactAlignedLog log, final int move) {
+
+		final MoveType moveType = log.getMoveType(move);
+
+		if (moveType != MoveType.LOG) {
+
+			final int transition = log.getTransition(move);
+
+			switch (moveType) {
+				case SYNCHRONOUS :
+					handleSynchronousMove(log, move, transition, log.getDataMoveType(move));
+					break;
+				case MODEL :
+					if (log.isObservable(move)) {
+						handleObservableModelMove(log, move, transition);
+					} else {
+						handleUnobservableModelMove(transition);
+					}
+					break;
+				case LOG :
+				default :
+					throw new RuntimeException("Illegal step");
+			}
+
+			final CompiledGuard guard = index.getGuard(transition);
+			if (guard != null && guard.isViolated(state.getVariables())) {
+				inc(store.transitionSlot(StatisticsStore.T_GUARD_VIOLATIONS, transition), 1);
+			}
+
+			// Finally execute the transition
+			index.fire(state.getMarking(), transition);
+		} else {
+			handleLogMove(log.getEventClass(move));
+		}
+	}
+
+	private void incMarkedPlaces(int column, long delta) {
+		final int[] marking = state.getMarking();
+		for (int p = 0; p < marking.length; p++) {
+			if (marking[p] > 0) {
+				inc(store.placeSlot(column, p), delta);
+			}
+		}
+	}
+
+	private void handleLogMove(final String eventClassId) {
+		inc(StatisticsStore.G_LOG_MOVES, 1);
+		final int[] marking = state.getMarking();
+		for (int p = 0; p < marking.length; p++) {
+			if (marking[p] > 0) {
+				inc(store.placeSlot(StatisticsStore.P_LOG_MOVES, p), 1);
+				addLogMove(p, eventClassId);
+			}
+		}
+	}
+
+	private void handleUnobservableModelMove(final int transition) {
+		// No write ops possible
+		incMarkedPlaces(StatisticsStore.P_GOOD_MOVES, 1);
+		inc(store.transitionSlot(StatisticsStore.T_GOOD_MOVES, transition), 1);
+	}
+
+	private void handleObservableModelMove(final CompactAlignedLog log, final int move, final int transition) {
+		// Special case only has missing write ops
+		final long missingWritings = countMissingWriteOperations(log, move, transition);
+		inc(StatisticsStore.G_MISSING_WRITES, missingWritings);
+		incMarkedPlaces(StatisticsStore.P_MODEL_MOVES, 1);
+		if (missingWritings > 0) {
+			incMarkedPlaces(StatisticsStore.P_MISSING_WRITES, missingWritings);
+		}
+		inc(store.transitionSlot(StatisticsStore.T_MODEL_MOVES, transition), 1);
+		inc(store.transitionSlot(StatisticsStore.T_MISSING_WRITES, transition), missingWritings);
+		inc(StatisticsStore.G_MODEL_MOVES, 1);
+	}
+
+	private int countMissingWriteOperations(CompactAlignedLog log, int move, int transition) {
+		int count = 0;
+		if (index.getWriteOperations(transition).length > 0) {
+			for (int a = log.getAttributeStart(move); a < log.getAttributeEnd(move); a++) {
+				AttributeStatus status = log.getAttributeStatus(a);
+				if (status == AttributeStatus.MISSING) {
+					count++;
+				} else if (status == AttributeStatus.INVALID) {
+					throw invalidAttribute(log, a);
+				}
+			}
+		}
+		return count;
+	}
+
+	private void handleSynchronousMove(final CompactAlignedLog log, final int move, final int transition,
+			DataMoveType dataMoveType) {
+
+		// Might contain a combination of correct, incorrect, missing writes
+		VariableFrame variables = state.getVariables();
+
+		int correctWritings = 0;
+		int incorrectWritings = 0;
+		int missingWritings = 0;
+
+		for (int var : index.getWriteOperations(transition)) {
+			int a = log.findAttribute(move, log.getVariableKey(var));
+			if (a == -1) {
+				continue;
+			}
+			switch (log.getAttributeStatus(a)) {
+				case CORRECT :
+					correctWritings++;
+					inc(store.variableSlot(StatisticsStore.V_GOOD_WRITES, var), 1);
+					variables.setPrimeValue(var, log.getAttributeValue(a));
+					break;
+				case MISSING :
+					missingWritings++;
+					inc(store.variableSlot(StatisticsStore.V_MISSING_WRITES, var), 1);
+					// we treat missing as a real missing value not taking the guessed value from the alignment
+					break;
+				case INCORRECT :
+					incorrectWritings++;
+					inc(store.variableSlot(StatisticsStore.V_WRONG_WRITES, var), 1);
+					variables.setPrimeValue(var, log.getAttributeLogValue(a));
+					break;
+				case INVALID :
+					throw invalidAttribute(log, a);
+				case NONE :
+				default :
+					break;
+			}
+		}
+
+		inc(StatisticsStore.G_GOOD_WRITES, correctWritings);
+		inc(StatisticsStore.G_MISSING_WRITES, missingWritings);
+		inc(StatisticsStore.G_WRONG_WRITES, incorrectWritings);
+
+		inc(store.transitionSlot(StatisticsStore.T_GOOD_WRITES, transition), correctWritings);
+		inc(store.transitionSlot(StatisticsStore.T_MISSING_WRITES, transition), missingWritings);
+		inc(store.transitionSlot(StatisticsStore.T_WRONG_WRITES, transition), incorrectWritings);
+
+		final int placeMoveColumn;
+		final int transitionMoveColumn;
+		switch (dataMoveType) {
+			case CORRECT :
+				placeMoveColumn = StatisticsStore.P_GOOD_MOVES;
+				transitionMoveColumn = StatisticsStore.T_GOOD_MOVES;
+				break;
+			case INCORRECT :
+			case MISSING :
+				placeMoveColumn = StatisticsStore.P_DATA_MOVES;
+				transitionMoveColumn = StatisticsStore.T_DATA_MOVES;
+				break;
+			default :
+				placeMoveColumn = -1;
+				transitionMoveColumn = -1;
+				break;
+		}
+
+		// Single pass over the marked places for both the write operations and the move
+		final int[] marking = state.getMarking();
+		for (int p = 0; p < marking.length; p++) {
+			if (marking[p] > 0) {
+				inc(store.placeSlot(StatisticsStore.P_GOOD_WRITES, p), correctWritings);
+				inc(store.placeSlot(StatisticsStore.P_WRONG_WRITES, p), incorrectWritings);
+				inc(store.placeSlot(StatisticsStore.P_MISSING_WRITES, p), missingWritings);
+				if (placeMoveColumn != -1) {
+					inc(store.placeSlot(placeMoveColumn, p), 1);
+				}
+			}
+		}
+
+		if (transitionMoveColumn != -1) {
+			inc(store.transitionSlot(transitionMoveColumn, transition), 1);
+			inc(StatisticsStore.G_GOOD_MOVES, 1);
+		}
+	}
+
+	private static RuntimeException invalidAttribute(CompactAlignedLog log, int attribute) {
+		return new RuntimeException("Invalid alignment: could not read the data alignment status of attribute "
+				+ log.getKey(log.getAttributeKey(attribute)));
+	}
+
+}
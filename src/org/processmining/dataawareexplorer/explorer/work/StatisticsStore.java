@@ -0,0 +1,232 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+/**
+ * Dense storage of the counters computed by {@link AlignmentInformation}. All
+ * counters are stored in one long[] that is divided into columns: the global
+ * counters first, then one column of length {@link NetIndex#getNumTransitions()}
+ * per transition counter, then the place and the variable columns. A counter
+ * is addressed by its slot, see {@link #transitionSlot(int, int)},
+ * {@link #placeSlot(int, int)} and {@link #variableSlot(int, int)}.
+ */
+public final class StatisticsStore {
+
+	public static final int G_GOOD_MOVES = 0;
+	public static final int G_LOG_MOVES = 1;
+	public static final int G_MODEL_MOVES = 2;
+	public static final int G_GOOD_WRITES = 3;
+	public static final int G_WRONG_WRITES = 4;
+	public static final int G_MISSING_WRITES = 5;
+	static final int NUM_GLOBAL_COLUMNS = 6;
+
+	public static final int T_GOOD_MOVES = 0;
+	public static final int T_MODEL_MOVES = 1;
+	public static final int T_DATA_MOVES = 2;
+	public static final int T_GOOD_WRITES = 3;
+	public static final int T_WRONG_WRITES = 4;
+	public static final int T_MISSING_WRITES = 5;
+	public static final int T_GUARD_VIOLATIONS = 6;
+	static final int NUM_TRANSITION_COLUMNS = 7;
+
+	public static final int P_GOOD_MOVES = 0;
+	public static final int P_MODEL_MOVES = 1;
+	public static final int P_LOG_MOVES = 2;
+	public static final int P_DATA_MOVES = 3;
+	public static final int P_GOOD_WRITES = 4;
+	public static final int P_WRONG_WRITES = 5;
+	public static final int P_MISSING_WRITES = 6;
+	static final int NUM_PLACE_COLUMNS = 7;
+
+	public static final int V_GOOD_WRITES = 0;
+	public static final int V_WRONG_WRITES = 1;
+	public static final int V_MISSING_WRITES = 2;
+	static final int NUM_VARIABLE_COLUMNS = 3;
+
+	private final int numTransitions;
+	private final int numPlaces;
+	private final int numVariables;
+
+	private final int transitionOffset;
+	private final int placeOffset;
+	private final int variableOffset;
+
+	private final long[] values;
+	private final List<Multiset<String>> observedLogMoves;
+
+	private int numAlignments;
+	private double sumFitness;
+
+	public StatisticsStore(NetIndex index) {
+		this(index.getNumTransitions(), index.getNumPlaces(), index.getNumVariables());
+	}
+
+	private StatisticsStore(int numTransitions, int numPlaces, int numVariables) {
+		super();
+		this.numTransitions = numTransitions;
+		this.numPlaces = numPlaces;
+		this.numVariables = numVariables;
+		this.transitionOffset = NUM_GLOBAL_COLUMNS;
+		this.placeOffset = transitionOffset + NUM_TRANSITION_COLUMNS * numTransitions;
+		this.variableOffset = placeOffset + NUM_PLACE_COLUMNS * numPlaces;
+		this.values = new long[variableOffset + NUM_VARIABLE_COLUMNS * numVariables];
+		this.observedLogMoves = new ArrayList<>(numPlaces);
+		for (int i = 0; i < numPlaces; i++) {
+			observedLogMoves.add(null);
+		}
+	}
+
+	/**
+	 * Creates a deep copy of the other store.
+	 *
+	 * @param other
+	 */
+	public StatisticsStore(StatisticsStore other) {
+		this(other.numTransitions, other.numPlaces, other.numVariables);
+		System.arraycopy(other.values, 0, values, 0, values.length);
+		for (int i = 0; i < numPlaces; i++) {
+			Multiset<String> otherLogMoves = other.observedLogMoves.get(i);
+			if (otherLogMoves != null) {
+				observedLogMoves.set(i, HashMultiset.create(otherLogMoves));
+			}
+		}
+		this.sumFitness = other.sumFitness;
+		this.numAlignments = other.numAlignments;
+	}
+
+	public int getNumSlots() {
+		return values.length;
+	}
+
+	public int globalSlot(int column) {
+		return column;
+	}
+
+	public int transitionSlot(int column, int transition) {
+		return transitionOffset + column * numTransitions + transition;
+	}
+
+	public int placeSlot(int column, int place) {
+		return placeOffset + column * numPlaces + place;
+	}
+
+	public int variableSlot(int column, int variable) {
+		return variableOffset + column * numVariables + variable;
+	}
+
+	public long get(int slot) {
+		return values[slot];
+	}
+
+	public void inc(int slot, long delta) {
+		values[slot] += delta;
+	}
+
+	public long getGlobal(int column) {
+		return values[column];
+	}
+
+	public long getTransition(int column, int transition) {
+		return values[transitionSlot(column, transition)];
+	}
+
+	public long getPlace(int column, int place) {
+		return values[placeSlot(column, place)];
+	}
+
+	public long getVariable(int column, int variable) {
+		return values[variableSlot(column, variable)];
+	}
+
+	/**
+	 * Records a log move of the event class while the place was marked. A
+	 * negative count removes previously recorded log moves.
+	 *
+	 * @param place
+	 * @param eventClassId
+	 * @param count
+	 */
+	public void addLogMove(int place, String eventClassId, int count) {
+		Multiset<String> logMoves = observedLogMoves.get(place);
+		if (logMoves == null) {
+			logMoves = HashMultiset.create();
+			observedLogMoves.set(place, logMoves);
+		}
+		if (count >= 0) {
+			logMoves.add(eventClassId, count);
+		} else {
+			logMoves.remove(eventClassId, -count);
+		}
+	}
+
+	/**
+	 * @param place
+	 * @return the event classes observed as log moves while the place was
+	 *         marked, may be <code>null</code> if there were none
+	 */
+	public Multiset<String> getLogMoves(int place) {
+		return observedLogMoves.get(place);
+	}
+
+	/**
+	 * Records the fitness of one alignment. A negative count removes it.
+	 *
+	 * @param fitness
+	 * @param count
+	 */
+	public void addFitness(double fitness, int count) {
+		sumFitness += fitness * count;
+		numAlignments += count;
+	}
+
+	/**
+	 * Records the summed up fitness of several alignments.
+	 *
+	 * @param sumFitness
+	 * @param count
+	 *            number of alignments summed up
+	 */
+	public void addFitnessSum(double sumFitness, int count) {
+		this.sumFitness += sumFitness;
+		numAlignments += count;
+	}
+
+	public int getNumAlignments() {
+		return numAlignments;
+	}
+
+	public double getSumFitness() {
+		return sumFitness;
+	}
+
+	/**
+	 * Adds all counters of the other store to this store.
+	 *
+	 * @param other
+	 *            store created for the same {@link NetIndex}
+	 */
+	public void add(StatisticsStore other) {
+		assert other.values.length == values.length;
+		for (int i = 0; i < values.length; i++) {
+			values[i] += other.values[i];
+		}
+		for (int i = 0; i < numPlaces; i++) {
+			Multiset<String> otherLogMoves = other.observedLogMoves.get(i);
+			if (otherLogMoves != null) {
+				Multiset<String> logMoves = observedLogMoves.get(i);
+				if (logMoves == null) {
+					logMoves = HashMultiset.create();
+					observedLogMoves.set(i, logMoves);
+				}
+				logMoves.addAll(otherLogMoves);
+			}
+		}
+		sumFitness += other.sumFitness;
+		numAlignments += other.numAlignments;
+	}
+
+}
@@ -2,15 +2,25 @@ package org.processmining.dataawareexplorer.explorer.work;
 
 public final class TransitionStatistics {
 
-	public long numGoodMoves;
-	public long numModelMoves;
-	public long numDataMoves;
+	public final long numGoodMoves;
+	public final long numModelMoves;
+	public final long numDataMoves;
 
-	public long numGoodWriteOps;
-	public long numWrongWriteOps;
-	public long numMissingWriteOps;
+	public final long numGoodWriteOps;
+	public final long numWrongWriteOps;
+	public final long numMissingWriteOps;
 
-	public long numGuardViolations;
+	public final long numGuardViolations;
+
+	TransitionStatistics(StatisticsStore store, int transition) {
+		numGoodMoves = store.getTransition(StatisticsStore.T_GOOD_MOVES, transition);
+		numModelMoves = store.getTransition(StatisticsStore.T_MODEL_MOVES, transition);
+		numDataMoves = store.getTransition(StatisticsStore.T_DATA_MOVES, transition);
+		numGoodWriteOps = store.getTransition(StatisticsStore.T_GOOD_WRITES, transition);
+		numWrongWriteOps = store.getTransition(StatisticsStore.T_WRONG_WRITES, transition);
+		numMissingWriteOps = store.getTransition(StatisticsStore.T_MISSING_WRITES, transition);
+		numGuardViolations = store.getTransition(StatisticsStore.T_GUARD_VIOLATIONS, transition);
+	}
 
 	public long getObservedMoves() {
 		return numGoodMoves + numModelMoves + numDataMoves;
@@ -19,34 +29,6 @@ public final class TransitionStatistics {
 	public long getObservedWrites() {
 		return numGoodWriteOps + numWrongWriteOps + numMissingWriteOps;
 	}
-	
-	public void incGoodMoves() {
-		numGoodMoves++;
-	}
-
-	public void incModelMoves() {
-		numModelMoves++;
-	}
-
-	public void incDataMoves() {
-		numDataMoves++;
-	}
-	
-	public void incGuardViolations() {
-		numGuardViolations ++;
-	}
-
-	public void incGoodWriteOps(long increment) {
-		numGoodWriteOps += increment;
-	}
-
-	public void incWrongWriteOps(long increment) {
-		numWrongWriteOps += increment;
-	}
-
-	public void incMissingWriteOps(long increment) {
-		numMissingWriteOps += increment;
-	}
 
 	public double getGuardViolations() {
 		if (numGuardViolations > 0) {
@@ -56,4 +38,4 @@ public final class TransitionStatistics {
 		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.Arrays;
+
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.datapetrinets.exception.VariableNotFoundException;
+import org.processmining.datapetrinets.expression.VariableProvider;
+
+/**
+ * Values of the variables during the replay of an alignment, stored in arrays
+ * indexed by the variable slots of a {@link NetIndex}. The normal values are
+ * the values before the current move, the prime values are written by the
+ * current move. A frame is reused for all moves and alignments of one worker,
+ * so evaluating a {@link CompiledGuard} does not allocate.
+ */
+public final class VariableFrame implements VariableProvider {
+
+	private final Object[] normalValues;
+	private final Object[] primeValues;
+	private final IntArrayList writtenSlots = new IntArrayList();
+
+	private CompiledGuard boundGuard;
+
+	public VariableFrame(int numVariables) {
+		super();
+		this.normalValues = new Object[numVariables];
+		this.primeValues = new Object[numVariables];
+	}
+
+	public boolean hasValue(int slot) {
+		return normalValues[slot] != null;
+	}
+
+	public boolean hasPrimeValue(int slot) {
+		return primeValues[slot] != null;
+	}
+
+	public void setPrimeValue(int slot, Object value) {
+		if (primeValues[slot] == null) {
+			writtenSlots.add(slot);
+		}
+		primeValues[slot] = value;
+	}
+
+	/**
+	 * Makes the prime values of the current move the normal values for the
+	 * next move.
+	 */
+	public void commit() {
+		for (int i = 0; i < writtenSlots.size(); i++) {
+			int slot = writtenSlots.get(i);
+			normalValues[slot] = primeValues[slot];
+			primeValues[slot] = null;
+		}
+		writtenSlots.clear();
+	}
+
+	/**
+	 * Forgets all values, e.g., before replaying the next alignment.
+	 */
+	public void reset() {
+		Arrays.fill(normalValues, null);
+		for (int i = 0; i < writtenSlots.size(); i++) {
+			primeValues[writtenSlots.get(i)] = null;
+		}
+		writtenSlots.clear();
+	}
+
+	void bind(CompiledGuard guard) {
+		this.boundGuard = guard;
+	}
+
+	public Object getValue(String variableName) throws VariableNotFoundException {
+		int slot = boundGuard != null ? boundGuard.resolve(variableName) : Integer.MIN_VALUE;
+		Object value;
+		if (slot == Integer.MIN_VALUE) {
+			value = null;
+		} else if (slot >= 0) {
+			value = normalValues[slot];
+		} else {
+			value = primeValues[-slot - 1];
+		}
+		if (value == null) {
+			throw new VariableNotFoundException("Variable " + variableName + " is missing!");
+		}
+		return value;
+	}
+
+}
@@ -2,24 +2,18 @@ package org.processmining.dataawareexplorer.explorer.work;
 
 public final class VariableStatistics {
 
-	public long numGoodWriteOps;
-	public long numWrongWriteOps;
-	public long numMissingWriteOps;
+	public final long numGoodWriteOps;
+	public final long numWrongWriteOps;
+	public final long numMissingWriteOps;
 
-	public long getObservedWrites() {
-		return numGoodWriteOps + numWrongWriteOps + numMissingWriteOps;
-	}
-	
-	public void incGoodWriteOps() {
-		numGoodWriteOps++;
+	VariableStatistics(StatisticsStore store, int variable) {
+		numGoodWriteOps = store.getVariable(StatisticsStore.V_GOOD_WRITES, variable);
+		numWrongWriteOps = store.getVariable(StatisticsStore.V_WRONG_WRITES, variable);
+		numMissingWriteOps = store.getVariable(StatisticsStore.V_MISSING_WRITES, variable);
 	}
 
-	public void incWrongWriteOps() {
-		numWrongWriteOps++;
-	}
-
-	public void incMissingWriteOps() {
-		numMissingWriteOps++;
+	public long getObservedWrites() {
+		return numGoodWriteOps + numWrongWriteOps + numMissingWriteOps;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.processmining.dataawareexplorer.explorer.work.CompactAlignedLog.AttributeStatus;
+import org.processmining.dataawareexplorer.parallel.MapReduce;
+import org.processmining.dataawareexplorer.parallel.Output;
+import org.processmining.dataawareexplorer.parallel.RangeInput;
+import org.processmining.dataawareexplorer.utils.IntArrayList;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+/**
+ * Groups the traces of a {@link CompactAlignedLog} into variants. Two traces
+ * belong to the same variant if their alignments have the same sequence of
+ * moves (move type, data move type, transition, observability and event
+ * class) with the same data outcome (status, process value and log value of
+ * every variable written and the number of missing attributes). Replaying any
+ * trace of a variant gives the same statistics, so analyses only need to
+ * process one representative per variant and multiply its contribution by
+ * the number of traces of the variant. Fitness and timestamps may still differ
+ * between the traces of a variant.
+ */
+public final class VariantIndex {
+
+	/**
+	 * Encoded moves of a trace, used as key to find its variant.
+	 */
+	private static final class Signature {
+
+		private final int[] values;
+		private final int hashCode;
+
+		private Signature(int[] values) {
+			this.values = values;
+			this.hashCode = Arrays.hashCode(values);
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return hashCode == other.hashCode && Arrays.equals(values, other.values);
+		}
+
+	}
+
+	/**
+	 * Variants of a consecutive range of traces.
+	 */
+	private static final class Chunk {
+
+		private final Map<Signature, Integer> variantIds = new HashMap<>();
+		private final List<Signature> signatures = new ArrayList<>();
+		private final IntArrayList representatives = new IntArrayList();
+		private final IntArrayList weights = new IntArrayList();
+		private final IntArrayList traceVariants = new IntArrayList();
+
+		private void addTrace(int traceId, Signature signature) {
+			Integer id = variantIds.get(signature);
+			if (id == null) {
+				id = signatures.size();
+				variantIds.put(signature, id);
+				signatures.add(signature);
+				representatives.add(traceId);
+				weights.add(0);
+			}
+			weights.set(id, weights.get(id) + 1);
+			traceVariants.add(id);
+		}
+
+		private void append(Chunk other) {
+			int[] mapping = new int[other.signatures.size()];
+			for (int i = 0; i < mapping.length; i++) {
+				Signature signature = other.signatures.get(i);
+				Integer id = variantIds.get(signature);
+				if (id == null) {
+					id = signatures.size();
+					variantIds.put(signature, id);
+					signatures.add(signature);
+					representatives.add(other.representatives.get(i));
+					weights.add(other.weights.get(i));
+				} else {
+					weights.set(id, weights.get(id) + other.weights.get(i));
+				}
+				mapping[i] = id;
+			}
+			for (int i = 0; i < other.traceVariants.size(); i++) {
+				traceVariants.add(mapping[other.traceVariants.get(i)]);
+			}
+		}
+
+	}
+
+	private static final class ChunkInput extends RangeInput<Chunk> {
+
+		private final CompactAlignedLog log;
+		private final boolean[] isVariableKey;
+
+		private ChunkInput(CompactAlignedLog log, boolean[] isVariableKey, int from, int to) {
+			super(from, to);
+			this.log = log;
+			this.isVariableKey = isVariableKey;
+		}
+
+		protected Output<Chunk> computeRange(int from, int to) {
+			Chunk chunk = new Chunk();
+			IntArrayList buffer = new IntArrayList();
+			for (int traceId = from; traceId < to; traceId++) {
+				chunk.addTrace(traceId, createSignature(log, isVariableKey, traceId, buffer));
+			}
+			return new ChunkOutput(chunk);
+		}
+
+		protected RangeInput<Chunk> createRange(int from, int to) {
+			return new ChunkInput(log, isVariableKey, from, to);
+		}
+	}
+
+	private static final class ChunkOutput implements Output<Chunk> {
+
+		private final Chunk chunk;
+
+		private ChunkOutput(Chunk chunk) {
+			this.chunk = chunk;
+		}
+
+		public Output<Chunk> reduce(Output<Chunk> other) {
+			chunk.append(other.getResult());
+			return this;
+		}
+
+		public Chunk getResult() {
+			return chunk;
+		}
+	}
+
+	private final CompactAlignedLog log;
+
+	private final int[] traceVariants;
+	private final int[] representatives;
+	private final int[] weights;
+
+	/**
+	 * Groups the traces sequentially.
+	 *
+	 * @param log
+	 */
+	public VariantIndex(CompactAlignedLog log) {
+		this(log, new ChunkInput(log, variableKeys(log), 0, log.size()).computeDirectly().getResult());
+	}
+
+	/**
+	 * Groups the traces in parallel on the supplied pool.
+	 *
+	 * @param log
+	 * @param pool
+	 */
+	public VariantIndex(CompactAlignedLog log, ForkJoinPool pool) {
+		this(log, new MapReduce<Chunk>(pool).execute(new ChunkInput(log, variableKeys(log), 0, log.size())));
+	}
+
+	private VariantIndex(CompactAlignedLog log, Chunk chunk) {
+		super();
+		this.log = log;
+		this.traceVariants = chunk.traceVariants.toArray();
+		this.representatives = chunk.representatives.toArray();
+		this.weights = chunk.weights.toArray();
+	}
+
+	private static boolean[] variableKeys(CompactAlignedLog log) {
+		boolean[] isVariableKey = new boolean[log.getNumKeys()];
+		for (int i = 0; i < log.getNetIndex().getNumVariables(); i++) {
+			int keyId = log.getVariableKey(i);
+			if (keyId != -1) {
+				isVariableKey[keyId] = true;
+			}
+		}
+		return isVariableKey;
+	}
+
+	private static Signature createSignature(CompactAlignedLog log, boolean[] isVariableKey, int traceId,
+			IntArrayList buffer) {
+		buffer.clear();
+		for (int move = log.getMoveStart(traceId); move < log.getMoveEnd(traceId); move++) {
+			buffer.add(log.getMoveType(move).ordinal());
+			buffer.add(log.getDataMoveType(move) != null ? log.getDataMoveType(move).ordinal() : -1);
+			buffer.add(log.getTransition(move));
+			buffer.add(log.isObservable(move) ? 1 : 0);
+			buffer.add(log.getEventClassId(move));
+			int missing = 0;
+			int invalid = 0;
+			for (int a = log.getAttributeStart(move); a < log.getAttributeEnd(move); a++) {
+				AttributeStatus status = log.getAttributeStatus(a);
+				if (status == AttributeStatus.MISSING) {
+					missing++;
+				} else if (status == AttributeStatus.INVALID) {
+					invalid++;
+				}
+				int keyId = log.getAttributeKey(a);
+				if (isVariableKey[keyId]) {
+					buffer.add(keyId);
+					buffer.add(status.ordinal());
+					buffer.add(log.getAttributeValueId(a));
+					buffer.add(log.getAttributeLogValueId(a));
+				}
+			}
+			// Also separates the variable attributes of consecutive moves
+			buffer.add(-missing - 1);
+			buffer.add(invalid);
+		}
+		return new Signature(buffer.toArray());
+	}
+
+	public CompactAlignedLog getLog() {
+		return log;
+	}
+
+	/**
+	 * @return the number of variants
+	 */
+	public int size() {
+		return representatives.length;
+	}
+
+	/**
+	 * @param traceId
+	 * @return the variant of the trace
+	 */
+	public int getVariant(int traceId) {
+		return traceVariants[traceId];
+	}
+
+	/**
+	 * @param variant
+	 * @return the trace id of the first trace of the variant
+	 */
+	public int getRepresentative(int variant) {
+		return representatives[variant];
+	}
+
+	/**
+	 * @param variant
+	 * @return the number of traces of the whole log in the variant
+	 */
+	public int getWeight(int variant) {
+		return weights[variant];
+	}
+
+	/**
+	 * @param alignments
+	 *            part of the log
+	 * @return for each variant the number of alignments in the variant
+	 */
+	public int[] countVariants(Iterable<XAlignment> alignments) {
+		int[] counts = new int[representatives.length];
+		for (XAlignment alignment : alignments) {
+			counts[traceVariants[log.requireTraceId(alignment)]]++;
+		}
+		return counts;
+	}
+
+}
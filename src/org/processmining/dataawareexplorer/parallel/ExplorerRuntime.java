@@ -0,0 +1,294 @@
+package org.processmining.dataawareexplorer.parallel;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Threads used by all explorers and headless runs of the JVM. Work is
+ * submitted to one of the named {@link WorkQueue}s, each of which is backed by
+ * a fixed number of daemon threads and a queue, which is bounded except for
+ * the {@link WorkQueue#LAYOUT} queue. The runtime is created
+ * on first use by {@link #getInstance()}. Explorers and headless runs hold it
+ * with {@link #acquire()} and give it back with {@link #release()}, the last
+ * release shuts it down. The next call to {@link #getInstance()} then creates
+ * a new runtime.
+ */
+public final class ExplorerRuntime {
+
+	public enum WorkQueue {
+
+		/**
+		 * Short analysis tasks, e.g., the statistics of the filtered
+		 * alignments. Tasks on this queue must not wait for other tasks of this
+		 * queue. A full queue runs the task in the submitting thread.
+		 */
+		CPU("cpu", Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 4096, true),
+
+		/**
+		 * Long running computations that coordinate work on the
+		 * {@link WorkQueue#CPU} queue, e.g., alignments or rule discovery.
+		 */
+		ALIGNMENT("alignment", 2, 16, false),
+
+		/**
+		 * Updates of the views and the layout of the model. Every explorer has
+		 * at most one update in this queue, which is never rejected as the
+		 * explorer would otherwise not be updated anymore. One thread per core
+		 * keeps the updates of several explorers from waiting for each other.
+		 */
+		LAYOUT("layout", Math.max(2, Runtime.getRuntime().availableProcessors()), Integer.MAX_VALUE, false),
+
+		/**
+		 * Reading and writing of files.
+		 */
+		IO("io", 2, 64, false);
+
+		private final String name;
+		private final int numThreads;
+		private final int capacity;
+		private final boolean isCallerRunsWhenFull;
+
+		private WorkQueue(String name, int numThreads, int capacity, boolean isCallerRunsWhenFull) {
+			this.name = name;
+			this.numThreads = numThreads;
+			this.capacity = capacity;
+			this.isCallerRunsWhenFull = isCallerRunsWhenFull;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getNumThreads() {
+			return numThreads;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+	}
+
+	/**
+	 * Snapshot of the load of a {@link WorkQueue}.
+	 */
+	public static final class QueueMetrics {
+
+		private final WorkQueue queue;
+		private final int activeThreads;
+		private final int queuedTasks;
+		private final long completedTasks;
+		private final long rejectedTasks;
+
+		private QueueMetrics(WorkQueue queue, int activeThreads, int queuedTasks, long completedTasks,
+				long rejectedTasks) {
+			this.queue = queue;
+			this.activeThreads = activeThreads;
+			this.queuedTasks = queuedTasks;
+			this.completedTasks = completedTasks;
+			this.rejectedTasks = rejectedTasks;
+		}
+
+		public WorkQueue getQueue() {
+			return queue;
+		}
+
+		public int getActiveThreads() {
+			return activeThreads;
+		}
+
+		public int getQueuedTasks() {
+			return queuedTasks;
+		}
+
+		public long getCompletedTasks() {
+			return completedTasks;
+		}
+
+		/**
+		 * @return number of tasks that did not fit into the queue, these were
+		 *         either run by the submitting thread or rejected
+		 */
+		public long getRejectedTasks() {
+			return rejectedTasks;
+		}
+
+		public String toString() {
+			return String.format("%s: %s/%s active, %s queued, %s completed, %s rejected", queue.getName(),
+					activeThreads, queue.getNumThreads(), queuedTasks, completedTasks, rejectedTasks);
+		}
+
+	}
+
+	private static final class NamedThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		private NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, prefix + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+	private static final class CountingRejectionHandler implements RejectedExecutionHandler {
+
+		private final WorkQueue queue;
+		private final AtomicLong rejectedCount = new AtomicLong();
+
+		private CountingRejectionHandler(WorkQueue queue) {
+			this.queue = queue;
+		}
+
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+			rejectedCount.incrementAndGet();
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Explorer runtime has been shut down");
+			}
+			if (queue.isCallerRunsWhenFull) {
+				r.run();
+			} else {
+				throw new RejectedExecutionException(
+						String.format("Queue %s is full (%s tasks)", queue.getName(), queue.getCapacity()));
+			}
+		}
+
+	}
+
+	private static final String THREAD_PREFIX = "explorer-";
+
+	private static ExplorerRuntime instance;
+	private static int numUsers;
+
+	private final Map<WorkQueue, ThreadPoolExecutor> executors = new EnumMap<>(WorkQueue.class);
+	private final Map<WorkQueue, CountingRejectionHandler> rejectionHandlers = new EnumMap<>(WorkQueue.class);
+	private final ForkJoinPool forkJoinPool;
+
+	private ExplorerRuntime() {
+		super();
+		for (WorkQueue queue : WorkQueue.values()) {
+			CountingRejectionHandler rejectionHandler = new CountingRejectionHandler(queue);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(queue.getNumThreads(), queue.getNumThreads(), 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queue.getCapacity()),
+					new NamedThreadFactory(THREAD_PREFIX + queue.getName()), rejectionHandler);
+			// Idle explorers should not keep any threads around
+			executor.allowCoreThreadTimeOut(true);
+			executors.put(queue, executor);
+			rejectionHandlers.put(queue, rejectionHandler);
+		}
+		this.forkJoinPool = new ForkJoinPool(WorkQueue.CPU.getNumThreads(), new ForkJoinWorkerThreadFactory() {
+
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName(THREAD_PREFIX + "forkjoin-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		}, null, false);
+	}
+
+	/**
+	 * @return the runtime of this JVM, created if it does not exist or has
+	 *         been shut down
+	 */
+	public static synchronized ExplorerRuntime getInstance() {
+		if (instance == null) {
+			instance = new ExplorerRuntime();
+		}
+		return instance;
+	}
+
+	/**
+	 * Registers a user of the runtime, which is not shut down before the user
+	 * calls {@link #release()}.
+	 *
+	 * @return the runtime of this JVM
+	 */
+	public static synchronized ExplorerRuntime acquire() {
+		numUsers++;
+		return getInstance();
+	}
+
+	/**
+	 * Unregisters a user that called {@link #acquire()} and shuts down the
+	 * runtime if it was the last user.
+	 */
+	public static synchronized void release() {
+		if (numUsers > 0 && --numUsers == 0) {
+			shutdown();
+		}
+	}
+
+	/**
+	 * Shuts down the runtime of this JVM regardless of its users. Running tasks
+	 * are completed, but no new tasks are accepted.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			for (ThreadPoolExecutor executor : instance.executors.values()) {
+				executor.shutdown();
+			}
+			instance.forkJoinPool.shutdown();
+			instance = null;
+		}
+		numUsers = 0;
+	}
+
+	/**
+	 * @param queue
+	 * @return the executor of the queue
+	 */
+	public ExecutorService getExecutor(WorkQueue queue) {
+		return executors.get(queue);
+	}
+
+	/**
+	 * @return a pool for {@link MapReduce} jobs, which shares the parallelism
+	 *         of the {@link WorkQueue#CPU} queue
+	 */
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	/**
+	 * @param queue
+	 * @return current load of the queue
+	 */
+	public QueueMetrics getMetrics(WorkQueue queue) {
+		ThreadPoolExecutor executor = executors.get(queue);
+		return new QueueMetrics(queue, executor.getActiveCount(), executor.getQueue().size(),
+				executor.getCompletedTaskCount(), rejectionHandlers.get(queue).rejectedCount.get());
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ExplorerRuntime [");
+		for (WorkQueue queue : WorkQueue.values()) {
+			sb.append(getMetrics(queue)).append("; ");
+		}
+		sb.append("forkjoin: ").append(forkJoinPool.getActiveThreadCount()).append(" active, ")
+				.append(forkJoinPool.getQueuedTaskCount()).append(" queued, ").append(forkJoinPool.getStealCount())
+				.append(" steals]");
+		return sb.toString();
+	}
+
+}
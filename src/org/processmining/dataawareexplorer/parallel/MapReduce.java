@@ -16,12 +16,22 @@
 
 package org.processmining.dataawareexplorer.parallel;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 
+import com.google.common.base.Throwables;
+
 /**
  * A thin wrapper around a ForkJoinPool that enables the caller to retrieve the
  * result of a Map/Reduce computation in a type-safe fashion.
+ * <p>
+ * A {@link RangeInput} is split adaptively, based on the parallelism of the
+ * pool and on the cost per element measured for earlier executions of the same
+ * input class. Interrupting the calling thread cancels such an execution:
+ * pieces that have not started are skipped and a
+ * {@link CancellationException} is thrown.
  * 
  * @author patrick.peschlow
  * 
@@ -30,18 +40,74 @@ import java.util.concurrent.ForkJoinTask;
  */
 public class MapReduce<T> {
 
+	public interface ProgressListener {
+
+		/**
+		 * Called by the pool threads whenever a piece of a {@link RangeInput}
+		 * has been computed.
+		 * 
+		 * @param completed
+		 *            number of elements computed so far
+		 * @param total
+		 *            number of elements of the input
+		 */
+		void onProgress(long completed, long total);
+
+	}
+
 	private final ForkJoinPool pool;
+	private final ProgressListener progressListener;
 
 	public MapReduce(ForkJoinPool pool) {
+		this(pool, null);
+	}
+
+	public MapReduce(ForkJoinPool pool, ProgressListener progressListener) {
 		this.pool = pool;
+		this.progressListener = progressListener;
 	}
 
 	public T execute(Input<T> input) {
+		MapReduceExecution execution = null;
+		if (input instanceof RangeInput) {
+			RangeInput<T> rangeInput = (RangeInput<T>) input;
+			execution = new MapReduceExecution(input.getClass(), rangeInput.size(), pool.getParallelism(),
+					progressListener);
+			rangeInput.bind(execution);
+		}
+
 		ForkJoinTask<Output<T>> task = new MapReduceTask<T>(input);
 
-		Output<T> output = pool.invoke(task);
+		if (ForkJoinTask.inForkJoinPool()) {
+			// Nested execution, joins by helping with the work
+			return pool.invoke(task).getResult();
+		}
 
-		return output.getResult();
+		pool.execute(task);
+		try {
+			return task.get().getResult();
+		} catch (InterruptedException e) {
+			if (execution != null) {
+				execution.cancel();
+			}
+			task.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the Map/Reduce result");
+		} catch (ExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
 	}
-	
-}
\ No newline at end of file
+
+	/**
+	 * @param size
+	 *            number of elements
+	 * @param parallelism
+	 *            number of threads
+	 * @return number of elements per chunk for work that is partitioned
+	 *         upfront, e.g., for an {@link java.util.concurrent.ExecutorService}
+	 */
+	public static int getChunkSize(int size, int parallelism) {
+		return MapReduceExecution.getGrainSize(size, parallelism, 0);
+	}
+
+}
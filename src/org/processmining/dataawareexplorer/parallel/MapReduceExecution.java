@@ -0,0 +1,92 @@
+package org.processmining.dataawareexplorer.parallel;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.processmining.dataawareexplorer.parallel.MapReduce.ProgressListener;
+
+/**
+ * State of one execution of a {@link RangeInput} shared by all of its pieces:
+ * the granularity of the split, the cancellation flag and the progress.
+ */
+final class MapReduceExecution {
+
+	// Pieces should run at least this long to amortize the cost of forking
+	private static final long TARGET_PIECE_NANOS = 500000;
+
+	// Pieces per thread, so that threads that finish early can steal work
+	private static final int PIECES_PER_THREAD = 4;
+
+	// Measured nanoseconds per element by the class of the input, as bits of a double
+	private static final ConcurrentMap<Class<?>, AtomicLong> COST_PER_ELEMENT = new ConcurrentHashMap<>();
+
+	private final AtomicLong costPerElement;
+	private final int size;
+	private final int grainSize;
+	private final ProgressListener progressListener;
+	private final AtomicLong completedElements = new AtomicLong();
+
+	private volatile boolean isCancelled = false;
+
+	MapReduceExecution(Class<?> inputClass, int size, int parallelism, ProgressListener progressListener) {
+		AtomicLong cost = COST_PER_ELEMENT.get(inputClass);
+		if (cost == null) {
+			AtomicLong newCost = new AtomicLong(Double.doubleToLongBits(0));
+			cost = COST_PER_ELEMENT.putIfAbsent(inputClass, newCost);
+			if (cost == null) {
+				cost = newCost;
+			}
+		}
+		this.costPerElement = cost;
+		this.size = size;
+		this.grainSize = getGrainSize(size, parallelism, Double.longBitsToDouble(cost.get()));
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * @param size
+	 *            number of elements
+	 * @param parallelism
+	 *            number of threads
+	 * @param nanosPerElement
+	 *            measured cost of an element, 0 if unknown
+	 * @return number of elements below which a piece is computed directly
+	 */
+	static int getGrainSize(int size, int parallelism, double nanosPerElement) {
+		long balancedSize = (size + (long) PIECES_PER_THREAD * parallelism - 1)
+				/ ((long) PIECES_PER_THREAD * parallelism);
+		long costSize = nanosPerElement > 0 ? (long) (TARGET_PIECE_NANOS / nanosPerElement) : 1;
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.max(balancedSize, costSize)));
+	}
+
+	boolean shouldSplit(int pieceSize) {
+		return pieceSize > 1 && pieceSize > grainSize;
+	}
+
+	void completed(int elements, long nanos) {
+		if (elements > 0) {
+			// Exponentially weighted average, lost updates by concurrent pieces do not matter
+			double sample = (double) nanos / elements;
+			double previous = Double.longBitsToDouble(costPerElement.get());
+			double updated = previous > 0 ? previous * 0.75 + sample * 0.25 : sample;
+			costPerElement.set(Double.doubleToLongBits(updated));
+		}
+		long completed = completedElements.addAndGet(elements);
+		if (progressListener != null) {
+			progressListener.onProgress(completed, size);
+		}
+	}
+
+	void cancel() {
+		isCancelled = true;
+	}
+
+	void checkCancelled() throws CancellationException {
+		if (isCancelled) {
+			throw new CancellationException("Map/Reduce execution was cancelled");
+		}
+	}
+
+}
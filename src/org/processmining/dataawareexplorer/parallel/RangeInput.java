@@ -0,0 +1,104 @@
+package org.processmining.dataawareexplorer.parallel;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Input over a range of indices, e.g., of traces or variants. The range is
+ * split in halves until the pieces are small enough, which is decided by
+ * {@link MapReduce} based on the parallelism of the pool and the cost per
+ * element measured for earlier executions of the same kind of input. Pieces
+ * are not started anymore once the execution has been cancelled and their
+ * completion is reported as progress.
+ *
+ * @param <T>
+ *            the type of the result computed by the job
+ */
+public abstract class RangeInput<T> implements Input<T> {
+
+	private final int from;
+	private final int to;
+
+	private MapReduceExecution execution;
+
+	/**
+	 * @param from
+	 *            first index (inclusive)
+	 * @param to
+	 *            last index (exclusive)
+	 */
+	protected RangeInput(int from, int to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	public final int getFrom() {
+		return from;
+	}
+
+	public final int getTo() {
+		return to;
+	}
+
+	public final int size() {
+		return to - from;
+	}
+
+	final void bind(MapReduceExecution execution) {
+		this.execution = execution;
+	}
+
+	public boolean shouldBeComputedDirectly() {
+		if (execution == null) {
+			// Not executed by MapReduce
+			return true;
+		}
+		return !execution.shouldSplit(size());
+	}
+
+	public final Output<T> computeDirectly() {
+		if (execution == null) {
+			return computeRange(from, to);
+		}
+		execution.checkCancelled();
+		long start = System.nanoTime();
+		Output<T> output = computeRange(from, to);
+		execution.completed(size(), System.nanoTime() - start);
+		return output;
+	}
+
+	public final List<MapReduceTask<T>> split() {
+		if (execution != null) {
+			execution.checkCancelled();
+		}
+		int middle = from + (to - from) / 2;
+		RangeInput<T> left = createRange(from, middle);
+		left.bind(execution);
+		RangeInput<T> right = createRange(middle, to);
+		right.bind(execution);
+		return ImmutableList.of(new MapReduceTask<T>(left), new MapReduceTask<T>(right));
+	}
+
+	/**
+	 * Performs the computation for the elements of the range (i.e., the map
+	 * phase of the job).
+	 *
+	 * @param from
+	 *            first index (inclusive)
+	 * @param to
+	 *            last index (exclusive)
+	 * @return the output object returned by the computation
+	 */
+	protected abstract Output<T> computeRange(int from, int to);
+
+	/**
+	 * @param from
+	 *            first index (inclusive)
+	 * @param to
+	 *            last index (exclusive)
+	 * @return an input of the same kind over a part of this range
+	 */
+	protected abstract RangeInput<T> createRange(int from, int to);
+
+}
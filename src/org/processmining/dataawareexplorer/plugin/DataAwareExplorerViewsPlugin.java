@@ -4,8 +4,6 @@
 package org.processmining.dataawareexplorer.plugin;
 
 import java.awt.Dialog.ModalityType;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.swing.JComponent;
 
@@ -25,6 +23,7 @@ import org.processmining.dataawareexplorer.explorer.model.ExplorerModel;
 import org.processmining.dataawareexplorer.explorer.model.FilterConfiguration;
 import org.processmining.dataawareexplorer.explorer.netview.NetView;
 import org.processmining.dataawareexplorer.explorer.netview.impl.ViewMode;
+import org.processmining.dataawareexplorer.parallel.ExplorerRuntime;
 import org.processmining.dataawareexplorer.utils.PetrinetUtils;
 import org.processmining.datapetrinets.DataPetriNet;
 import org.processmining.datapetrinets.DataPetriNetsWithMarkings;
@@ -69,8 +68,8 @@ public class DataAwareExplorerViewsPlugin {
 			return factory;
 		}
 
-		public ExecutorService getExecutor() {
-			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		public ExplorerRuntime getRuntime() {
+			return ExplorerRuntime.getInstance();
 		}
 
 		public ExplorerInterface getUserQuery() {
@@ -242,11 +241,18 @@ public class DataAwareExplorerViewsPlugin {
 		ExplorerUpdater updatableExplorer = new ExplorerUpdaterNoOpImpl();
 		ExplorerInterface userQuery = new ExplorerInterfaceHeadlessImpl();
 		ExplorerContext explorerContext = new ExplorerContextHeadlessImpl(context, userQuery);
-		computeAlignment(context, explorerModel, explorerContext);
-		context.log("Computing visualization ...");
-		explorerModel.filter();
-		NetView performanceView = createNetView(viewMode, explorerModel, updatableExplorer, explorerContext);
-		return createDot(explorerModel, explorerContext, updatableExplorer, performanceView);
+		ExplorerRuntime.acquire();
+		try {
+			computeAlignment(context, explorerModel, explorerContext);
+			context.log("Computing visualization ...");
+			explorerModel.filter();
+			NetView performanceView = createNetView(viewMode, explorerModel, updatableExplorer, explorerContext);
+			Dot dot = createDot(explorerModel, explorerContext, updatableExplorer, performanceView);
+			context.log("Done, " + explorerContext.getRuntime());
+			return dot;
+		} finally {
+			ExplorerRuntime.release();
+		}
 	}
 
 	private Dot createDot(final ExplorerModel explorerModel, ExplorerContext explorerContext, ExplorerUpdater updatableExplorer,
@@ -0,0 +1,71 @@
+package org.processmining.dataawareexplorer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive int values without boxing.
+ */
+public final class IntArrayList {
+
+	private int[] values;
+	private int size;
+
+	public IntArrayList() {
+		this(16);
+	}
+
+	public IntArrayList(int initialCapacity) {
+		super();
+		this.values = new int[Math.max(initialCapacity, 1)];
+	}
+
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size++] = value;
+	}
+
+	public void addAll(IntArrayList other) {
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.values, 0, values, size, other.size);
+		size += other.size;
+	}
+
+	public int get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[index];
+	}
+
+	public void set(int index, int value) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		values[index] = value;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+	}
+
+}
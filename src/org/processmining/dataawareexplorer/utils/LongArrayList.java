@@ -0,0 +1,71 @@
+package org.processmining.dataawareexplorer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive long values without boxing.
+ */
+public final class LongArrayList {
+
+	private long[] values;
+	private int size;
+
+	public LongArrayList() {
+		this(16);
+	}
+
+	public LongArrayList(int initialCapacity) {
+		super();
+		this.values = new long[Math.max(initialCapacity, 1)];
+	}
+
+	public void add(long value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size++] = value;
+	}
+
+	public void addAll(LongArrayList other) {
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.values, 0, values, size, other.size);
+		size += other.size;
+	}
+
+	public long get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[index];
+	}
+
+	public void set(int index, long value) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		values[index] = value;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public long[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+	}
+
+}
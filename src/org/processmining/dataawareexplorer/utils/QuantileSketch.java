@@ -0,0 +1,215 @@
+package org.processmining.dataawareexplorer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of a distribution of long values that answers quantile
+ * queries with a bounded relative error. Values are counted in buckets whose
+ * bounds grow exponentially, so that every value in a bucket is within the
+ * relative accuracy of the value reported for the bucket (as in DDSketch). The
+ * number of buckets only grows with the logarithm of the range of the values,
+ * not with their number. Count, sum, minimum and maximum are kept exactly.
+ */
+public final class QuantileSketch {
+
+	/**
+	 * Counts by bucket index, growing in both directions as needed.
+	 */
+	private static final class Buckets {
+
+		private long[] counts = new long[0];
+		private int offset;
+
+		private void add(int index, long count) {
+			if (counts.length == 0) {
+				counts = new long[16];
+				offset = index - 8;
+			} else if (index < offset) {
+				int shift = Math.max(offset - index, counts.length / 2);
+				long[] newCounts = new long[counts.length + shift];
+				System.arraycopy(counts, 0, newCounts, shift, counts.length);
+				counts = newCounts;
+				offset -= shift;
+			} else if (index >= offset + counts.length) {
+				counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length + counts.length / 2));
+			}
+			counts[index - offset] += count;
+		}
+
+		private void addAll(Buckets other) {
+			for (int i = 0; i < other.counts.length; i++) {
+				if (other.counts[i] != 0) {
+					add(other.offset + i, other.counts[i]);
+				}
+			}
+		}
+
+	}
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+
+	// Positive values and absolute negative values
+	private final Buckets positive = new Buckets();
+	private final Buckets negative = new Buckets();
+	private long zeroCount;
+
+	private long count;
+	private double sum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * @param relativeAccuracy
+	 *            bound on the relative error of the reported quantiles, e.g.,
+	 *            0.01 for 1%
+	 */
+	public QuantileSketch(double relativeAccuracy) {
+		super();
+		if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+			throw new IllegalArgumentException("Relative accuracy must be in (0,1), was " + relativeAccuracy);
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	public double getRelativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	public void add(long value) {
+		add(value, 1);
+	}
+
+	public void add(long value, long valueCount) {
+		if (value > 0) {
+			positive.add(index(value), valueCount);
+		} else if (value < 0) {
+			negative.add(index(-(double) value), valueCount);
+		} else {
+			zeroCount += valueCount;
+		}
+		count += valueCount;
+		sum += (double) value * valueCount;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds all values of the other sketch to this sketch.
+	 *
+	 * @param other
+	 *            sketch with the same relative accuracy
+	 */
+	public void addAll(QuantileSketch other) {
+		if (other.relativeAccuracy != relativeAccuracy) {
+			throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+		}
+		positive.addAll(other.positive);
+		negative.addAll(other.negative);
+		zeroCount += other.zeroCount;
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return sum / count;
+	}
+
+	/**
+	 * Estimates the quantile like
+	 * {@link org.apache.commons.math3.stat.StatUtils#percentile(double[], double)}
+	 * does on the exact values: the position quantile * (n + 1) is interpolated
+	 * between the values at the neighbouring ranks. Thus, the estimator does not
+	 * change when exact values are replaced by a sketch. The values at the ranks
+	 * are within the relative accuracy, and so is their interpolation as long as
+	 * both have the same sign. Otherwise, the error is bounded by the relative
+	 * accuracy of the larger absolute value.
+	 *
+	 * @param quantile
+	 *            between 0 and 1
+	 * @return the estimated value at the quantile, or NaN if the sketch is
+	 *         empty
+	 */
+	public double getQuantile(double quantile) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		double pos = quantile * (count + 1);
+		if (pos < 1) {
+			return min;
+		} else if (pos >= count) {
+			return max;
+		}
+		long intPos = (long) Math.floor(pos);
+		double lower = getValueAtRank(intPos - 1);
+		double upper = getValueAtRank(intPos);
+		return lower + (pos - intPos) * (upper - lower);
+	}
+
+	/**
+	 * @param rank
+	 *            zero-based rank in the sorted values
+	 * @return the value of the bucket that contains the rank, the minimum and
+	 *         maximum are exact
+	 */
+	private double getValueAtRank(long rank) {
+		if (rank <= 0) {
+			return min;
+		} else if (rank >= count - 1) {
+			return max;
+		}
+		long seen = 0;
+		// Negative values in ascending order, i.e., largest absolute value first
+		for (int i = negative.counts.length - 1; i >= 0; i--) {
+			seen += negative.counts[i];
+			if (seen > rank) {
+				return clamp(-value(negative.offset + i));
+			}
+		}
+		seen += zeroCount;
+		if (seen > rank) {
+			return 0;
+		}
+		for (int i = 0; i < positive.counts.length; i++) {
+			seen += positive.counts[i];
+			if (seen > rank) {
+				return clamp(value(positive.offset + i));
+			}
+		}
+		return max;
+	}
+
+	private int index(double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	private double value(int index) {
+		return 2 * Math.pow(gamma, index) / (gamma + 1);
+	}
+
+	private double clamp(double value) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.processmining.dataawareexplorer.explorer.netview.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.math3.stat.StatUtils;
+import org.junit.Test;
+import org.processmining.dataawareexplorer.explorer.netview.impl.NetViewAbstractPerformanceAware.WaitingTimes;
+
+/**
+ * Checks that the percentiles of the exact waiting times are computed as by
+ * {@link StatUtils#percentile(double[], double)}.
+ */
+public class WaitingTimesTest extends TestCase {
+
+	private static final double[] PERCENTILES = { 0.5d, 1d, 10d, 25d, 33.3d, 50d, 75d, 90d, 99d, 100d };
+
+	@Test
+	public void testPercentileMatchesStatUtils() {
+		Random random = new Random(42);
+		for (int n = 1; n <= 100; n++) {
+			double[] values = new double[n];
+			for (int i = 0; i < n; i++) {
+				// Few distinct values, so that some neighbours are equal
+				values[i] = random.nextInt(n * 2) * 1000d;
+			}
+			double[] sortedValues = values.clone();
+			Arrays.sort(sortedValues);
+			for (double p : PERCENTILES) {
+				double expected = StatUtils.percentile(values, p);
+				// Versions of StatUtils scale p before or after multiplying, which may differ in the last bit
+				assertEquals("n=" + n + ", p=" + p, expected, WaitingTimes.percentile(sortedValues, p),
+						1e-12 * Math.max(1d, Math.abs(expected)));
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(WaitingTimesTest.class);
+	}
+
+}
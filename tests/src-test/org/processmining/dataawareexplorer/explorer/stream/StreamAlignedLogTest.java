@@ -0,0 +1,210 @@
+package org.processmining.dataawareexplorer.explorer.stream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+import org.processmining.dataawareexplorer.explorer.work.SmallAlignedLog;
+import org.processmining.datapetrinets.DataPetriNetsWithMarkings;
+import org.processmining.xesalignmentextension.XAlignmentExtension.MoveType;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignedLog;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignmentMove;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+
+/**
+ * Streams the events of the traces of the {@link SmallAlignedLog} and checks
+ * that the closed cases are aligned as by an offline alignment of the log.
+ * Every trace reaches the final marking with its last event, so that each case
+ * is closed by its last event.
+ */
+public class StreamAlignedLogTest extends TestCase {
+
+	private static final int MAX_CASES = 100;
+
+	private static List<List<StreamEvent>> toStreamEvents(XLog log) {
+		List<List<StreamEvent>> cases = new ArrayList<>();
+		for (XTrace trace : log) {
+			List<StreamEvent> events = new ArrayList<>();
+			for (XEvent event : trace) {
+				Map<String, Object> attributes = new HashMap<>();
+				for (XAttribute attribute : event.getAttributes().values()) {
+					if (attribute instanceof XAttributeDiscrete) {
+						attributes.put(attribute.getKey(), ((XAttributeDiscrete) attribute).getValue());
+					}
+				}
+				events.add(new StreamEvent(XConceptExtension.instance().extractName(trace),
+						XConceptExtension.instance().extractName(event),
+						XTimeExtension.instance().extractTimestamp(event).getTime(), attributes));
+			}
+			cases.add(events);
+		}
+		return cases;
+	}
+
+	private static Multiset<String> countMoves(XAlignment alignment) {
+		Multiset<String> moves = HashMultiset.create();
+		for (XAlignmentMove move : alignment) {
+			moves.add(move.getType() + ":" + move.getActivityId());
+		}
+		return moves;
+	}
+
+	private static Map<String, XAlignment> byName(Iterable<XAlignment> alignments) {
+		Map<String, XAlignment> result = new HashMap<>();
+		for (XAlignment alignment : alignments) {
+			result.put(alignment.getName(), alignment);
+		}
+		return result;
+	}
+
+	private static List<String> names(XAlignedLog alignedLog) {
+		List<String> names = new ArrayList<>();
+		for (XAlignment alignment : alignedLog) {
+			names.add(alignment.getName());
+		}
+		return names;
+	}
+
+	private static int countVisibleModelMoves(XAlignment alignment) {
+		int count = 0;
+		for (XAlignmentMove move : alignment) {
+			if (move.getType() == MoveType.MODEL && move.isObservable()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testInterleavedCasesAreAlignedAsOffline() throws Exception {
+		DataPetriNetsWithMarkings net = SmallAlignedLog.createNet();
+		XLog log = SmallAlignedLog.createLog();
+		Map<String, XAlignment> expected = byName(SmallAlignedLog.align(net, log));
+
+		StreamAlignedLog alignedLog = new StreamAlignedLog(net, SmallAlignedLog.createAlignmentConfig(net, log),
+				MAX_CASES, MAX_CASES);
+		List<List<StreamEvent>> cases = toStreamEvents(log);
+		// One event of each case per round, the open cases are aligned again after each round
+		for (int i = 0; !cases.isEmpty(); i++) {
+			for (List<StreamEvent> events : new ArrayList<>(cases)) {
+				if (i < events.size()) {
+					alignedLog.add(events.get(i));
+				} else {
+					cases.remove(events);
+				}
+			}
+			alignedLog.align();
+		}
+
+		StreamStatus status = alignedLog.getStatus();
+		assertEquals(0, status.getNumOpenCases());
+		assertEquals(log.size(), status.getNumClosedCases());
+		assertEquals(0, status.getNumUnalignedCases());
+		Map<String, XAlignment> actual = byName(alignedLog.getAlignedLog());
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String name : expected.keySet()) {
+			assertEquals(name, expected.get(name).getFitness(), actual.get(name).getFitness(), 1e-9);
+			assertEquals(name, countMoves(expected.get(name)), countMoves(actual.get(name)));
+		}
+	}
+
+	@Test
+	public void testOpenCaseIsNotInWindow() throws Exception {
+		DataPetriNetsWithMarkings net = SmallAlignedLog.createNet();
+		XLog log = SmallAlignedLog.createLog();
+		StreamAlignedLog alignedLog = new StreamAlignedLog(net, SmallAlignedLog.createAlignmentConfig(net, log),
+				MAX_CASES, MAX_CASES);
+		alignedLog.add(new StreamEvent("c1", "A", 1000, ImmutableMap.of("amount", 60l)));
+		alignedLog.add(new StreamEvent("c1", "B", 2000));
+		assertFalse(alignedLog.align());
+		assertEquals(1, alignedLog.getStatus().getNumOpenCases());
+		assertTrue(alignedLog.getAlignedLog().getLog().isEmpty());
+
+		alignedLog.add(new StreamEvent("c1", "E", 3000));
+		alignedLog.add(new StreamEvent("c1", "D", 4000, ImmutableMap.of("risk", 2l)));
+		assertTrue(alignedLog.align());
+		assertFalse(alignedLog.align());
+		assertEquals(0, alignedLog.getStatus().getNumOpenCases());
+		XAlignedLog window = alignedLog.getAlignedLog();
+		assertEquals(1, window.getLog().size());
+		assertEquals(1d, window.iterator().next().getFitness(), 1e-9);
+	}
+
+	@Test
+	public void testClosedCasesHaveModelMovesForMissingEvents() throws Exception {
+		DataPetriNetsWithMarkings net = SmallAlignedLog.createNet();
+		XLog log = SmallAlignedLog.createLog();
+		StreamAlignedLog alignedLog = new StreamAlignedLog(net, SmallAlignedLog.createAlignmentConfig(net, log), 1,
+				MAX_CASES);
+		alignedLog.add(new StreamEvent("c1", "A", 1000, ImmutableMap.of("amount", 60l)));
+		alignedLog.add(new StreamEvent("c1", "B", 2000));
+		alignedLog.align();
+		// Closes c1 as least recently active case
+		alignedLog.add(new StreamEvent("c2", "A", 3000, ImmutableMap.of("amount", 10l)));
+		assertTrue(alignedLog.align());
+		assertEquals(1, alignedLog.getStatus().getNumOpenCases());
+		XAlignment closed = alignedLog.getAlignedLog().iterator().next();
+		assertEquals("c1", closed.getName());
+		// E and D are missing
+		assertEquals(2, countVisibleModelMoves(closed));
+		assertTrue(closed.getFitness() < 1d);
+
+		// Closed before aligning its last event, later events start a new case
+		alignedLog.add(new StreamEvent("c2", "C", 4000));
+		alignedLog.closeCase("c2");
+		alignedLog.add(new StreamEvent("c2", "E", 5000));
+		assertTrue(alignedLog.align());
+		assertEquals(1, alignedLog.getStatus().getNumOpenCases());
+		assertEquals(2, alignedLog.getStatus().getNumClosedCases());
+		List<XAlignment> window = Lists.newArrayList(alignedLog.getAlignedLog());
+		assertEquals(2, window.size());
+		assertEquals("c2", window.get(1).getName());
+		assertEquals(2, countVisibleModelMoves(window.get(1)));
+	}
+
+	@Test
+	public void testWindowKeepsMostRecentlyClosedCases() throws Exception {
+		DataPetriNetsWithMarkings net = SmallAlignedLog.createNet();
+		XLog log = SmallAlignedLog.createLog();
+		StreamAlignedLog alignedLog = new StreamAlignedLog(net, SmallAlignedLog.createAlignmentConfig(net, log),
+				MAX_CASES, 2);
+		for (String caseId : new String[] { "c1", "c2", "c3" }) {
+			alignedLog.add(new StreamEvent(caseId, "A", 1000, ImmutableMap.of("amount", 60l)));
+			alignedLog.add(new StreamEvent(caseId, "B", 2000));
+			alignedLog.add(new StreamEvent(caseId, "E", 3000));
+			alignedLog.add(new StreamEvent(caseId, "D", 4000, ImmutableMap.of("risk", 2l)));
+			alignedLog.align();
+		}
+		assertEquals(3, alignedLog.getStatus().getNumClosedCases());
+		assertEquals(2, alignedLog.getStatus().getNumWindowCases());
+		assertEquals(ImmutableList.of("c2", "c3"), names(alignedLog.getAlignedLog()));
+
+		try {
+			new StreamAlignedLog(net, SmallAlignedLog.createAlignmentConfig(net, log), 0, MAX_CASES);
+			fail("At least one open case needs to be kept");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(StreamAlignedLogTest.class);
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Checks that summing up and updating the contributions of the variants gives
+ * the counts expected for the traces of the {@link SmallAlignedLog}.
+ */
+public class AlignmentContributionsTest extends TestCase {
+
+	private static void assertPerfectAndLogMove(SmallAlignedLog log, AlignmentInformation information) {
+		assertEquals(2, information.getStore().getNumAlignments());
+		assertEquals(8, information.numGoodMoves);
+		assertEquals(1, information.numLogMoves);
+		assertEquals(0, information.numModelMoves);
+		assertEquals(4, information.numGoodWriteOperations);
+		assertEquals(1, information.transitionStatistics.get(log.getTransition("B")).numGoodMoves);
+		assertEquals(1, information.transitionStatistics.get(log.getTransition("C")).numGoodMoves);
+		assertEquals(1, information.placeStatistics.get(log.getPlace("choice")).observedLogMoves.count("X"));
+	}
+
+	private static void assertEmpty(SmallAlignedLog log, AlignmentInformation information) {
+		assertEquals(0, information.getStore().getNumAlignments());
+		assertEquals(1.0d, information.averageFitness, 0d);
+		for (int slot = 0; slot < information.getStore().getNumSlots(); slot++) {
+			assertEquals(0, information.getStore().get(slot));
+		}
+		assertEquals(0, information.placeStatistics.get(log.getPlace("choice")).observedLogMoves.count("X"));
+	}
+
+	@Test
+	public void testSum() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			AlignmentContributions contributions = new AlignmentContributions(log.net,
+					new VariantIndex(log.compactLog, pool), pool);
+			AlignmentInformationTest.assertAllTraces(log, contributions.sum(log.alignments, pool));
+			assertPerfectAndLogMove(log,
+					contributions.sum(log.select(SmallAlignedLog.LOG_MOVE, SmallAlignedLog.PERFECT), pool));
+			assertEmpty(log, contributions.sum(ImmutableList.<XAlignment>of(), pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSequentialVariants() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			AlignmentContributions contributions = new AlignmentContributions(log.net,
+					new VariantIndex(log.compactLog), pool);
+			AlignmentInformationTest.assertAllTraces(log, contributions.sum(log.alignments, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testUpdate() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			AlignmentContributions contributions = new AlignmentContributions(log.net,
+					new VariantIndex(log.compactLog, pool), pool);
+
+			AlignmentInformation previous = contributions
+					.sum(log.select(SmallAlignedLog.PERFECT, SmallAlignedLog.LOG_MOVE), pool);
+			List<XAlignment> added = log.select(SmallAlignedLog.PERFECT_AGAIN, SmallAlignedLog.GUARD_VIOLATED,
+					SmallAlignedLog.MISSING_EVENT, SmallAlignedLog.MISSING_ATTRIBUTE);
+			AlignmentInformation all = contributions.update(previous, added, ImmutableList.<XAlignment>of());
+			AlignmentInformationTest.assertAllTraces(log, all);
+			// The previous result is not changed
+			assertPerfectAndLogMove(log, previous);
+
+			// Adding and removing at once
+			AlignmentInformation swapped = contributions.update(previous, log.select(SmallAlignedLog.LOG_MOVE),
+					log.select(SmallAlignedLog.LOG_MOVE));
+			assertPerfectAndLogMove(log, swapped);
+
+			// Removing everything again gives empty statistics
+			assertEmpty(log, contributions.update(all, ImmutableList.<XAlignment>of(), log.alignments));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(AlignmentContributionsTest.class);
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Checks the statistics replayed into the {@link StatisticsStore} against the
+ * counts expected for the traces of the {@link SmallAlignedLog}.
+ */
+public class AlignmentInformationTest extends TestCase {
+
+	static AlignmentInformation replay(SmallAlignedLog log, int... traces) {
+		StatisticsAccumulator accumulator = new StatisticsAccumulator(log.netIndex,
+				log.netIndex.encodeMarking(log.net.getInitialMarking()));
+		for (int traceId : traces) {
+			accumulator.add(log.compactLog, traceId);
+		}
+		return new AlignmentInformation(log.netIndex, accumulator.getStore());
+	}
+
+	static int[] allTraces() {
+		int[] traces = new int[SmallAlignedLog.NUM_TRACES];
+		for (int i = 0; i < traces.length; i++) {
+			traces[i] = i;
+		}
+		return traces;
+	}
+
+	/**
+	 * Checks the counts of all traces of the {@link SmallAlignedLog}.
+	 */
+	static void assertAllTraces(SmallAlignedLog log, AlignmentInformation information) {
+		assertEquals(SmallAlignedLog.NUM_TRACES, information.getStore().getNumAlignments());
+		assertTrue(information.averageFitness < 1.0d);
+
+		assertEquals(23, information.numGoodMoves);
+		assertEquals(1, information.numLogMoves);
+		assertEquals(1, information.numModelMoves);
+		assertEquals(10, information.numGoodWriteOperations);
+		assertEquals(1, information.numWrongWriteOperations);
+		assertEquals(1, information.numMissingWriteOperations);
+		assertEquals(2 / 25d, information.eventViolations, 1e-9);
+		assertEquals(2 / 12d, information.dataViolations, 1e-9);
+		assertEquals(4 / 37d, information.overallViolations, 1e-9);
+
+		TransitionStatistics a = information.transitionStatistics.get(log.getTransition("A"));
+		assertEquals(4, a.numGoodMoves);
+		assertEquals(2, a.numDataMoves);
+		assertEquals(0, a.numModelMoves);
+		assertEquals(4, a.numGoodWriteOps);
+		assertEquals(1, a.numWrongWriteOps);
+		assertEquals(1, a.numMissingWriteOps);
+		assertEquals(0, a.numGuardViolations);
+		TransitionStatistics b = information.transitionStatistics.get(log.getTransition("B"));
+		assertEquals(3, b.numGoodMoves);
+		assertEquals(0, b.numGuardViolations);
+		TransitionStatistics c = information.transitionStatistics.get(log.getTransition("C"));
+		assertEquals(3, c.numGoodMoves);
+		assertEquals(1, c.numGuardViolations);
+		TransitionStatistics e = information.transitionStatistics.get(log.getTransition("E"));
+		assertEquals(5, e.numGoodMoves);
+		assertEquals(1, e.numModelMoves);
+		assertEquals(0, e.numMissingWriteOps);
+		TransitionStatistics d = information.transitionStatistics.get(log.getTransition("D"));
+		assertEquals(6, d.numGoodMoves);
+		assertEquals(6, d.numGoodWriteOps);
+		TransitionStatistics tau = information.transitionStatistics.get(log.getTransition("tau"));
+		assertEquals(6, tau.numGoodMoves);
+		assertEquals(0, tau.numModelMoves);
+
+		VariableStatistics amount = information.variableStatistics.get(log.getVariable("amount"));
+		assertEquals(4, amount.numGoodWriteOps);
+		assertEquals(1, amount.numWrongWriteOps);
+		assertEquals(1, amount.numMissingWriteOps);
+		VariableStatistics risk = information.variableStatistics.get(log.getVariable("risk"));
+		assertEquals(6, risk.numGoodWriteOps);
+		assertEquals(0, risk.numWrongWriteOps);
+		assertEquals(0, risk.numMissingWriteOps);
+
+		PlaceStatistics source = information.placeStatistics.get(log.getPlace("source"));
+		assertEquals(4, source.numGoodMoves);
+		assertEquals(2, source.numDataMoves);
+		assertEquals(4, source.numGoodWriteOps);
+		assertEquals(1, source.numWrongWriteOps);
+		assertEquals(1, source.numMissingWriteOps);
+		PlaceStatistics choice = information.placeStatistics.get(log.getPlace("choice"));
+		assertEquals(6, choice.numGoodMoves);
+		assertEquals(1, choice.numLogMoves);
+		assertEquals(1, choice.observedLogMoves.count("X"));
+		PlaceStatistics parallel = information.placeStatistics.get(log.getPlace("parallel"));
+		assertEquals(1, parallel.numLogMoves);
+		assertEquals(1, parallel.numModelMoves);
+		PlaceStatistics end = information.placeStatistics.get(log.getPlace("end"));
+		assertEquals(6, end.numGoodMoves);
+		assertEquals(0, end.numLogMoves);
+		assertTrue(end.observedLogMoves.isEmpty());
+	}
+
+	@Test
+	public void testAllTraces() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		assertAllTraces(log, replay(log, allTraces()));
+	}
+
+	@Test
+	public void testPerfectTrace() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		AlignmentInformation information = replay(log, SmallAlignedLog.PERFECT);
+		assertEquals(1.0d, information.averageFitness, 1e-9);
+		assertEquals(4, information.numGoodMoves);
+		assertEquals(2, information.numGoodWriteOperations);
+		assertEquals(0.0d, information.overallViolations, 0d);
+		assertEquals(1, information.transitionStatistics.get(log.getTransition("tau")).numGoodMoves);
+	}
+
+	@Test
+	public void testGuardViolation() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		AlignmentInformation information = replay(log, SmallAlignedLog.GUARD_VIOLATED);
+		assertEquals(0.0d, information.eventViolations, 0d);
+		assertEquals(0.5d, information.dataViolations, 1e-9);
+		assertEquals(1, information.transitionStatistics.get(log.getTransition("A")).numDataMoves);
+		assertEquals(1, information.transitionStatistics.get(log.getTransition("C")).numGuardViolations);
+		assertEquals(1, information.variableStatistics.get(log.getVariable("amount")).numWrongWriteOps);
+	}
+
+	@Test
+	public void testNoTraces() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		AlignmentInformation information = replay(log);
+		assertEquals(1.0d, information.averageFitness, 0d);
+		assertEquals(0, information.getStore().getNumAlignments());
+		assertEquals(0, information.numGoodMoves + information.numLogMoves + information.numModelMoves);
+		assertEquals(0.0d, information.eventViolations, 0d);
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(AlignmentInformationTest.class);
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+import org.processmining.xeslite.query.XIndex;
+
+/**
+ * Checks that the {@link AttributeIndex} selects the same traces as the full
+ * scan of {@link XIndex#filterTracesOnAttributesOrNames} for every operator
+ * of the query subset it evaluates.
+ */
+public class AttributeIndexTest extends TestCase {
+
+	private static final String[] ACTIVITIES = { "A", "B", "C", "D" };
+	private static final String[] REGIONS = { "north", "south", "east", "west side" };
+	private static final String[] RESOURCES = { "Anne", "Bob", "Carol" };
+
+	private static final String[] SUPPORTED_QUERIES = {
+			// Names
+			"A", "\"B\"", "%C", "~\"[CD]\"", "E",
+			// Literals
+			"region = north", "region = \"west side\"", "region != south", "region % ort", "region ~ \"[ns].*\"",
+			"resource = Bob", "resource != Anne", "unknown = x",
+			// Discrete
+			"priority = 3", "priority != 3", "priority > 3", "priority >= 3", "priority < 3", "priority <= 3",
+			"cost = 20", "cost > 40", "cost <= 0",
+			// Continuous
+			"amount = 50.0", "amount > 50.5", "amount >= 12.25", "amount < 12.25", "amount <= 99.75",
+			"amount != 50.0", "score > 0.5",
+			// Boolean
+			"urgent = true", "urgent != true",
+			// Connectives
+			"region = north AND priority > 2", "region = north OR region = south",
+			"(region = north OR region = south) AND amount > 50", "A AND (cost > 40 OR resource = Carol)",
+			"(A)" };
+
+	private static final String[] UNSUPPORTED_QUERIES = { "region > north", "region == north",
+			"NOT region = north", "region = north and priority > 2", "timestamp > 2" };
+
+	private static XLog createLog() {
+		XFactory factory = new XFactoryNaiveImpl();
+		XConceptExtension concept = XConceptExtension.instance();
+		Random random = new Random(42);
+		XLog log = factory.createLog();
+		for (int i = 0; i < 200; i++) {
+			XTrace trace = factory.createTrace();
+			concept.assignName(trace, "case " + i);
+			if (random.nextInt(10) > 0) {
+				putLiteral(factory, trace, "region", REGIONS[random.nextInt(REGIONS.length)]);
+			}
+			putDiscrete(factory, trace, "priority", random.nextInt(6));
+			if (random.nextBoolean()) {
+				// Steps of a quarter, so some values are repeated and compared exactly
+				putContinuous(factory, trace, "amount", random.nextInt(400) / 4d);
+			}
+			trace.getAttributes().put("urgent", factory.createAttributeBoolean("urgent", random.nextBoolean(), null));
+			int length = random.nextInt(6);
+			for (int j = 0; j < length; j++) {
+				XEvent event = factory.createEvent();
+				concept.assignName(event, ACTIVITIES[random.nextInt(ACTIVITIES.length)]);
+				putLiteral(factory, event, "resource", RESOURCES[random.nextInt(RESOURCES.length)]);
+				putDiscrete(factory, event, "cost", random.nextInt(5) * 10);
+				if (random.nextBoolean()) {
+					putContinuous(factory, event, "score", random.nextDouble());
+				}
+				event.getAttributes().put("timestamp", factory.createAttributeTimestamp("timestamp", i * 1000l + j, null));
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static void putLiteral(XFactory factory, XAttributable element, String key, String value) {
+		element.getAttributes().put(key, factory.createAttributeLiteral(key, value, null));
+	}
+
+	private static void putDiscrete(XFactory factory, XAttributable element, String key, long value) {
+		element.getAttributes().put(key, factory.createAttributeDiscrete(key, value, null));
+	}
+
+	private static void putContinuous(XFactory factory, XAttributable element, String key, double value) {
+		element.getAttributes().put(key, factory.createAttributeContinuous(key, value, null));
+	}
+
+	private static BitSet scan(XLog log, String query, AttributeIndex index) throws Exception {
+		Map<XTrace, Integer> positions = new IdentityHashMap<>();
+		for (int i = 0; i < log.size(); i++) {
+			positions.put(log.get(i), i);
+		}
+		BitSet result = new BitSet(log.size());
+		for (XTrace trace : XIndex.filterTracesOnAttributesOrNames(log, query, index.getTypeCatalog())) {
+			result.set(positions.get(trace));
+		}
+		return result;
+	}
+
+	@Test
+	public void testSupportedQueriesMatchFullScan() throws Exception {
+		XLog log = createLog();
+		AttributeIndex index = new AttributeIndex(log);
+		for (String query : SUPPORTED_QUERIES) {
+			BitSet selected = index.select(query);
+			assertNotNull("Not answered by the index: " + query, selected);
+			assertEquals(query, scan(log, query, index), selected);
+		}
+	}
+
+	@Test
+	public void testUnsupportedQueriesFallBack() throws Exception {
+		AttributeIndex index = new AttributeIndex(createLog());
+		for (String query : UNSUPPORTED_QUERIES) {
+			assertNull("Answered by the index: " + query, index.select(query));
+		}
+	}
+
+	@Test
+	public void testFilterKeepsLogOrder() throws Exception {
+		XLog log = createLog();
+		AttributeIndex index = new AttributeIndex(log);
+		String query = "region = north OR amount > 50";
+		List<XTrace> filtered = index.filter(query);
+		int i = 0;
+		for (XTrace trace : XIndex.filterTracesOnAttributesOrNames(log, query, index.getTypeCatalog())) {
+			assertSame(trace, filtered.get(i++));
+		}
+		assertEquals(i, filtered.size());
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(AttributeIndexTest.class);
+	}
+
+}
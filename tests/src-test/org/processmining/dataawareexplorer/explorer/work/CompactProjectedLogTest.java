@@ -0,0 +1,135 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.processmining.datadiscovery.ProjectedEvent;
+import org.processmining.datadiscovery.ProjectedLog;
+import org.processmining.datadiscovery.ProjectedTrace;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Checks the events, attributes and values that the {@link CompactProjectedLog}
+ * reports for the traces of the {@link SmallAlignedLog}. A writes 'amount', D
+ * writes 'risk' and E writes 'unknown', an attribute that no event has.
+ */
+public class CompactProjectedLogTest extends TestCase {
+
+	private static SetMultimap<Transition, String> createWrittenAttributes(SmallAlignedLog log) {
+		SetMultimap<Transition, String> writtenAttributes = HashMultimap.create();
+		writtenAttributes.put(log.getTransition("A"), "amount");
+		writtenAttributes.put(log.getTransition("D"), "risk");
+		writtenAttributes.put(log.getTransition("E"), "unknown");
+		return writtenAttributes;
+	}
+
+	private static CompactProjectedLog project(SmallAlignedLog log, boolean isTreatMissingValuesAsNA,
+			int... traces) {
+		return new CompactProjectedLog(log.compactLog, log.select(traces), createWrittenAttributes(log),
+				isTreatMissingValuesAsNA, ImmutableMap.<String, Object>of());
+	}
+
+	private static List<List<ProjectedEvent>> toLists(ProjectedLog projectedLog) {
+		List<List<ProjectedEvent>> traces = new ArrayList<>();
+		for (ProjectedTrace trace : projectedLog) {
+			traces.add(ImmutableList.copyOf(trace));
+		}
+		return traces;
+	}
+
+	private static void assertActivities(SmallAlignedLog log, List<ProjectedEvent> events, String... labels) {
+		assertEquals(labels.length, events.size());
+		for (int i = 0; i < labels.length; i++) {
+			assertEquals(log.getTransition(labels[i]), events.get(i).getActivity());
+		}
+	}
+
+	@Test
+	public void testPerfectTrace() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+
+		List<ProjectedEvent> events = toLists(project(log, true, SmallAlignedLog.PERFECT)).get(0);
+		assertActivities(log, events, "A", "B", "E", "D", "tau");
+		assertEquals(ImmutableSet.of("amount"), events.get(0).getAttributes());
+		assertEquals(60l, events.get(0).getAttributeValue("amount"));
+		assertEquals(ImmutableSet.of(), events.get(1).getAttributes());
+		// The attribute that was not written is reported as NA
+		assertEquals(ImmutableSet.of("unknown"), events.get(2).getAttributes());
+		assertNull(events.get(2).getAttributeValue("unknown"));
+		assertEquals(ImmutableSet.of("risk"), events.get(3).getAttributes());
+		assertEquals(2l, events.get(3).getAttributeValue("risk"));
+		assertNull(events.get(3).getAttributeValue("amount"));
+		assertEquals(ImmutableSet.of(), events.get(4).getAttributes());
+
+		events = toLists(project(log, false, SmallAlignedLog.PERFECT)).get(0);
+		assertActivities(log, events, "A", "B", "E", "D", "tau");
+		assertEquals(ImmutableSet.of("amount"), events.get(0).getAttributes());
+		assertEquals(ImmutableSet.of(), events.get(2).getAttributes());
+		assertNull(events.get(2).getAttributeValue("unknown"));
+	}
+
+	@Test
+	public void testLogMovesAreSkipped() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		List<ProjectedEvent> events = toLists(project(log, true, SmallAlignedLog.LOG_MOVE)).get(0);
+		assertActivities(log, events, "A", "C", "E", "D", "tau");
+		assertEquals(40l, events.get(0).getAttributeValue("amount"));
+		assertEquals(1l, events.get(3).getAttributeValue("risk"));
+	}
+
+	@Test
+	public void testMissingAttribute() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		// The value guessed by the alignment is only used if missing values are not treated as NA
+		ProjectedEvent a = toLists(project(log, true, SmallAlignedLog.MISSING_ATTRIBUTE)).get(0).get(0);
+		assertEquals(log.getTransition("A"), a.getActivity());
+		assertEquals(ImmutableSet.of(), a.getAttributes());
+		assertNull(a.getAttributeValue("amount"));
+
+		a = toLists(project(log, false, SmallAlignedLog.MISSING_ATTRIBUTE)).get(0).get(0);
+		assertEquals(ImmutableSet.of("amount"), a.getAttributes());
+		assertNotNull(a.getAttributeValue("amount"));
+	}
+
+	@Test
+	public void testSubsetAndSelection() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		Map<String, Object> initialValues = ImmutableMap.<String, Object>of("amount", 0l);
+		CompactProjectedLog projectedLog = new CompactProjectedLog(log.compactLog, log.select(
+				SmallAlignedLog.LOG_MOVE, SmallAlignedLog.MISSING_EVENT, SmallAlignedLog.PERFECT),
+				createWrittenAttributes(log), true, initialValues);
+		assertEquals(3, projectedLog.size());
+		assertEquals(initialValues.keySet(), projectedLog.getAttributes());
+		assertEquals(0l, projectedLog.getInitialValue("amount"));
+
+		List<List<ProjectedEvent>> traces = toLists(projectedLog);
+		assertEquals(3, traces.size());
+		assertActivities(log, traces.get(0), "A", "C", "E", "D", "tau");
+		// The model move of E is projected as well
+		assertEquals(5, traces.get(1).size());
+		assertEquals(3l, traces.get(1).get(traces.get(1).size() - 2).getAttributeValue("risk"));
+		assertActivities(log, traces.get(2), "A", "B", "E", "D", "tau");
+
+		ProjectedLog selected = projectedLog.select(new int[] { 2, 0 });
+		assertEquals(initialValues.keySet(), selected.getAttributes());
+		traces = toLists(selected);
+		assertEquals(2, traces.size());
+		assertActivities(log, traces.get(0), "A", "B", "E", "D", "tau");
+		assertActivities(log, traces.get(1), "A", "C", "E", "D", "tau");
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(CompactProjectedLogTest.class);
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+/**
+ * Checks the traces of the {@link SmallAlignedLog} selected by the
+ * {@link NodeTraceIndex}. Every trace visits A, E, D, tau and all places but
+ * 'sink', which is not in the preset of any transition. The perfect traces and
+ * the trace with the missing attribute visit B, the other traces visit C.
+ */
+public class NodeTraceIndexTest extends TestCase {
+
+	private static final int[] ALL = { SmallAlignedLog.PERFECT, SmallAlignedLog.PERFECT_AGAIN,
+			SmallAlignedLog.GUARD_VIOLATED, SmallAlignedLog.MISSING_EVENT, SmallAlignedLog.LOG_MOVE,
+			SmallAlignedLog.MISSING_ATTRIBUTE };
+	private static final int[] VISITING_B = { SmallAlignedLog.PERFECT, SmallAlignedLog.PERFECT_AGAIN,
+			SmallAlignedLog.MISSING_ATTRIBUTE };
+	private static final int[] VISITING_C = { SmallAlignedLog.GUARD_VIOLATED, SmallAlignedLog.MISSING_EVENT,
+			SmallAlignedLog.LOG_MOVE };
+	private static final int[] NONE = {};
+
+	private static void assertSelected(VariantIndex variants, BitSet selected, int... expectedTraces) {
+		for (int traceId = 0; traceId < SmallAlignedLog.NUM_TRACES; traceId++) {
+			assertEquals("trace " + traceId, Ints.contains(expectedTraces, traceId),
+					selected.get(variants.getVariant(traceId)));
+		}
+	}
+
+	private static void assertSelection(NodeTraceIndex index, Collection<?> nodes, int[] any, int[] all,
+			int[] none) {
+		assertSelected(index.getVariants(), index.getVariantsVisitingAny(nodes), any);
+		assertSelected(index.getVariants(), index.getVariantsVisitingAll(nodes), all);
+		assertSelected(index.getVariants(), index.getVariantsVisitingNone(nodes), none);
+	}
+
+	@Test
+	public void testTransitions() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		NodeTraceIndex index = new NodeTraceIndex(new VariantIndex(log.compactLog));
+		assertSelection(index, ImmutableList.of(log.getTransition("B")), VISITING_B, VISITING_B, VISITING_C);
+		assertSelection(index, ImmutableList.of(log.getTransition("B"), log.getTransition("C")), ALL, NONE, NONE);
+		assertSelection(index, ImmutableList.of(log.getTransition("A"), log.getTransition("C")), ALL, VISITING_C,
+				NONE);
+		// Model moves, also of invisible transitions, visit the transition
+		assertSelection(index, ImmutableList.of(log.getTransition("E"), log.getTransition("tau")), ALL, ALL, NONE);
+	}
+
+	@Test
+	public void testPlaces() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		NodeTraceIndex index = new NodeTraceIndex(new VariantIndex(log.compactLog));
+		assertSelection(index, ImmutableList.of(log.getPlace("choice"), log.getPlace("end")), ALL, ALL, NONE);
+		assertSelection(index, ImmutableList.of(log.getPlace("sink")), NONE, NONE, ALL);
+		assertSelection(index, ImmutableList.of(log.getPlace("parallel"), log.getTransition("B")), ALL, VISITING_B,
+				NONE);
+	}
+
+	@Test
+	public void testEmptyAndForeignSelections() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		NodeTraceIndex index = new NodeTraceIndex(new VariantIndex(log.compactLog));
+		assertSelection(index, ImmutableList.of(), NONE, ALL, ALL);
+		// Objects that are not nodes of the net, such as selected edges
+		assertSelection(index, ImmutableList.of(log.getTransition("B"), "not a node"), VISITING_B, NONE,
+				VISITING_C);
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(NodeTraceIndexTest.class);
+	}
+
+}
@@ -0,0 +1,242 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.dataawareexplorer.explorer.DefaultConfig;
+import org.processmining.dataawareexplorer.utils.PetrinetUtils;
+import org.processmining.datapetrinets.DataPetriNetsWithMarkings;
+import org.processmining.datapetrinets.expression.GuardExpression;
+import org.processmining.models.graphbased.directed.petrinet.Petrinet;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.models.graphbased.directed.petrinet.impl.PetrinetFactory;
+import org.processmining.models.graphbased.directed.petrinetwithdata.newImpl.DataElement;
+import org.processmining.models.graphbased.directed.petrinetwithdata.newImpl.PetriNetWithDataFactory;
+import org.processmining.models.semantics.petrinet.Marking;
+import org.processmining.plugins.balancedconformance.BalancedDataXAlignmentPlugin;
+import org.processmining.plugins.balancedconformance.config.BalancedProcessorConfiguration;
+import org.processmining.plugins.balancedconformance.config.BalancedProcessorConfiguration.UnassignedMode;
+import org.processmining.xesalignmentextension.XAlignmentExtension;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A handful of hand-written traces aligned to a small net, so that the tests
+ * can check concrete numbers. The net starts with A, which writes 'amount',
+ * then runs E in parallel to a choice between B (guard amount &gt; 50) and C
+ * (guard amount &lt;= 50), joins in D, which writes 'risk', and ends with an
+ * invisible transition 'tau'. Each trace has a single optimal alignment:
+ * <ul>
+ * <li>{@link #PERFECT}: A(amount=60) B E D(risk=2)</li>
+ * <li>{@link #PERFECT_AGAIN}: the same trace at a later time</li>
+ * <li>{@link #GUARD_VIOLATED}: A(amount=60) C E D(risk=1), the write of
+ * 'amount' is incorrect and the guard of C is violated</li>
+ * <li>{@link #MISSING_EVENT}: A(amount=10) C D(risk=3), E is a model move</li>
+ * <li>{@link #LOG_MOVE}: A(amount=40) X C E D(risk=1), X is a log move while
+ * 'choice' and 'parallel' are marked</li>
+ * <li>{@link #MISSING_ATTRIBUTE}: A B E D(risk=2), the write of 'amount' is
+ * missing</li>
+ * </ul>
+ * Every trace ends with the invisible move of 'tau'. The position of the model
+ * move of E relative to C is not fixed, all other moves follow the events. The
+ * net, the log and the configuration are public for the tests of other
+ * packages.
+ */
+public final class SmallAlignedLog {
+
+	static {
+		System.loadLibrary("lpsolve55");
+		System.loadLibrary("lpsolve55j");
+	}
+
+	static final int PERFECT = 0;
+	static final int PERFECT_AGAIN = 1;
+	static final int GUARD_VIOLATED = 2;
+	static final int MISSING_EVENT = 3;
+	static final int LOG_MOVE = 4;
+	static final int MISSING_ATTRIBUTE = 5;
+	static final int NUM_TRACES = 6;
+
+	final DataPetriNetsWithMarkings net;
+	final List<XAlignment> alignments;
+	final Map<String, Transition> transitionsLocalId;
+	final NetIndex netIndex;
+	final CompactAlignedLog compactLog;
+
+	SmallAlignedLog() throws Exception {
+		this.net = createNet();
+		this.alignments = ImmutableList.copyOf(align(net, createLog()));
+		this.transitionsLocalId = new HashMap<>();
+		for (Transition t : net.getTransitions()) {
+			transitionsLocalId.put(t.getLocalID().toString(), t);
+		}
+		this.netIndex = new NetIndex(net, transitionsLocalId);
+		this.compactLog = new CompactAlignedLog(netIndex, alignments);
+	}
+
+	/**
+	 * @param traces
+	 *            positions of the traces in the log
+	 * @return the alignments of the traces in the given order
+	 */
+	List<XAlignment> select(int... traces) {
+		List<XAlignment> selected = new ArrayList<>();
+		for (int trace : traces) {
+			selected.add(alignments.get(trace));
+		}
+		return selected;
+	}
+
+	Transition getTransition(String label) {
+		for (Transition t : net.getTransitions()) {
+			if (t.getLabel().equals(label)) {
+				return t;
+			}
+		}
+		throw new IllegalArgumentException("No transition " + label);
+	}
+
+	Place getPlace(String label) {
+		for (Place p : net.getPlaces()) {
+			if (p.getLabel().equals(label)) {
+				return p;
+			}
+		}
+		throw new IllegalArgumentException("No place " + label);
+	}
+
+	DataElement getVariable(String name) {
+		for (DataElement variable : net.getVariables()) {
+			if (variable.getVarName().equals(name)) {
+				return variable;
+			}
+		}
+		throw new IllegalArgumentException("No variable " + name);
+	}
+
+	public static DataPetriNetsWithMarkings createNet() throws Exception {
+		Petrinet petrinet = PetrinetFactory.newPetrinet("small");
+		Place source = petrinet.addPlace("source");
+		Place choice = petrinet.addPlace("choice");
+		Place parallel = petrinet.addPlace("parallel");
+		Place choiceDone = petrinet.addPlace("choiceDone");
+		Place parallelDone = petrinet.addPlace("parallelDone");
+		Place end = petrinet.addPlace("end");
+		Place sink = petrinet.addPlace("sink");
+		Transition a = petrinet.addTransition("A");
+		Transition b = petrinet.addTransition("B");
+		Transition c = petrinet.addTransition("C");
+		Transition d = petrinet.addTransition("D");
+		Transition e = petrinet.addTransition("E");
+		Transition tau = petrinet.addTransition("tau");
+		tau.setInvisible(true);
+		petrinet.addArc(source, a);
+		petrinet.addArc(a, choice);
+		petrinet.addArc(a, parallel);
+		petrinet.addArc(choice, b);
+		petrinet.addArc(choice, c);
+		petrinet.addArc(b, choiceDone);
+		petrinet.addArc(c, choiceDone);
+		petrinet.addArc(parallel, e);
+		petrinet.addArc(e, parallelDone);
+		petrinet.addArc(choiceDone, d);
+		petrinet.addArc(parallelDone, d);
+		petrinet.addArc(d, end);
+		petrinet.addArc(end, tau);
+		petrinet.addArc(tau, sink);
+
+		DataPetriNetsWithMarkings net = new PetriNetWithDataFactory(petrinet, petrinet.getLabel(), false)
+				.getRetValue();
+		DataElement amount = net.addVariable("amount", Long.class, null, null);
+		DataElement risk = net.addVariable("risk", Long.class, null, null);
+		for (Transition t : net.getTransitions()) {
+			if (t.getLabel().equals("A")) {
+				net.assignWriteOperation(t, amount);
+			} else if (t.getLabel().equals("D")) {
+				net.assignWriteOperation(t, risk);
+			} else if (t.getLabel().equals("B")) {
+				net.assignReadOperation(t, amount);
+				net.setGuard(t, GuardExpression.Factory.newInstance("amount > 50"));
+			} else if (t.getLabel().equals("C")) {
+				net.assignReadOperation(t, amount);
+				net.setGuard(t, GuardExpression.Factory.newInstance("amount <= 50"));
+			}
+		}
+		net.setInitialMarking(PetrinetUtils.guessInitialMarking(net));
+		net.setFinalMarkings(new Marking[] { PetrinetUtils.guessFinalMarking(net) });
+		return net;
+	}
+
+	public static XLog createLog() {
+		XFactory factory = new XFactoryNaiveImpl();
+		XLog log = factory.createLog();
+		log.add(createTrace(factory, PERFECT, "A:amount=60", "B", "E", "D:risk=2"));
+		log.add(createTrace(factory, PERFECT_AGAIN, "A:amount=60", "B", "E", "D:risk=2"));
+		log.add(createTrace(factory, GUARD_VIOLATED, "A:amount=60", "C", "E", "D:risk=1"));
+		log.add(createTrace(factory, MISSING_EVENT, "A:amount=10", "C", "D:risk=3"));
+		log.add(createTrace(factory, LOG_MOVE, "A:amount=40", "X", "C", "E", "D:risk=1"));
+		log.add(createTrace(factory, MISSING_ATTRIBUTE, "A", "B", "E", "D:risk=2"));
+		return log;
+	}
+
+	/**
+	 * @param events
+	 *            activity names, optionally followed by ':' and one attribute
+	 *            with a long value, e.g., "A:amount=60"
+	 */
+	private static XTrace createTrace(XFactory factory, int position, String... events) {
+		XTrace trace = factory.createTrace();
+		XConceptExtension.instance().assignName(trace, "case " + position);
+		long time = position * 100000l;
+		for (String spec : events) {
+			String[] parts = spec.split(":");
+			XEvent event = factory.createEvent();
+			XConceptExtension.instance().assignName(event, parts[0]);
+			time += 1000;
+			XTimeExtension.instance().assignTimestamp(event, new Date(time));
+			if (parts.length > 1) {
+				String[] attribute = parts[1].split("=");
+				event.getAttributes().put(attribute[0],
+						factory.createAttributeDiscrete(attribute[0], Long.parseLong(attribute[1]), null));
+			}
+			trace.add(event);
+		}
+		return trace;
+	}
+
+	/**
+	 * @return the default configuration of the explorer with the bounds of
+	 *         the variables guessed from the log
+	 */
+	public static BalancedProcessorConfiguration createAlignmentConfig(DataPetriNetsWithMarkings net, XLog log) {
+		BalancedProcessorConfiguration config = BalancedProcessorConfiguration.newDefaultInstance(net,
+				net.getInitialMarking(), net.getFinalMarkings(), log, new XEventNameClassifier(),
+				DefaultConfig.MODEL_MOVE_COST, DefaultConfig.LOG_MOVE_COST, DefaultConfig.MISSING_COST,
+				DefaultConfig.INCORRECT_COST);
+		config.setVariablesUnassignedMode(UnassignedMode.NULL);
+		BalancedProcessorConfiguration.autoGuessBounds(config, net, log);
+		return config;
+	}
+
+	/**
+	 * @return the alignments of the log in the order of its traces
+	 */
+	public static List<XAlignment> align(DataPetriNetsWithMarkings net, XLog log) throws Exception {
+		XLog alignmentResult = new BalancedDataXAlignmentPlugin().alignLog(net, log, createAlignmentConfig(net, log));
+		return ImmutableList.copyOf(XAlignmentExtension.instance().extendLog(alignmentResult));
+	}
+
+}
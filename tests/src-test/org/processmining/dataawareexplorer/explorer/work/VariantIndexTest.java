@@ -0,0 +1,79 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Checks the variants of the {@link SmallAlignedLog}: only the two perfect
+ * traces share a variant, grouping in parallel gives the same variants and
+ * replaying a trace gives the same statistics as replaying its representative.
+ */
+public class VariantIndexTest extends TestCase {
+
+	private static void assertSameVariants(VariantIndex expected, VariantIndex actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int variant = 0; variant < expected.size(); variant++) {
+			assertEquals(expected.getRepresentative(variant), actual.getRepresentative(variant));
+			assertEquals(expected.getWeight(variant), actual.getWeight(variant));
+		}
+		for (int traceId = 0; traceId < expected.getLog().size(); traceId++) {
+			assertEquals(expected.getVariant(traceId), actual.getVariant(traceId));
+		}
+	}
+
+	@Test
+	public void testVariants() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		VariantIndex variants = new VariantIndex(log.compactLog);
+		assertEquals(SmallAlignedLog.NUM_TRACES - 1, variants.size());
+
+		int perfect = variants.getVariant(SmallAlignedLog.PERFECT);
+		assertEquals(perfect, variants.getVariant(SmallAlignedLog.PERFECT_AGAIN));
+		assertEquals(SmallAlignedLog.PERFECT, variants.getRepresentative(perfect));
+		assertEquals(2, variants.getWeight(perfect));
+		for (int traceId = SmallAlignedLog.GUARD_VIOLATED; traceId < SmallAlignedLog.NUM_TRACES; traceId++) {
+			int variant = variants.getVariant(traceId);
+			assertTrue(variant != perfect);
+			assertEquals(traceId, variants.getRepresentative(variant));
+			assertEquals(1, variants.getWeight(variant));
+		}
+
+		int[] counts = variants.countVariants(log.select(SmallAlignedLog.PERFECT_AGAIN, SmallAlignedLog.LOG_MOVE,
+				SmallAlignedLog.PERFECT));
+		assertEquals(2, counts[perfect]);
+		assertEquals(1, counts[variants.getVariant(SmallAlignedLog.LOG_MOVE)]);
+		assertEquals(0, counts[variants.getVariant(SmallAlignedLog.MISSING_EVENT)]);
+	}
+
+	@Test
+	public void testParallelEqualsSequential() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		VariantIndex sequential = new VariantIndex(log.compactLog);
+		for (int parallelism : new int[] { 1, 2, 4, 7 }) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				assertSameVariants(sequential, new VariantIndex(log.compactLog, pool));
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testTraceReplaysLikeItsRepresentative() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		StatisticsStore representative = AlignmentInformationTest.replay(log, SmallAlignedLog.PERFECT).getStore();
+		StatisticsStore again = AlignmentInformationTest.replay(log, SmallAlignedLog.PERFECT_AGAIN).getStore();
+		for (int slot = 0; slot < representative.getNumSlots(); slot++) {
+			assertEquals(representative.get(slot), again.get(slot));
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(VariantIndexTest.class);
+	}
+
+}
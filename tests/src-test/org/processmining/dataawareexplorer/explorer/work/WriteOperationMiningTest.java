@@ -0,0 +1,75 @@
+package org.processmining.dataawareexplorer.explorer.work;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.xesalignmentextension.XAlignmentExtension.XAlignment;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Checks the write operations mined from the moves of the
+ * {@link SmallAlignedLog}. Every move of A has the attribute 'amount', also if
+ * its write is incorrect or missing, and every move of D has 'risk'. No other
+ * move has either attribute.
+ */
+public class WriteOperationMiningTest extends TestCase {
+
+	private static final Set<String> VARIABLES = ImmutableSet.of("amount", "risk");
+
+	private static SetMultimap<Transition, String> discover(SmallAlignedLog log, List<XAlignment> alignments,
+			Collection<Transition> transitions, double threshold, Set<String> consideredAttributes) {
+		return DiscoveryProcessor.discoverWriteOperations(log.compactLog, alignments, transitions, threshold,
+				consideredAttributes);
+	}
+
+	@Test
+	public void testThresholds() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		SetMultimap<Transition, String> expected = ImmutableSetMultimap.of(log.getTransition("A"), "amount",
+				log.getTransition("D"), "risk");
+		for (double threshold : new double[] { 0d, 0.5d, 0.99d }) {
+			assertEquals("threshold=" + threshold, expected,
+					discover(log, log.alignments, log.net.getTransitions(), threshold, VARIABLES));
+		}
+		// Written only if found more often than executions times the threshold
+		assertTrue(discover(log, log.alignments, log.net.getTransitions(), 1d, VARIABLES).isEmpty());
+	}
+
+	@Test
+	public void testConsideredAttributes() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		assertEquals(ImmutableSetMultimap.of(log.getTransition("D"), "risk"),
+				discover(log, log.alignments, log.net.getTransitions(), 0.5d, ImmutableSet.of("risk")));
+		assertTrue(discover(log, log.alignments, log.net.getTransitions(), 0.5d, ImmutableSet.<String>of())
+				.isEmpty());
+		assertTrue(discover(log, log.alignments, log.net.getTransitions(), 0d, ImmutableSet.of("unknown"))
+				.isEmpty());
+	}
+
+	@Test
+	public void testSubsets() throws Exception {
+		SmallAlignedLog log = new SmallAlignedLog();
+		assertEquals(ImmutableSetMultimap.of(log.getTransition("A"), "amount"), discover(log, log.alignments,
+				ImmutableList.of(log.getTransition("A"), log.getTransition("B")), 0.5d, VARIABLES));
+		assertEquals(ImmutableSetMultimap.of(log.getTransition("A"), "amount", log.getTransition("D"), "risk"),
+				discover(log, log.select(SmallAlignedLog.MISSING_ATTRIBUTE, SmallAlignedLog.GUARD_VIOLATED),
+						log.net.getTransitions(), 0.5d, VARIABLES));
+		// Transitions that are never executed write nothing
+		assertTrue(discover(log, ImmutableList.<XAlignment>of(), log.net.getTransitions(), 0d, VARIABLES)
+				.isEmpty());
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(WriteOperationMiningTest.class);
+	}
+
+}
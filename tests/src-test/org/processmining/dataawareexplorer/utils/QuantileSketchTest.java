@@ -0,0 +1,210 @@
+package org.processmining.dataawareexplorer.utils;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.math3.stat.StatUtils;
+import org.junit.Test;
+
+/**
+ * Checks the quantiles of the {@link QuantileSketch} against the percentiles
+ * of {@link StatUtils#percentile(double[], double)} on the exact values.
+ */
+public class QuantileSketchTest extends TestCase {
+
+	private static final double[] PERCENTILES = { 0.5d, 1d, 10d, 25d, 33.3d, 50d, 75d, 90d, 99d, 100d };
+
+	private static final double ACCURACY = 0.01d;
+
+	// Rounding of the logarithm and of the interpolation
+	private static final double TOLERANCE = 1e-9;
+
+	private static QuantileSketch createSketch(long[] values) {
+		QuantileSketch sketch = new QuantileSketch(ACCURACY);
+		for (long value : values) {
+			sketch.add(value);
+		}
+		return sketch;
+	}
+
+	private static double[] toDoubles(long[] values) {
+		double[] result = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i];
+		}
+		return result;
+	}
+
+	private static void assertWithinAccuracy(String message, long[] values, QuantileSketch sketch) {
+		double[] exactValues = toDoubles(values);
+		for (double p : PERCENTILES) {
+			double expected = StatUtils.percentile(exactValues, p);
+			assertEquals(message + ", p=" + p, expected, sketch.getQuantile(p / 100),
+					(ACCURACY + TOLERANCE) * Math.abs(expected) + TOLERANCE);
+		}
+	}
+
+	private static void assertSameQuantiles(QuantileSketch expected, QuantileSketch actual) {
+		assertEquals(expected.getCount(), actual.getCount());
+		assertEquals(expected.getMin(), actual.getMin());
+		assertEquals(expected.getMax(), actual.getMax());
+		assertEquals(expected.getMean(), actual.getMean(), TOLERANCE * Math.abs(expected.getMean()));
+		for (double p : PERCENTILES) {
+			assertEquals("p=" + p, expected.getQuantile(p / 100), actual.getQuantile(p / 100), 0d);
+		}
+	}
+
+	@Test
+	public void testAccuracyAgainstExactPercentiles() {
+		Random random = new Random(42);
+		for (int n = 1; n <= 200; n++) {
+			long[] values = new long[n];
+			for (int i = 0; i < n; i++) {
+				// Spread over many orders of magnitude, as waiting times in milliseconds
+				values[i] = 1 + (long) Math.exp(random.nextDouble() * Math.log(1e10));
+			}
+			QuantileSketch sketch = createSketch(values);
+			assertEquals(n, sketch.getCount());
+			assertWithinAccuracy("n=" + n, values, sketch);
+		}
+	}
+
+	@Test
+	public void testNegativeValues() {
+		Random random = new Random(42);
+		for (int n = 1; n <= 100; n++) {
+			long[] values = new long[n];
+			for (int i = 0; i < n; i++) {
+				values[i] = -1 - random.nextInt(1000000);
+			}
+			assertWithinAccuracy("n=" + n, values, createSketch(values));
+		}
+	}
+
+	@Test
+	public void testZeroAndMixedSigns() {
+		long[] zeros = new long[10];
+		QuantileSketch sketch = createSketch(zeros);
+		for (double p : PERCENTILES) {
+			assertEquals(0d, sketch.getQuantile(p / 100), 0d);
+		}
+
+		// With 99 values, these percentiles fall exactly on a rank, so that no
+		// values of different sign are interpolated
+		Random random = new Random(42);
+		long[] values = new long[99];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(3) == 0 ? 0 : random.nextInt(2000001) - 1000000;
+		}
+		sketch = createSketch(values);
+		double[] exactValues = toDoubles(values);
+		for (double p : new double[] { 1d, 10d, 25d, 50d, 75d, 90d, 99d }) {
+			double expected = StatUtils.percentile(exactValues, p);
+			assertEquals("p=" + p, expected, sketch.getQuantile(p / 100),
+					(ACCURACY + TOLERANCE) * Math.abs(expected) + TOLERANCE);
+		}
+	}
+
+	@Test
+	public void testAddAll() {
+		Random random = new Random(42);
+		long[] small = new long[500];
+		long[] large = new long[300];
+		long[] all = new long[small.length + large.length];
+		for (int i = 0; i < small.length; i++) {
+			small[i] = random.nextInt(1000) - 100;
+			all[i] = small[i];
+		}
+		for (int i = 0; i < large.length; i++) {
+			// Buckets far above the ones of the small values
+			large[i] = 1000000 + random.nextInt(1000000000);
+			all[small.length + i] = large[i];
+		}
+		QuantileSketch expected = createSketch(all);
+
+		QuantileSketch merged = createSketch(small);
+		merged.addAll(createSketch(large));
+		assertSameQuantiles(expected, merged);
+
+		merged = createSketch(large);
+		merged.addAll(createSketch(small));
+		assertSameQuantiles(expected, merged);
+		assertWithinAccuracy("merged", all, merged);
+
+		// Merging an empty sketch does not change anything
+		merged.addAll(new QuantileSketch(ACCURACY));
+		assertSameQuantiles(expected, merged);
+		QuantileSketch empty = new QuantileSketch(ACCURACY);
+		empty.addAll(expected);
+		assertSameQuantiles(expected, empty);
+
+		try {
+			merged.addAll(new QuantileSketch(ACCURACY * 2));
+			fail("Sketches with different accuracy must not be merged");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testBucketsGrowInBothDirections() {
+		// Every power of two is in its own bucket
+		long[] values = new long[62];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 1l << i;
+		}
+		QuantileSketch ascending = createSketch(values);
+		QuantileSketch descending = new QuantileSketch(ACCURACY);
+		QuantileSketch negative = new QuantileSketch(ACCURACY);
+		for (int i = values.length - 1; i >= 0; i--) {
+			descending.add(values[i]);
+			negative.add(-values[i]);
+		}
+		// Starting in the middle grows the buckets in both directions
+		QuantileSketch outward = new QuantileSketch(ACCURACY);
+		for (int i = 0; i < values.length / 2; i++) {
+			outward.add(values[values.length / 2 + i]);
+			outward.add(values[values.length / 2 - 1 - i]);
+		}
+		assertWithinAccuracy("ascending", values, ascending);
+		assertSameQuantiles(ascending, descending);
+		assertSameQuantiles(ascending, outward);
+		for (double p : PERCENTILES) {
+			assertEquals("p=" + p, -ascending.getQuantile(1 - p / 100), negative.getQuantile(p / 100),
+					TOLERANCE * Math.abs(negative.getQuantile(p / 100)));
+		}
+
+		// Counts of the same value are added to the same bucket
+		QuantileSketch weighted = new QuantileSketch(ACCURACY);
+		weighted.add(100, 3);
+		weighted.add(1);
+		assertEquals(4, weighted.getCount());
+		assertEquals(100d, weighted.getQuantile(0.5d), 100 * ACCURACY);
+	}
+
+	@Test
+	public void testEmptyAndSingleValue() {
+		QuantileSketch sketch = new QuantileSketch(ACCURACY);
+		assertTrue(sketch.isEmpty());
+		assertTrue(Double.isNaN(sketch.getQuantile(0.5d)));
+		sketch.add(12345);
+		for (double p : PERCENTILES) {
+			assertEquals(12345d, sketch.getQuantile(p / 100), 0d);
+		}
+		try {
+			new QuantileSketch(0d);
+			fail("Accuracy must be positive");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			new QuantileSketch(1d);
+			fail("Accuracy must be below 1");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(QuantileSketchTest.class);
+	}
+
+}